@@ -0,0 +1,83 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Intent;
+import android.os.Parcel;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Micro-benchmark do custo por play de levar um MusicData até o serviço: JSON com um Gson novo
+ * a cada chamada (como era antes) x Parcelable no Intent. Os tempos saem no logcat (tag
+ * MusicDataBenchmark); o teste só verifica que os dois caminhos entregam o mesmo conteúdo.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicDataBenchmarkTest {
+
+    private static final String TAG = "MusicDataBenchmark";
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private final MusicData musicData = new MusicData("If You Waited", "Ketsa",
+            "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_if_you_waited");
+
+    @Test
+    public void parcelable_vs_gsonPorChamada() {
+        for (int i = 0; i < WARMUP; i++) {
+            viaGsonPerCall();
+            viaParcel();
+        }
+
+        long start = System.nanoTime();
+        MusicData fromJson = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            fromJson = viaGsonPerCall();
+        }
+        double gsonNanos = (System.nanoTime() - start) / (double) ITERATIONS;
+
+        start = System.nanoTime();
+        MusicData fromParcel = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            fromParcel = viaParcel();
+        }
+        double parcelNanos = (System.nanoTime() - start) / (double) ITERATIONS;
+
+        Log.i(TAG, String.format("gson por chamada: %.0f ns/op, parcelable: %.0f ns/op (%.1fx)",
+                gsonNanos, parcelNanos, gsonNanos / parcelNanos));
+
+        assertEquals(fromJson.getPath(), fromParcel.getPath());
+        assertEquals(fromJson.getTitle(), fromParcel.getTitle());
+        assertEquals(fromJson.getArtist(), fromParcel.getArtist());
+    }
+
+    // Caminho antigo: MusicData.toString() e MusicData.make() criavam um Gson cada
+    private MusicData viaGsonPerCall() {
+        String json = new Gson().toJson(musicData);
+        return new Gson().fromJson(json, MusicData.class);
+    }
+
+    // Caminho atual: o Intent é escrito em um Parcel ao cruzar o processo do sistema
+    private MusicData viaParcel() {
+        Intent intent = new Intent();
+        intent.putExtra(AudioService.EXTRA_MUSIC_DATA, musicData);
+
+        Parcel parcel = Parcel.obtain();
+        try {
+            intent.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+
+            Intent received = Intent.CREATOR.createFromParcel(parcel);
+            received.setExtrasClassLoader(MusicData.class.getClassLoader());
+            return received.getParcelableExtra(AudioService.EXTRA_MUSIC_DATA);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
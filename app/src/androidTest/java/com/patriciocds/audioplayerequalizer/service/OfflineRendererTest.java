@@ -0,0 +1,88 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.patriciocds.audioplayerequalizer.util.EqualizerPreset;
+import com.patriciocds.audioplayerequalizer.util.PcmFormat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Renderiza as músicas de exemplo (res/raw) para WAV. O fator de tempo real sai no logcat
+ * (tag OfflineRenderer).
+ */
+@RunWith(AndroidJUnit4.class)
+public class OfflineRendererTest {
+
+    private static final String TAG = "OfflineRenderer";
+
+    private final MusicData ifYouWaited = new MusicData("If You Waited", "Ketsa",
+            "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_if_you_waited");
+    private final MusicData mist = new MusicData("Mist", "Ketsa",
+            "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_mist");
+
+    private OfflineRenderer renderer;
+    private File outputDir;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        renderer = new OfflineRenderer(context);
+        outputDir = new File(context.getCacheDir(), "offline-render-test");
+    }
+
+    @After
+    public void tearDown() {
+        renderer.shutdown();
+
+        File[] files = outputDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        outputDir.delete();
+    }
+
+    @Test
+    public void renderAll_deveGravarUmWavPorFaixaMaisRapidoQueOTempoReal() throws Exception {
+        OfflineRenderer.BatchResult batch = renderer.renderAll(Arrays.asList(ifYouWaited, mist),
+                EqualizerPreset.builtIn(EqualizerPreset.BASS_BOOST), outputDir);
+
+        Log.i(TAG, String.format("%.1f s de áudio em %.2f s: %.1fx tempo real",
+                batch.getAudioSeconds(), batch.getElapsedNanos() / 1e9, batch.getRealTimeFactor()));
+
+        assertEquals(2, batch.getResults().size());
+        assertTrue(batch.getRealTimeFactor() > 1);
+
+        for (OfflineRenderer.Result result : batch.getResults()) {
+            assertTrue(result.getFrameCount() > 0);
+            assertEquals(result.getFrameCount() * result.getFormat().getFrameSize(), dataSize(result));
+        }
+    }
+
+    // Tamanho do chunk "data", nos últimos 4 bytes do cabeçalho (44 bytes em PCM, 58 em float)
+    private static long dataSize(OfflineRenderer.Result result) throws IOException {
+        boolean isFloat = result.getFormat().getEncoding() == PcmFormat.ENCODING_PCM_FLOAT;
+
+        try (RandomAccessFile file = new RandomAccessFile(result.getOutput(), "r")) {
+            file.seek((isFloat ? 58 : 44) - 4);
+            return Integer.toUnsignedLong(Integer.reverseBytes(file.readInt()));
+        }
+    }
+}
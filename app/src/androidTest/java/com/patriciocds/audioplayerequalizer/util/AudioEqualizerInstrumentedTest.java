@@ -2,13 +2,19 @@ package com.patriciocds.audioplayerequalizer.util;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 @RunWith(AndroidJUnit4.class)
 public class AudioEqualizerInstrumentedTest {
 
@@ -20,6 +26,11 @@ public class AudioEqualizerInstrumentedTest {
         equalizer = new AudioEqualizer();
     }
 
+    @After
+    public void tearDown() {
+        equalizer.release();
+    }
+
     @Test
     public void applyEqualization_singleBand_gain1000_noChange() {
         // gain 1000 → fator = 1000/1000 = 1.0
@@ -59,4 +70,249 @@ public class AudioEqualizerInstrumentedTest {
         // 40 * 0.75 = 30, 80*0.75 = 60
         assertArrayEquals(new short[]{30, 60}, audio);
     }
+
+    @Test
+    public void applyEqualization_overflow_saturaEmVezDeDarAVolta() {
+        // 20000 * 4 passaria do limite do short; deve saturar em vez de inverter o sinal
+        short[] audio = new short[]{20000, -20000, 100};
+        int[] gains = new int[]{2000, 2000};
+
+        equalizer.applyEqualization(audio, gains);
+
+        assertArrayEquals(new short[]{32767, -32768, 400}, audio);
+    }
+
+    @Test
+    public void process_headroomAutomatico_compensaOReforcoDaCurva() {
+        equalizer.create(48000, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 1000f, 1f, 9f);
+        equalizer.setAutoHeadroom(true);
+
+        assertEquals(9f, equalizer.getHeadroomDb(), 0.5f);
+    }
+
+    @Test
+    public void process_bandsPlanas_naoAlteramOSinal() {
+        equalizer.create(48000, 3);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 100f, 0.707f, 0f);
+        equalizer.configureBand(1, AudioEqualizer.BAND_PEAKING, 1000f, 1f, 0f);
+        equalizer.configureBand(2, AudioEqualizer.BAND_HIGH_SHELF, 8000f, 0.707f, 0f);
+
+        short[] audio = new short[]{100, -200, 300, 32767, -32768};
+
+        int returned = equalizer.process(audio, 0, audio.length);
+
+        assertEquals(5, returned);
+        assertArrayEquals(new short[]{100, -200, 300, 32767, -32768}, audio);
+    }
+
+    @Test
+    public void process_lowShelf6dB_dobraONivelDC() {
+        // +6 dB em um low shelf → ganho ≈ 2.0 para sinal constante (DC)
+        equalizer.create(48000, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 200f, 0.707f, 6.0206f);
+
+        short[] audio = new short[4800];
+        Arrays.fill(audio, (short) 1000);
+
+        equalizer.process(audio, 0, audio.length);
+
+        // após o transitório o sinal deve estabilizar em ~2000
+        assertTrue(Math.abs(audio[audio.length - 1] - 2000) <= 2);
+    }
+
+    @Test
+    public void process_estadoPreservadoEntreChamadas() {
+        // processar em dois buffers deve dar o mesmo resultado que em um só
+        short[] whole = new short[1000];
+        for (int i = 0; i < whole.length; i++) {
+            whole[i] = (short) (Math.sin(i * 0.05) * 10000);
+        }
+        short[] split = whole.clone();
+
+        equalizer.create(44100, 2);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 500f, 1.4f, 9f);
+        equalizer.configureBand(1, AudioEqualizer.BAND_HIGH_SHELF, 6000f, 0.707f, -4f);
+        equalizer.process(whole, 0, whole.length);
+
+        equalizer.reset();
+        equalizer.process(split, 0, 333);
+        equalizer.process(split, 333, split.length - 333);
+
+        assertArrayEquals(whole, split);
+    }
+
+    @Test
+    public void process_byteBufferDireto_respeitaOffsetESize() {
+        equalizer.create(48000, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 200f, 0.707f, 6.0206f);
+
+        short[] expected = new short[4800];
+        Arrays.fill(expected, (short) 1000);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 + expected.length * 2).order(ByteOrder.nativeOrder());
+        buffer.putShort(0, (short) 7);
+        for (int i = 0; i < expected.length; i++) {
+            buffer.putShort(2 + i * 2, expected[i]);
+        }
+
+        // mesmo processamento pelo caminho com array, para comparação
+        equalizer.process(expected, 0, expected.length);
+        equalizer.reset();
+
+        int returned = equalizer.process(buffer, 2, expected.length * 2);
+
+        assertEquals(expected.length, returned);
+        // o primeiro sample (fora do offset) não deve ser tocado
+        assertEquals(7, buffer.getShort(0));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], buffer.getShort(2 + i * 2));
+        }
+    }
+
+    @Test
+    public void process_layoutPlanar_deveIgualarOIntercalado() {
+        int frames = 1500;
+        short[] interleaved = new short[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            interleaved[2 * i] = (short) (Math.sin(i * 0.05) * 10000);
+            interleaved[2 * i + 1] = (short) (Math.cos(i * 0.11) * 8000);
+        }
+
+        // mesmo áudio com um bloco por canal: L L L ... R R R ...
+        short[] planar = new short[interleaved.length];
+        for (int i = 0; i < frames; i++) {
+            planar[i] = interleaved[2 * i];
+            planar[frames + i] = interleaved[2 * i + 1];
+        }
+
+        equalizer.create(44100, 2, 2);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 500f, 1.4f, 9f);
+        equalizer.configureBand(1, AudioEqualizer.BAND_HIGH_SHELF, 6000f, 0.707f, -4f);
+        equalizer.process(interleaved, 0, interleaved.length);
+
+        equalizer.create(new PcmFormat(44100, 2, PcmFormat.ENCODING_PCM_16BIT, PcmFormat.LAYOUT_PLANAR), 2);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 500f, 1.4f, 9f);
+        equalizer.configureBand(1, AudioEqualizer.BAND_HIGH_SHELF, 6000f, 0.707f, -4f);
+        assertEquals(planar.length, equalizer.process(planar, 0, planar.length));
+
+        for (int i = 0; i < frames; i++) {
+            assertEquals(interleaved[2 * i], planar[i]);
+            assertEquals(interleaved[2 * i + 1], planar[frames + i]);
+        }
+    }
+
+    @Test
+    public void process_byteBufferFloat_deveSeguirOFormato() {
+        // +6 dB em um low shelf sobre DC 0.25 em float → ~0.5, sem passar por 16 bits
+        equalizer.create(new PcmFormat(48000, 1, PcmFormat.ENCODING_PCM_FLOAT, PcmFormat.LAYOUT_INTERLEAVED), 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 200f, 0.707f, 6.0206f);
+
+        int samples = 4800;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(samples * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < samples; i++) {
+            buffer.putFloat(i * 4, 0.25f);
+        }
+
+        assertEquals(samples, equalizer.process(buffer, 0, samples * 4));
+        assertEquals(0.5f, buffer.getFloat((samples - 1) * 4), 1e-4f);
+    }
+
+    @Test
+    public void process_arrayFloat_deveAcompanharO16BitsSemArredondar() {
+        short[] pcm16 = new short[2048];
+        float[] pcmFloat = new float[pcm16.length];
+        for (int i = 0; i < pcm16.length; i++) {
+            pcm16[i] = (short) (Math.sin(i * 0.03) * 12000);
+            pcmFloat[i] = pcm16[i] / 32768f;
+        }
+
+        equalizer.create(44100, 2, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 1000f, 1f, 6f);
+        equalizer.process(pcm16, 0, pcm16.length);
+
+        equalizer.create(new PcmFormat(44100, 2, PcmFormat.ENCODING_PCM_FLOAT, PcmFormat.LAYOUT_INTERLEAVED), 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 1000f, 1f, 6f);
+        assertEquals(pcmFloat.length, equalizer.process(pcmFloat, 0, pcmFloat.length));
+
+        // mesma curva: o float só não passa pelo arredondamento para 16 bits
+        for (int i = 0; i < pcm16.length; i++) {
+            assertEquals(pcm16[i], pcmFloat[i] * 32768f, 1f);
+        }
+    }
+
+    @Test
+    public void setBandGains_entreBuffers_deveFazerARampaSemDegrau() {
+        equalizer.create(48000, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 200f, 0.707f, 6.0206f);
+
+        short[] audio = new short[4800];
+        Arrays.fill(audio, (short) 1000);
+        equalizer.process(audio, 0, audio.length);
+
+        // de volta a 0 dB: o próximo buffer sai de ~2000 e desce sem saltos
+        equalizer.setBandGains(new float[]{0f});
+
+        short[] ramp = new short[1024];
+        Arrays.fill(ramp, (short) 1000);
+        equalizer.process(ramp, 0, ramp.length);
+
+        assertTrue(Math.abs(ramp[0] - 2000) <= 10);
+        for (int i = 1; i < ramp.length; i++) {
+            assertTrue(Math.abs(ramp[i] - ramp[i - 1]) <= 10);
+        }
+    }
+
+    @Test
+    public void load_curvaCalculada_deveIgualarConfigureBand() {
+        int[] types = {AudioEqualizer.BAND_LOW_SHELF, AudioEqualizer.BAND_PEAKING};
+        float[] frequencies = {100f, 2000f};
+        float[] qs = {0.707f, 1.2f};
+        float[] gains = {5f, -4f};
+
+        short[] expected = new short[2048];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (short) (Math.sin(i * 0.03) * 12000);
+        }
+        short[] audio = expected.clone();
+
+        equalizer.create(44100, 2);
+        for (int band = 0; band < types.length; band++) {
+            equalizer.configureBand(band, types[band], frequencies[band], qs[band], gains[band]);
+        }
+        equalizer.process(expected, 0, expected.length);
+
+        EqualizerCoefficients curve = AudioEqualizer.design(44100, types, frequencies, qs, gains);
+        equalizer.create(44100, 2);
+        equalizer.load(curve);
+        equalizer.process(audio, 0, audio.length);
+
+        assertArrayEquals(expected, audio);
+    }
+
+    @Test
+    public void setAnalyzer_senoide_deveAparecerNoBinENoPico() {
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer();
+        analyzer.create(1024, 8, 25f);
+
+        equalizer.create(48000, 1);
+        equalizer.setAnalyzer(analyzer);
+
+        // 3 kHz cai exatamente no bin 64 (64 * 48000 / 1024)
+        short[] samples = new short[4800];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (16384 * Math.sin(2 * Math.PI * 3000 * i / 48000.0));
+        }
+        equalizer.process(samples, 0, samples.length);
+
+        float[] result = new float[analyzer.getResultSize()];
+        long sequence = analyzer.read(result);
+
+        equalizer.setAnalyzer(null);
+        analyzer.release();
+
+        assertTrue(sequence > 0);
+        assertEquals(-6.02f, result[SpectrumAnalyzer.INDEX_PEAK], 0.1f);
+        assertEquals(-6.02f, result[analyzer.getSpectrumIndex(64)], 0.2f);
+    }
 }
@@ -2,30 +2,631 @@
 
 # include <android/log.h>
 # include <algorithm>
+# include <atomic>
+# include <cmath>
 # include <vector>
 
+# include "EqualizerEngine.h"
+# include "Kernels.h"
+# include "LoudnessMeter.h"
+# include "SpectrumAnalyzer.h"
+
+using equalizer::BandType;
+using equalizer::ClipMode;
+using equalizer::EqualizerEngine;
+using equalizer::LoudnessMeter;
+using equalizer::SpectrumAnalyzer;
+
+namespace {
+
+inline EqualizerEngine *fromHandle(jlong handle) {
+    return reinterpret_cast<EqualizerEngine *>(handle);
+}
+
+inline SpectrumAnalyzer *analyzerFromHandle(jlong handle) {
+    return reinterpret_cast<SpectrumAnalyzer *>(handle);
+}
+
+inline LoudnessMeter *meterFromHandle(jlong handle) {
+    return reinterpret_cast<LoudnessMeter *>(handle);
+}
+
+//Os ganhos são escalares, então o fator total é calculado uma única vez.
+//JNI_ABORT: o array de ganhos não é alterado, então não há nada para copiar de volta.
+double combinedGain(JNIEnv *env, jintArray gains) {
+    double gain = 1.0;
+    int numBands = env->GetArrayLength(gains);
+    auto *gainsPtr = static_cast<jint *>(env->GetPrimitiveArrayCritical(gains, nullptr));
+
+    if (gainsPtr != nullptr) {
+        for (int j = 0; j < numBands; j++) {
+            gain *= gainsPtr[j] / 1000.0;
+        }
+
+        env->ReleasePrimitiveArrayCritical(gains, gainsPtr, JNI_ABORT);
+    }
+
+    return gain;
+}
+
+void applyGain(jshort *audioDataPtr, int numSamples, double gain) {
+    //Aplicando a equalização (Exemplo simples de ganho).
+    //O resultado satura em vez de "dar a volta" no overflow do short, o que virava um click.
+    for (int i = 0; i < numSamples; i++) {
+        double value = audioDataPtr[i] * gain;
+        value = std::min(32767.0, std::max(-32768.0, value));
+        audioDataPtr[i] = static_cast<jshort>(value);
+    }
+}
+
+//Parâmetros das bandas copiados dos arrays Java (usados por designBands/loadBands)
+struct BandArrays {
+    std::vector<BandType> types;
+    std::vector<jfloat> frequencies;
+    std::vector<jfloat> qs;
+    std::vector<jfloat> gainsDb;
+};
+
+bool readBandArrays(JNIEnv *env, jintArray types, jfloatArray frequencies, jfloatArray qs, jfloatArray gainsDb,
+                    BandArrays *out) {
+    const jsize count = env->GetArrayLength(types);
+
+    if (env->GetArrayLength(frequencies) != count || env->GetArrayLength(qs) != count
+            || env->GetArrayLength(gainsDb) != count) {
+        return false;
+    }
+
+    std::vector<jint> rawTypes(static_cast<size_t>(count));
+    env->GetIntArrayRegion(types, 0, count, rawTypes.data());
+
+    out->types.resize(static_cast<size_t>(count));
+    for (jsize band = 0; band < count; band++) {
+        out->types[band] = static_cast<BandType>(rawTypes[band]);
+    }
+
+    out->frequencies.resize(static_cast<size_t>(count));
+    out->qs.resize(static_cast<size_t>(count));
+    out->gainsDb.resize(static_cast<size_t>(count));
+    env->GetFloatArrayRegion(frequencies, 0, count, out->frequencies.data());
+    env->GetFloatArrayRegion(qs, 0, count, out->qs.data());
+    env->GetFloatArrayRegion(gainsDb, 0, count, out->gainsDb.data());
+
+    return true;
+}
+
+//Endereço das amostras em um ByteBuffer direto; o offset é em bytes (mesma convenção do MediaCodec)
+template <typename Sample>
+Sample *directSamples(JNIEnv *env, jobject buffer, jint offset) {
+    auto *address = static_cast<uint8_t *>(env->GetDirectBufferAddress(buffer));
+
+    if (address == nullptr) {
+        return nullptr;
+    }
+
+    return reinterpret_cast<Sample *>(address + offset);
+}
+
+//Mesmo valor de PcmFormat.ENCODING_PCM_FLOAT (qualquer outro é PCM 16 bits)
+const jint kEncodingPcmFloat = 1;
+
+//Processa count amostras no layout pedido. No planar, o canal c ocupa count / canais amostras
+//a partir de samples + c * frames; os ponteiros de cada canal ficam na pilha (sem alocação).
+//Retorna a quantidade de amostras processadas.
+template <typename Sample>
+int processLayout(EqualizerEngine *engine, Sample *samples, int count, bool planar) {
+    if (!planar) {
+        return engine->process(samples, count);
+    }
+
+    const int channelCount = engine->getChannelCount();
+    const int frames = count / channelCount;
+    Sample *channels[EqualizerEngine::kMaxChannels];
+
+    for (int c = 0; c < channelCount; c++) {
+        channels[c] = samples + c * frames;
+    }
+
+    return engine->processPlanar(channels, frames) * channelCount;
+}
+
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+JNI_OnLoad(JavaVM *vm, void *reserved) {
+    //Escolhe uma única vez os kernels (NEON quando a CPU suporta, escalar caso contrário)
+    equalizer::selectKernels(true);
+
+    __android_log_print(ANDROID_LOG_INFO, "AudioEqualizer", "Kernels: %s",
+                        equalizer::activeKernels().name);
+
+    return JNI_VERSION_1_6;
+}
+
 extern "C"
 JNIEXPORT jint JNICALL
 Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_applyEqualization(JNIEnv *env,
                                                                                 jobject thiz,
                                                                                 jshortArray audioData,
                                                                                 jintArray gains) {
+    //O fator é calculado antes de travar o buffer de áudio (só uma região crítica por vez)
+    double gain = combinedGain(env, gains);
+
     //Recuperando os dados
-    jshort* audioDataPtr = env->GetShortArrayElements(audioData, 0);
-    jint* gainsPtr = env->GetIntArrayElements(gains, 0);
+    auto *audioDataPtr = static_cast<jshort *>(env->GetPrimitiveArrayCritical(audioData, nullptr));
+
+    if (audioDataPtr == nullptr) {
+        return 0;
+    }
 
     int numSamples = env->GetArrayLength(audioData);
-    int numBands = env->GetArrayLength(gains);
 
-    //Aplicando a equalização (Exemplo simples de ganho)
-    for (int i = 0; i < numSamples; i++) {
-        for (int j = 0; j < numBands; j++) {
-            audioDataPtr[i] *= (double)(gainsPtr[j] / 1000.0); //Ajuste o ganho
-        }
+    applyGain(audioDataPtr, numSamples, gain);
+
+    env->ReleasePrimitiveArrayCritical(audioData, audioDataPtr, 0);
+
+    return numSamples;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeApplyEqualizationDirect(JNIEnv *env,
+                                                                                            jclass clazz,
+                                                                                            jobject buffer,
+                                                                                            jint offset,
+                                                                                            jint size,
+                                                                                            jintArray gains) {
+    auto *audioDataPtr = directSamples<jshort>(env, buffer, offset);
+
+    if (audioDataPtr == nullptr) {
+        return 0;
     }
 
-    env->ReleaseShortArrayElements(audioData, audioDataPtr, 0);
-    env->ReleaseIntArrayElements(gains, gainsPtr, 0);
+    int numSamples = size / static_cast<int>(sizeof(jshort));
+
+    applyGain(audioDataPtr, numSamples, combinedGain(env, gains));
 
     return numSamples;
-}
\ No newline at end of file
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeCreate(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jint sampleRate,
+                                                                           jint channelCount,
+                                                                           jint bandCount) {
+    return reinterpret_cast<jlong>(new EqualizerEngine(sampleRate, channelCount, bandCount));
+}
+
+extern "C"
+JNIEXPORT jboolean JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeConfigureBand(JNIEnv *env,
+                                                                                  jclass clazz,
+                                                                                  jlong handle,
+                                                                                  jint band,
+                                                                                  jint type,
+                                                                                  jfloat frequency,
+                                                                                  jfloat q,
+                                                                                  jfloat gainDb) {
+    bool configured = fromHandle(handle)->configureBand(
+            band, static_cast<BandType>(type), frequency, q, gainDb);
+
+    return configured ? JNI_TRUE : JNI_FALSE;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeProcess(JNIEnv *env,
+                                                                            jclass clazz,
+                                                                            jlong handle,
+                                                                            jshortArray audioData,
+                                                                            jint offset,
+                                                                            jint length,
+                                                                            jboolean planar) {
+    //Acesso crítico: evita a cópia do array; nenhuma chamada à JVM acontece até o release
+    auto *audioDataPtr = static_cast<jshort *>(env->GetPrimitiveArrayCritical(audioData, nullptr));
+
+    if (audioDataPtr == nullptr) {
+        return 0;
+    }
+
+    int processed = processLayout(fromHandle(handle), audioDataPtr + offset, length, planar == JNI_TRUE);
+
+    env->ReleasePrimitiveArrayCritical(audioData, audioDataPtr, 0);
+
+    return processed;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeProcessFloat(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle,
+                                                                                 jfloatArray audioData,
+                                                                                 jint offset,
+                                                                                 jint length,
+                                                                                 jboolean planar) {
+    //Mesmo acesso crítico do caminho 16 bits; o motor processa o float direto, sem conversão
+    auto *audioDataPtr = static_cast<jfloat *>(env->GetPrimitiveArrayCritical(audioData, nullptr));
+
+    if (audioDataPtr == nullptr) {
+        return 0;
+    }
+
+    int processed = processLayout(fromHandle(handle), audioDataPtr + offset, length, planar == JNI_TRUE);
+
+    env->ReleasePrimitiveArrayCritical(audioData, audioDataPtr, 0);
+
+    return processed;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeProcessDirect(JNIEnv *env,
+                                                                                  jclass clazz,
+                                                                                  jlong handle,
+                                                                                  jobject buffer,
+                                                                                  jint offset,
+                                                                                  jint size,
+                                                                                  jint encoding,
+                                                                                  jboolean planar) {
+    //Sem cópias: o motor trabalha direto na memória do buffer (decoder/AudioTrack), no formato
+    //entregue pelo decoder, sem conversão no Java
+    if (encoding == kEncodingPcmFloat) {
+        auto *samples = directSamples<jfloat>(env, buffer, offset);
+
+        if (samples == nullptr) {
+            return 0;
+        }
+
+        return processLayout(fromHandle(handle), samples, size / static_cast<int>(sizeof(jfloat)),
+                             planar == JNI_TRUE);
+    }
+
+    auto *samples = directSamples<jshort>(env, buffer, offset);
+
+    if (samples == nullptr) {
+        return 0;
+    }
+
+    return processLayout(fromHandle(handle), samples, size / static_cast<int>(sizeof(jshort)),
+                         planar == JNI_TRUE);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeReset(JNIEnv *env,
+                                                                          jclass clazz,
+                                                                          jlong handle) {
+    fromHandle(handle)->reset();
+}
+
+extern "C"
+JNIEXPORT jboolean JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeSetBandGains(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle,
+                                                                                 jfloatArray gainsDb) {
+    //Cópia simples: roda no thread de controle, e o cálculo dos coeficientes não pode ficar
+    //dentro de uma região crítica
+    std::vector<jfloat> gains(static_cast<size_t>(env->GetArrayLength(gainsDb)));
+    env->GetFloatArrayRegion(gainsDb, 0, static_cast<jsize>(gains.size()), gains.data());
+
+    bool applied = fromHandle(handle)->setBandGains(gains.data(), static_cast<int>(gains.size()));
+
+    return applied ? JNI_TRUE : JNI_FALSE;
+}
+
+extern "C"
+JNIEXPORT jfloat JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeDesignBands(JNIEnv *env,
+                                                                                jclass clazz,
+                                                                                jint sampleRate,
+                                                                                jintArray types,
+                                                                                jfloatArray frequencies,
+                                                                                jfloatArray qs,
+                                                                                jfloatArray gainsDb,
+                                                                                jfloatArray coefficients) {
+    BandArrays bands;
+
+    if (!readBandArrays(env, types, frequencies, qs, gainsDb, &bands)) {
+        return NAN;
+    }
+
+    const int count = static_cast<int>(bands.types.size());
+    std::vector<jfloat> designed(static_cast<size_t>(count * EqualizerEngine::kCoefficientsPerBand));
+    float peakDb = 0.0f;
+
+    if (env->GetArrayLength(coefficients) != static_cast<jsize>(designed.size())
+            || !EqualizerEngine::designBands(sampleRate, bands.types.data(), bands.frequencies.data(),
+                                             bands.qs.data(), bands.gainsDb.data(), count,
+                                             designed.data(), &peakDb)) {
+        return NAN;
+    }
+
+    env->SetFloatArrayRegion(coefficients, 0, static_cast<jsize>(designed.size()), designed.data());
+
+    return peakDb;
+}
+
+extern "C"
+JNIEXPORT jboolean JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeLoadBands(JNIEnv *env,
+                                                                              jclass clazz,
+                                                                              jlong handle,
+                                                                              jintArray types,
+                                                                              jfloatArray frequencies,
+                                                                              jfloatArray qs,
+                                                                              jfloatArray gainsDb,
+                                                                              jfloatArray coefficients,
+                                                                              jfloat peakDb) {
+    BandArrays bands;
+
+    if (!readBandArrays(env, types, frequencies, qs, gainsDb, &bands)) {
+        return JNI_FALSE;
+    }
+
+    const int count = static_cast<int>(bands.types.size());
+    std::vector<jfloat> loaded(static_cast<size_t>(env->GetArrayLength(coefficients)));
+
+    if (loaded.size() != static_cast<size_t>(count * EqualizerEngine::kCoefficientsPerBand)) {
+        return JNI_FALSE;
+    }
+
+    env->GetFloatArrayRegion(coefficients, 0, static_cast<jsize>(loaded.size()), loaded.data());
+
+    bool applied = fromHandle(handle)->loadBands(bands.types.data(), bands.frequencies.data(), bands.qs.data(),
+                                                 bands.gainsDb.data(), loaded.data(), count, peakDb);
+
+    return applied ? JNI_TRUE : JNI_FALSE;
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeSetAutoHeadroom(JNIEnv *env,
+                                                                                    jclass clazz,
+                                                                                    jlong handle,
+                                                                                    jboolean enabled) {
+    fromHandle(handle)->setAutoHeadroom(enabled == JNI_TRUE);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeSetPreGainDb(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle,
+                                                                                 jfloat gainDb) {
+    fromHandle(handle)->setPreGainDb(gainDb);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeSetClipMode(JNIEnv *env,
+                                                                                jclass clazz,
+                                                                                jlong handle,
+                                                                                jint mode) {
+    fromHandle(handle)->setClipMode(static_cast<ClipMode>(mode));
+}
+
+extern "C"
+JNIEXPORT jfloat JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeGetHeadroomDb(JNIEnv *env,
+                                                                                  jclass clazz,
+                                                                                  jlong handle) {
+    return fromHandle(handle)->getHeadroomDb();
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeSetAnalyzer(JNIEnv *env,
+                                                                                jclass clazz,
+                                                                                jlong handle,
+                                                                                jlong analyzerHandle) {
+    fromHandle(handle)->setAnalyzer(analyzerFromHandle(analyzerHandle));
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_nativeRelease(JNIEnv *env,
+                                                                            jclass clazz,
+                                                                            jlong handle) {
+    delete fromHandle(handle);
+}
+
+extern "C"
+JNIEXPORT jstring JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_getKernelName(JNIEnv *env,
+                                                                            jclass clazz) {
+    return env->NewStringUTF(equalizer::activeKernels().name);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_AudioEqualizer_setSimdEnabled(JNIEnv *env,
+                                                                             jclass clazz,
+                                                                             jboolean enabled) {
+    equalizer::selectKernels(enabled == JNI_TRUE);
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_SpectrumAnalyzer_nativeCreate(JNIEnv *env,
+                                                                             jclass clazz,
+                                                                             jint fftSize,
+                                                                             jint bandCount,
+                                                                             jfloat updateRateHz) {
+    return reinterpret_cast<jlong>(new SpectrumAnalyzer(fftSize, bandCount, updateRateHz));
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_SpectrumAnalyzer_nativeGetFftSize(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle) {
+    return analyzerFromHandle(handle)->getFftSize();
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_SpectrumAnalyzer_nativeGetResultSize(JNIEnv *env,
+                                                                                    jclass clazz,
+                                                                                    jlong handle) {
+    return analyzerFromHandle(handle)->getResultSize();
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_SpectrumAnalyzer_nativeRead(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jlong handle,
+                                                                           jfloatArray out) {
+    //Cópia direta para o array do chamador, sem alocação intermediária
+    auto *outPtr = static_cast<jfloat *>(env->GetPrimitiveArrayCritical(out, nullptr));
+
+    if (outPtr == nullptr) {
+        return 0;
+    }
+
+    uint64_t sequence = analyzerFromHandle(handle)->read(outPtr, env->GetArrayLength(out));
+
+    env->ReleasePrimitiveArrayCritical(out, outPtr, 0);
+
+    return static_cast<jlong>(sequence);
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_SpectrumAnalyzer_nativeReadDirect(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle,
+                                                                                 jobject buffer) {
+    auto *outPtr = static_cast<jfloat *>(env->GetDirectBufferAddress(buffer));
+
+    if (outPtr == nullptr) {
+        return 0;
+    }
+
+    int capacity = static_cast<int>(env->GetDirectBufferCapacity(buffer) / sizeof(jfloat));
+
+    return static_cast<jlong>(analyzerFromHandle(handle)->read(outPtr, capacity));
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_SpectrumAnalyzer_nativeRelease(JNIEnv *env,
+                                                                              jclass clazz,
+                                                                              jlong handle) {
+    delete analyzerFromHandle(handle);
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeCreate(JNIEnv *env,
+                                                                          jclass clazz,
+                                                                          jint sampleRate,
+                                                                          jint channelCount) {
+    return reinterpret_cast<jlong>(new LoudnessMeter(sampleRate, channelCount));
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeProcess(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jlong handle,
+                                                                           jshortArray audioData,
+                                                                           jint offset,
+                                                                           jint length) {
+    //Só leitura: JNI_ABORT não copia nada de volta
+    auto *audioDataPtr = static_cast<jshort *>(env->GetPrimitiveArrayCritical(audioData, nullptr));
+
+    if (audioDataPtr == nullptr) {
+        return;
+    }
+
+    meterFromHandle(handle)->push(audioDataPtr + offset, length);
+
+    env->ReleasePrimitiveArrayCritical(audioData, audioDataPtr, JNI_ABORT);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeProcessDirect(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle,
+                                                                                 jobject buffer,
+                                                                                 jint offset,
+                                                                                 jint size,
+                                                                                 jint encoding) {
+    //Direto na saída do decoder, antes do equalizador
+    if (encoding == kEncodingPcmFloat) {
+        auto *samples = directSamples<jfloat>(env, buffer, offset);
+
+        if (samples != nullptr) {
+            meterFromHandle(handle)->push(samples, size / static_cast<int>(sizeof(jfloat)));
+        }
+
+        return;
+    }
+
+    auto *samples = directSamples<jshort>(env, buffer, offset);
+
+    if (samples != nullptr) {
+        meterFromHandle(handle)->push(samples, size / static_cast<int>(sizeof(jshort)));
+    }
+}
+
+extern "C"
+JNIEXPORT jfloat JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeGetIntegratedLoudness(JNIEnv *env,
+                                                                                         jclass clazz,
+                                                                                         jlong handle) {
+    return meterFromHandle(handle)->getIntegratedLoudness();
+}
+
+extern "C"
+JNIEXPORT jfloat JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeGetSamplePeak(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle) {
+    return meterFromHandle(handle)->getSamplePeak();
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeGetFrameCount(JNIEnv *env,
+                                                                                 jclass clazz,
+                                                                                 jlong handle) {
+    return static_cast<jlong>(meterFromHandle(handle)->getFrameCount());
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeReset(JNIEnv *env,
+                                                                         jclass clazz,
+                                                                         jlong handle) {
+    meterFromHandle(handle)->reset();
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_util_LoudnessMeter_nativeRelease(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jlong handle) {
+    delete meterFromHandle(handle);
+}
+
+// Barreiras do seqlock do PlaybackStateBlock (memória compartilhada entre processos)
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_service_MemoryFence_nativeAcquireFence(JNIEnv *env,
+                                                                                 jclass clazz) {
+    std::atomic_thread_fence(std::memory_order_acquire);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_patriciocds_audioplayerequalizer_service_MemoryFence_nativeReleaseFence(JNIEnv *env,
+                                                                                 jclass clazz) {
+    std::atomic_thread_fence(std::memory_order_release);
+}
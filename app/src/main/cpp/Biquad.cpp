@@ -0,0 +1,133 @@
+#include "Biquad.h"
+
+#include <cmath>
+
+namespace equalizer {
+
+bool designBiquad(BandType type, int sampleRate, float frequency, float q, float gainDb,
+                  BiquadCoefficients *out) {
+    if (out == nullptr || sampleRate <= 0 || q <= 0.0f
+            || frequency <= 0.0f || frequency >= sampleRate * 0.5f) {
+        return false;
+    }
+
+    // Os cálculos são feitos em double; apenas o resultado final vai para float
+    const double A = std::pow(10.0, gainDb / 40.0);
+    const double w0 = 2.0 * M_PI * frequency / sampleRate;
+    const double cosW0 = std::cos(w0);
+    const double alpha = std::sin(w0) / (2.0 * q);
+    const double sqrtA2Alpha = 2.0 * std::sqrt(A) * alpha;
+
+    double b0, b1, b2, a0, a1, a2;
+
+    switch (type) {
+        case BAND_PEAKING:
+            b0 = 1.0 + alpha * A;
+            b1 = -2.0 * cosW0;
+            b2 = 1.0 - alpha * A;
+            a0 = 1.0 + alpha / A;
+            a1 = -2.0 * cosW0;
+            a2 = 1.0 - alpha / A;
+            break;
+        case BAND_LOW_SHELF:
+            b0 = A * ((A + 1.0) - (A - 1.0) * cosW0 + sqrtA2Alpha);
+            b1 = 2.0 * A * ((A - 1.0) - (A + 1.0) * cosW0);
+            b2 = A * ((A + 1.0) - (A - 1.0) * cosW0 - sqrtA2Alpha);
+            a0 = (A + 1.0) + (A - 1.0) * cosW0 + sqrtA2Alpha;
+            a1 = -2.0 * ((A - 1.0) + (A + 1.0) * cosW0);
+            a2 = (A + 1.0) + (A - 1.0) * cosW0 - sqrtA2Alpha;
+            break;
+        case BAND_HIGH_SHELF:
+            b0 = A * ((A + 1.0) + (A - 1.0) * cosW0 + sqrtA2Alpha);
+            b1 = -2.0 * A * ((A - 1.0) + (A + 1.0) * cosW0);
+            b2 = A * ((A + 1.0) + (A - 1.0) * cosW0 - sqrtA2Alpha);
+            a0 = (A + 1.0) - (A - 1.0) * cosW0 + sqrtA2Alpha;
+            a1 = 2.0 * ((A - 1.0) - (A + 1.0) * cosW0);
+            a2 = (A + 1.0) - (A - 1.0) * cosW0 - sqrtA2Alpha;
+            break;
+        default:
+            return false;
+    }
+
+    out->b0 = static_cast<float>(b0 / a0);
+    out->b1 = static_cast<float>(b1 / a0);
+    out->b2 = static_cast<float>(b2 / a0);
+    out->a1 = static_cast<float>(a1 / a0);
+    out->a2 = static_cast<float>(a2 / a0);
+
+    return true;
+}
+
+BiquadCoefficients identityBiquad() {
+    BiquadCoefficients coefficients = {1.0f, 0.0f, 0.0f, 0.0f, 0.0f};
+    return coefficients;
+}
+
+namespace {
+
+struct Matrix2 {
+    double m[2][2];
+};
+
+Matrix2 multiply(const Matrix2 &a, const Matrix2 &b) {
+    Matrix2 result;
+
+    for (int i = 0; i < 2; i++) {
+        for (int j = 0; j < 2; j++) {
+            result.m[i][j] = a.m[i][0] * b.m[0][j] + a.m[i][1] * b.m[1][j];
+        }
+    }
+
+    return result;
+}
+
+}
+
+void prepareSection(const BiquadCoefficients &coefficients, BiquadSection *out) {
+    out->coefficients = coefficients;
+
+    // TDF-II como sistema de estados: s' = A s + B x, y = C s + D x, com C = [1 0]
+    const double b0 = coefficients.b0;
+    const Matrix2 A = {{{-coefficients.a1, 1.0}, {-coefficients.a2, 0.0}}};
+    const double B[2] = {coefficients.b1 - coefficients.a1 * b0, coefficients.b2 - coefficients.a2 * b0};
+
+    // powers[k] = A^k, k = 0..4
+    Matrix2 powers[5];
+    powers[0] = {{{1.0, 0.0}, {0.0, 1.0}}};
+    for (int k = 1; k < 5; k++) {
+        powers[k] = multiply(powers[k - 1], A);
+    }
+
+    // Resposta ao impulso: h[0] = D, h[m] = C A^(m-1) B
+    double impulse[4];
+    impulse[0] = b0;
+    for (int m = 1; m < 4; m++) {
+        impulse[m] = powers[m - 1].m[0][0] * B[0] + powers[m - 1].m[0][1] * B[1];
+    }
+
+    BiquadBlockCoefficients &block = out->block;
+
+    for (int k = 0; k < 4; k++) {
+        block.zToOutput[0][k] = static_cast<float>(powers[k].m[0][0]);
+        block.zToOutput[1][k] = static_cast<float>(powers[k].m[0][1]);
+
+        for (int j = 0; j < 4; j++) {
+            block.xToOutput[j][k] = static_cast<float>(k >= j ? impulse[k - j] : 0.0);
+        }
+    }
+
+    for (int lane = 0; lane < 4; lane++) {
+        const bool stateLane = lane < 2;
+
+        block.zToState[0][lane] = static_cast<float>(stateLane ? powers[4].m[lane][0] : 0.0);
+        block.zToState[1][lane] = static_cast<float>(stateLane ? powers[4].m[lane][1] : 0.0);
+
+        for (int j = 0; j < 4; j++) {
+            const Matrix2 &power = powers[3 - j];
+            const double value = power.m[lane & 1][0] * B[0] + power.m[lane & 1][1] * B[1];
+            block.xToState[j][lane] = static_cast<float>(stateLane ? value : 0.0);
+        }
+    }
+}
+
+}
@@ -0,0 +1,58 @@
+#ifndef AUDIO_EQUALIZER_BIQUAD_H
+#define AUDIO_EQUALIZER_BIQUAD_H
+
+namespace equalizer {
+
+// Tipos de banda suportados (mesmos valores das constantes BAND_* em AudioEqualizer.java)
+enum BandType {
+    BAND_PEAKING = 0,
+    BAND_LOW_SHELF = 1,
+    BAND_HIGH_SHELF = 2
+};
+
+// Coeficientes já normalizados por a0
+struct BiquadCoefficients {
+    float b0;
+    float b1;
+    float b2;
+    float a1;
+    float a2;
+};
+
+// Estado da forma direta transposta II (dois atrasos por filtro)
+struct BiquadState {
+    float z1;
+    float z2;
+};
+
+// Forma em blocos de 4 amostras (espaço de estados) usada pelos kernels SIMD.
+// Cada linha é um vetor de 4 lanes que multiplica z1, z2 ou x[n + j]:
+//   y[0..3]     = zToOutput[0] * z1 + zToOutput[1] * z2 + sum(xToOutput[j] * x[j])
+//   {z1, z2}'   = zToState[0]  * z1 + zToState[1]  * z2 + sum(xToState[j]  * x[j])  (lanes 0 e 1)
+struct BiquadBlockCoefficients {
+    float zToOutput[2][4];
+    float xToOutput[4][4];
+    float zToState[2][4];
+    float xToState[4][4];
+};
+
+// Coeficientes de uma seção nas duas formas: escalar (TDF-II) e em blocos
+struct BiquadSection {
+    BiquadBlockCoefficients block;
+    BiquadCoefficients coefficients;
+};
+
+// Calcula os coeficientes (RBJ Audio EQ Cookbook) para uma banda.
+// Retorna false se os parâmetros forem inválidos para a taxa de amostragem informada.
+bool designBiquad(BandType type, int sampleRate, float frequency, float q, float gainDb,
+                  BiquadCoefficients *out);
+
+// Coeficientes de um filtro que não altera o sinal
+BiquadCoefficients identityBiquad();
+
+// Pré-calcula a forma em blocos a partir dos coeficientes escalares
+void prepareSection(const BiquadCoefficients &coefficients, BiquadSection *out);
+
+}
+
+#endif
@@ -0,0 +1,708 @@
+#include "EqualizerEngine.h"
+
+#include <algorithm>
+#include <cmath>
+#include <complex>
+#include <cstring>
+
+#include "Kernels.h"
+
+namespace equalizer {
+
+// Definições exigidas quando as constantes são passadas por referência (std::min / std::max)
+const int EqualizerEngine::kBlockSize;
+const int EqualizerEngine::kMaxChannels;
+const int EqualizerEngine::kMinRampFrames;
+const int EqualizerEngine::kMaxRampFrames;
+const int EqualizerEngine::kRampSubBlock;
+const int EqualizerEngine::kCoefficientsPerBand;
+
+namespace {
+
+const float kInt16ToFloat = 1.0f / 32768.0f;
+
+// Abaixo deste valor o estado é zerado para evitar números denormalizados (muito lentos em ARM)
+const float kDenormalThreshold = 1.0e-15f;
+
+// Estado abaixo do qual uma banda em 0 dB já não altera o sinal (~0,03 LSB em 16 bits) e pode ser desligada
+const float kReleaseThreshold = 1.0e-6f;
+
+// Pontos (espaçados em escala logarítmica) usados para achar o pico da resposta da curva
+const int kResponsePoints = 96;
+const float kResponseMinFrequency = 20.0f;
+
+// Módulo de H(e^jw) de uma seção biquad
+double magnitude(const BiquadCoefficients &c, double w) {
+    const std::complex<double> z1 = std::polar(1.0, -w);
+    const std::complex<double> z2 = z1 * z1;
+    const std::complex<double> numerator = static_cast<double>(c.b0) + static_cast<double>(c.b1) * z1
+            + static_cast<double>(c.b2) * z2;
+    const std::complex<double> denominator = 1.0 + static_cast<double>(c.a1) * z1
+            + static_cast<double>(c.a2) * z2;
+    return std::abs(numerator / denominator);
+}
+
+inline void flushDenormal(float &value) {
+    if (std::fabs(value) < kDenormalThreshold) {
+        value = 0.0f;
+    }
+}
+
+bool sameCoefficients(const BiquadCoefficients &a, const BiquadCoefficients &b) {
+    return a.b0 == b.b0 && a.b1 == b.b1 && a.b2 == b.b2 && a.a1 == b.a1 && a.a2 == b.a2;
+}
+
+BiquadCoefficients rampStep(const BiquadCoefficients &from, const BiquadCoefficients &to, int frames) {
+    const float inverse = 1.0f / frames;
+    BiquadCoefficients step;
+    step.b0 = (to.b0 - from.b0) * inverse;
+    step.b1 = (to.b1 - from.b1) * inverse;
+    step.b2 = (to.b2 - from.b2) * inverse;
+    step.a1 = (to.a1 - from.a1) * inverse;
+    step.a2 = (to.a2 - from.a2) * inverse;
+    return step;
+}
+
+BiquadCoefficients lerp(const BiquadCoefficients &from, const BiquadCoefficients &to, float t) {
+    BiquadCoefficients c;
+    c.b0 = from.b0 + (to.b0 - from.b0) * t;
+    c.b1 = from.b1 + (to.b1 - from.b1) * t;
+    c.b2 = from.b2 + (to.b2 - from.b2) * t;
+    c.a1 = from.a1 + (to.a1 - from.a1) * t;
+    c.a2 = from.a2 + (to.a2 - from.a2) * t;
+    return c;
+}
+
+// Biquad (TDF-II) com os coeficientes andando um passo por amostra. A região estável de
+// (a1, a2) é convexa, então a interpolação linear entre dois filtros estáveis também é estável.
+void rampBiquad(BiquadCoefficients c, const BiquadCoefficients &step, BiquadState &state,
+                float *data, int count) {
+    float z1 = state.z1;
+    float z2 = state.z2;
+
+    for (int i = 0; i < count; i++) {
+        c.b0 += step.b0;
+        c.b1 += step.b1;
+        c.b2 += step.b2;
+        c.a1 += step.a1;
+        c.a2 += step.a2;
+
+        const float input = data[i];
+        const float output = c.b0 * input + z1;
+        z1 = c.b1 * input - c.a1 * output + z2;
+        z2 = c.b2 * input - c.a2 * output;
+        data[i] = output;
+    }
+
+    state.z1 = z1;
+    state.z2 = z2;
+}
+
+}
+
+EqualizerEngine::EqualizerEngine(int sampleRate, int channelCount, int bandCount)
+        : sampleRate(sampleRate),
+          channelCount(std::min(kMaxChannels, std::max(1, channelCount))),
+          designs(static_cast<size_t>(std::max(0, bandCount))),
+          autoHeadroom(false), headroomDb(0.0f), preGainDb(0.0f),
+          bands(static_cast<size_t>(std::max(0, bandCount))),
+          clipMode(CLIP_HARD), inputScale(1.0f), inputScaleTarget(1.0f),
+          inputScaleStep(0.0f), rampFrames(0), rampElapsed(0), started(false), analyzer(nullptr) {
+    const BiquadCoefficients identity = identityBiquad();
+
+    for (BandDesign &design : designs) {
+        design.type = BAND_PEAKING;
+        design.frequency = 0.0f;
+        design.q = 1.0f;
+        design.gainDb = 0.0f;
+        design.configured = false;
+    }
+
+    BandTarget flat;
+    flat.design = designs.empty() ? BandDesign() : designs[0];
+    flat.coefficients = identity;
+    flat.active = false;
+
+    pending.bands.assign(designs.size(), flat);
+    pending.inputScale = 1.0f;
+
+    // Todos os slots já com o tamanho final: publicar nunca aloca
+    for (int i = 0; i < 3; i++) {
+        parameters.slot(i) = pending;
+    }
+
+    for (Band &band : bands) {
+        prepareSection(identity, &band.section);
+        band.current = identity;
+        band.target = identity;
+        band.start = identity;
+        band.from = flat.design;
+        band.to = flat.design;
+        band.active = false;
+        band.targetActive = false;
+        band.ramping = false;
+    }
+
+    reset();
+}
+
+bool EqualizerEngine::configureBand(int band, BandType type, float frequency, float q, float gainDb) {
+    if (band < 0 || band >= getBandCount()) {
+        return false;
+    }
+
+    BandDesign design;
+    design.type = type;
+    design.frequency = frequency;
+    design.q = q;
+    design.gainDb = gainDb;
+    design.configured = true;
+
+    if (!designBand(band, design)) {
+        return false;
+    }
+
+    updateHeadroom();
+    publishParameters();
+
+    return true;
+}
+
+bool EqualizerEngine::setBandGains(const float *gainsDb, int count) {
+    if (gainsDb == nullptr || count > getBandCount()) {
+        return false;
+    }
+
+    for (int band = 0; band < count; band++) {
+        if (!designs[band].configured) {
+            return false;
+        }
+    }
+
+    bool valid = true;
+
+    for (int band = 0; band < count; band++) {
+        BandDesign design = designs[band];
+        design.gainDb = gainsDb[band];
+        valid = designBand(band, design) && valid;
+    }
+
+    updateHeadroom();
+    publishParameters();
+
+    return valid;
+}
+
+bool EqualizerEngine::designBand(int band, const BandDesign &design) {
+    BandTarget target;
+
+    if (!designTarget(sampleRate, design, &target)) {
+        return false;
+    }
+
+    designs[band] = design;
+    pending.bands[band] = target;
+
+    return true;
+}
+
+bool EqualizerEngine::designTarget(int sampleRate, const BandDesign &design, BandTarget *target) {
+    if (!designBiquad(design.type, sampleRate, design.frequency, design.q, design.gainDb, &target->coefficients)) {
+        return false;
+    }
+
+    // Em 0 dB os coeficientes do projeto equivalem à identidade (b == a), mas mantêm o estado
+    // coerente enquanto a banda termina a rampa
+    target->design = design;
+    target->active = design.gainDb != 0.0f;
+
+    return true;
+}
+
+bool EqualizerEngine::designBands(int sampleRate, const BandType *types, const float *frequencies, const float *qs,
+                                  const float *gainsDb, int count, float *coefficients, float *peakDb) {
+    if (count <= 0 || coefficients == nullptr || peakDb == nullptr) {
+        return false;
+    }
+
+    std::vector<BandTarget> targets(static_cast<size_t>(count));
+
+    for (int band = 0; band < count; band++) {
+        BandDesign design;
+        design.type = types[band];
+        design.frequency = frequencies[band];
+        design.q = qs[band];
+        design.gainDb = gainsDb[band];
+        design.configured = true;
+
+        if (!designTarget(sampleRate, design, &targets[band])) {
+            return false;
+        }
+
+        const BiquadCoefficients &c = targets[band].coefficients;
+        float *out = coefficients + band * kCoefficientsPerBand;
+        out[0] = c.b0;
+        out[1] = c.b1;
+        out[2] = c.b2;
+        out[3] = c.a1;
+        out[4] = c.a2;
+    }
+
+    *peakDb = maxResponseDb(sampleRate, targets);
+
+    return true;
+}
+
+bool EqualizerEngine::loadBands(const BandType *types, const float *frequencies, const float *qs,
+                                const float *gainsDb, const float *coefficients, int count, float peakDb) {
+    if (count != getBandCount() || coefficients == nullptr) {
+        return false;
+    }
+
+    for (int band = 0; band < count; band++) {
+        BandDesign &design = designs[band];
+        design.type = types[band];
+        design.frequency = frequencies[band];
+        design.q = qs[band];
+        design.gainDb = gainsDb[band];
+        design.configured = true;
+
+        const float *in = coefficients + band * kCoefficientsPerBand;
+        BandTarget &target = pending.bands[band];
+        target.design = design;
+        target.coefficients.b0 = in[0];
+        target.coefficients.b1 = in[1];
+        target.coefficients.b2 = in[2];
+        target.coefficients.a1 = in[3];
+        target.coefficients.a2 = in[4];
+        target.active = design.gainDb != 0.0f;
+    }
+
+    applyHeadroom(peakDb);
+    publishParameters();
+
+    return true;
+}
+
+void EqualizerEngine::setAutoHeadroom(bool enabled) {
+    autoHeadroom = enabled;
+    updateHeadroom();
+    publishParameters();
+}
+
+void EqualizerEngine::setPreGainDb(float gainDb) {
+    preGainDb = std::isfinite(gainDb) ? gainDb : 0.0f;
+    pending.inputScale = std::pow(10.0f, (preGainDb - headroomDb) / 20.0f);
+    publishParameters();
+}
+
+void EqualizerEngine::updateHeadroom() {
+    applyHeadroom(autoHeadroom ? maxResponseDb(sampleRate, pending.bands) : 0.0f);
+}
+
+void EqualizerEngine::applyHeadroom(float peakDb) {
+    headroomDb = autoHeadroom ? std::max(0.0f, peakDb) : 0.0f;
+    pending.inputScale = std::pow(10.0f, (preGainDb - headroomDb) / 20.0f);
+}
+
+void EqualizerEngine::publishParameters() {
+    Parameters &slot = parameters.writeBuffer();
+
+    // Mesmo tamanho em todos os slots: a cópia reaproveita a memória do vector
+    std::copy(pending.bands.begin(), pending.bands.end(), slot.bands.begin());
+    slot.inputScale = pending.inputScale;
+
+    parameters.publish();
+}
+
+float EqualizerEngine::maxResponseDb(int sampleRate, const std::vector<BandTarget> &targets) {
+    const int count = static_cast<int>(targets.size());
+    const double nyquist = sampleRate * 0.5;
+    const double maxFrequency = nyquist * 0.95;
+    double peak = 0.0;
+
+    // Grade logarítmica + a frequência central de cada banda (onde ficam os picos dos peaking)
+    for (int point = 0; point <= kResponsePoints + count; point++) {
+        double frequency;
+
+        if (point <= kResponsePoints) {
+            frequency = kResponseMinFrequency
+                    * std::pow(maxFrequency / kResponseMinFrequency, point / static_cast<double>(kResponsePoints));
+        } else {
+            const BandTarget &band = targets[point - kResponsePoints - 1];
+            if (!band.active) {
+                continue;
+            }
+            frequency = band.design.frequency;
+        }
+
+        const double w = M_PI * frequency / nyquist;
+        double response = 1.0;
+
+        for (const BandTarget &band : targets) {
+            if (band.active) {
+                response *= magnitude(band.coefficients, w);
+            }
+        }
+
+        peak = std::max(peak, response);
+    }
+
+    return static_cast<float>(20.0 * std::log10(peak));
+}
+
+void EqualizerEngine::reset() {
+    if (rampFrames > 0) {
+        finishRamp();
+    }
+
+    for (Band &band : bands) {
+        for (BiquadState &state : band.state) {
+            state.z1 = 0.0f;
+            state.z2 = 0.0f;
+        }
+    }
+}
+
+void EqualizerEngine::applyParameters(int frames) {
+    const Parameters &next = parameters.readBuffer();
+    // Uma rampa interrompida recomeça do ponto em que estava
+    const float t = rampFrames > 0 ? rampElapsed / static_cast<float>(rampFrames) : 1.0f;
+
+    for (size_t i = 0; i < bands.size(); i++) {
+        Band &band = bands[i];
+        const BandTarget &target = next.bands[i];
+
+        BandDesign from = band.ramping ? rampDesign(band, t) : band.to;
+
+        if (!band.active) {
+            // Banda desligada parte de 0 dB com a forma do alvo. Nesse ponto b == a, então
+            // estado zerado é exatamente o estado de um filtro que não altera o sinal.
+            from = target.design;
+            from.gainDb = 0.0f;
+
+            if (!designBiquad(from.type, sampleRate, from.frequency, from.q, from.gainDb, &band.current)) {
+                band.current = identityBiquad();
+            }
+
+            for (BiquadState &state : band.state) {
+                state.z1 = 0.0f;
+                state.z2 = 0.0f;
+            }
+        }
+
+        band.from = from;
+        band.to = target.design;
+        band.start = band.current;
+        band.target = target.coefficients;
+        band.targetActive = target.active;
+        band.active = band.active || band.targetActive;
+        band.ramping = band.active && !sameCoefficients(band.current, band.target);
+
+        if (band.active && !band.ramping) {
+            prepareSection(band.current, &band.section);
+        }
+    }
+
+    rampFrames = std::min(kMaxRampFrames, std::max(kMinRampFrames, frames));
+    rampElapsed = 0;
+    inputScaleTarget = next.inputScale;
+    inputScaleStep = (inputScaleTarget - inputScale) / rampFrames;
+
+    if (!started) {
+        finishRamp();
+    }
+}
+
+void EqualizerEngine::finishRamp() {
+    for (Band &band : bands) {
+        if (band.ramping) {
+            band.current = band.target;
+            prepareSection(band.current, &band.section);
+        }
+
+        // Uma banda que terminou em 0 dB continua ativa até o transitório acabar (releaseBands)
+        band.from = band.to;
+        band.ramping = false;
+    }
+
+    inputScale = inputScaleTarget;
+    inputScaleStep = 0.0f;
+    rampFrames = 0;
+    rampElapsed = 0;
+}
+
+EqualizerEngine::BandDesign EqualizerEngine::rampDesign(const Band &band, float t) const {
+    BandDesign design = band.to;
+    design.gainDb = band.from.gainDb + (band.to.gainDb - band.from.gainDb) * t;
+    design.q = band.from.q + (band.to.q - band.from.q) * t;
+    // Frequência em escala logarítmica, como o ouvido percebe
+    design.frequency = band.from.frequency * std::pow(band.to.frequency / band.from.frequency, t);
+    return design;
+}
+
+BiquadCoefficients EqualizerEngine::rampCoefficients(const Band &band, float t) const {
+    if (t >= 1.0f) {
+        return band.target;
+    }
+
+    BiquadCoefficients coefficients;
+
+    if (band.from.type == band.to.type && band.from.configured) {
+        const BandDesign design = rampDesign(band, t);
+
+        if (designBiquad(design.type, sampleRate, design.frequency, design.q, design.gainDb, &coefficients)) {
+            return coefficients;
+        }
+    }
+
+    // Troca de tipo de filtro: não há parâmetro intermediário, interpola os coeficientes
+    return lerp(band.start, band.target, t);
+}
+
+void EqualizerEngine::rampBand(Band &band, int frames) {
+    for (int done = 0; done < frames; done += kRampSubBlock) {
+        const int count = std::min(kRampSubBlock, frames - done);
+        const float t = (rampElapsed + done + count) / static_cast<float>(rampFrames);
+        const BiquadCoefficients next = rampCoefficients(band, t);
+        const BiquadCoefficients step = rampStep(band.current, next, count);
+
+        // Todos os canais partem dos mesmos coeficientes
+        for (int channel = 0; channel < channelCount; channel++) {
+            rampBiquad(band.current, step, band.state[channel], planar[channel] + done, count);
+        }
+
+        band.current = next;
+    }
+}
+
+int EqualizerEngine::process(int16_t *samples, int count) {
+    return samples != nullptr ? processFrames<int16_t>(samples, nullptr, count / channelCount) * channelCount : 0;
+}
+
+int EqualizerEngine::process(float *samples, int count) {
+    return samples != nullptr ? processFrames<float>(samples, nullptr, count / channelCount) * channelCount : 0;
+}
+
+int EqualizerEngine::processPlanar(int16_t *const *channels, int frames) {
+    return channels != nullptr ? processFrames<int16_t>(nullptr, channels, frames) : 0;
+}
+
+int EqualizerEngine::processPlanar(float *const *channels, int frames) {
+    return channels != nullptr ? processFrames<float>(nullptr, channels, frames) : 0;
+}
+
+template <typename Sample>
+int EqualizerEngine::processFrames(Sample *interleaved, Sample *const *channels, int frames) {
+    if (frames <= 0) {
+        return 0;
+    }
+
+    if (parameters.update()) {
+        applyParameters(frames);
+    }
+
+    started = true;
+
+    const bool softClip = clipMode.load(std::memory_order_relaxed) == CLIP_SOFT;
+    // Fundo de escala do formato: int16 é normalizado para ±1.0 na conversão
+    const float fullScale = sizeof(Sample) == sizeof(int16_t) ? kInt16ToFloat : 1.0f;
+    int offset = 0;
+
+    while (offset < frames) {
+        int blockFrames = std::min(kBlockSize, frames - offset);
+
+        // O bloco termina junto com a rampa, para o resto voltar aos kernels vetorizados
+        if (rampFrames > 0) {
+            blockFrames = std::min(blockFrames, rampFrames - rampElapsed);
+        }
+
+        if (rampFrames > 0) {
+            // Converte só para o fundo de escala; o headroom anda junto com os coeficientes
+            loadBlock(interleaved, channels, offset, blockFrames, fullScale);
+            rampInputScale(blockFrames);
+        } else {
+            loadBlock(interleaved, channels, offset, blockFrames, fullScale * inputScale);
+        }
+
+        filterBlock(blockFrames);
+
+        if (rampFrames > 0) {
+            rampElapsed += blockFrames;
+
+            // Termina exatamente no alvo, sem o erro acumulado dos passos
+            if (rampElapsed == rampFrames) {
+                finishRamp();
+            }
+        }
+
+        if (analyzer != nullptr) {
+            const float *rows[kMaxChannels];
+            for (int channel = 0; channel < channelCount; channel++) {
+                rows[channel] = planar[channel];
+            }
+            analyzer->pushPlanar(rows, blockFrames, channelCount, sampleRate);
+        }
+
+        storeBlock(interleaved, channels, offset, blockFrames, softClip);
+
+        offset += blockFrames;
+    }
+
+    for (Band &band : bands) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            flushDenormal(band.state[channel].z1);
+            flushDenormal(band.state[channel].z2);
+        }
+    }
+
+    releaseBands();
+
+    return frames;
+}
+
+// As cópias entre o formato do chamador e o bloco planar ficam no bloco de trabalho (cache L1),
+// sem nenhuma passada extra sobre o buffer do chamador
+
+void EqualizerEngine::loadBlock(const int16_t *interleaved, const int16_t *const *channels, int offset,
+                                int frames, float scale) {
+    const EqualizerKernels &kernels = activeKernels();
+
+    if (channels != nullptr) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            kernels.int16ToFloat(channels[channel] + offset, planar[channel], frames, scale);
+        }
+        return;
+    }
+
+    const int16_t *block = interleaved + offset * channelCount;
+
+    if (channelCount == 1) {
+        kernels.int16ToFloat(block, planar[0], frames, scale);
+        return;
+    }
+
+    kernels.int16ToFloat(block, scratch, frames * channelCount, scale);
+    deinterleave(scratch, frames);
+}
+
+void EqualizerEngine::loadBlock(const float *interleaved, const float *const *channels, int offset,
+                                int frames, float scale) {
+    if (channels != nullptr) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            const float *source = channels[channel] + offset;
+            for (int frame = 0; frame < frames; frame++) {
+                planar[channel][frame] = source[frame] * scale;
+            }
+        }
+        return;
+    }
+
+    const float *block = interleaved + offset * channelCount;
+
+    for (int frame = 0; frame < frames; frame++) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            planar[channel][frame] = block[frame * channelCount + channel] * scale;
+        }
+    }
+}
+
+void EqualizerEngine::storeBlock(int16_t *interleaved, int16_t *const *channels, int offset, int frames,
+                                 bool softClip) {
+    const EqualizerKernels &kernels = activeKernels();
+    void (*convert)(const float *, int16_t *, int) = softClip ? kernels.floatToInt16SoftClip : kernels.floatToInt16;
+
+    if (channels != nullptr) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            convert(planar[channel], channels[channel] + offset, frames);
+        }
+        return;
+    }
+
+    int16_t *block = interleaved + offset * channelCount;
+
+    if (channelCount == 1) {
+        convert(planar[0], block, frames);
+        return;
+    }
+
+    interleave(scratch, frames);
+    convert(scratch, block, frames * channelCount);
+}
+
+void EqualizerEngine::storeBlock(float *interleaved, float *const *channels, int offset, int frames, bool) {
+    // Em float não há saturação aqui: o valor segue como está (o AudioTrack limita em ±1.0)
+    if (channels != nullptr) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            std::memcpy(channels[channel] + offset, planar[channel], static_cast<size_t>(frames) * sizeof(float));
+        }
+        return;
+    }
+
+    interleave(interleaved + offset * channelCount, frames);
+}
+
+void EqualizerEngine::deinterleave(const float *source, int frames) {
+    for (int frame = 0; frame < frames; frame++) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            planar[channel][frame] = source[frame * channelCount + channel];
+        }
+    }
+}
+
+void EqualizerEngine::interleave(float *destination, int frames) const {
+    for (int frame = 0; frame < frames; frame++) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            destination[frame * channelCount + channel] = planar[channel][frame];
+        }
+    }
+}
+
+void EqualizerEngine::releaseBands() {
+    for (Band &band : bands) {
+        if (!band.active || band.targetActive || band.ramping) {
+            continue;
+        }
+
+        bool settled = true;
+
+        for (int channel = 0; channel < channelCount && settled; channel++) {
+            settled = std::fabs(band.state[channel].z1) < kReleaseThreshold
+                    && std::fabs(band.state[channel].z2) < kReleaseThreshold;
+        }
+
+        if (settled) {
+            band.active = false;
+        }
+    }
+}
+
+void EqualizerEngine::rampInputScale(int frames) {
+    float scale = inputScale;
+
+    for (int frame = 0; frame < frames; frame++) {
+        scale += inputScaleStep;
+
+        for (int channel = 0; channel < channelCount; channel++) {
+            planar[channel][frame] *= scale;
+        }
+    }
+
+    inputScale = scale;
+}
+
+void EqualizerEngine::filterBlock(int frames) {
+    const EqualizerKernels &kernels = activeKernels();
+
+    for (Band &band : bands) {
+        if (band.ramping) {
+            rampBand(band, frames);
+        } else if (band.active) {
+            for (int channel = 0; channel < channelCount; channel++) {
+                kernels.biquad(band.section, band.state[channel], planar[channel], frames);
+            }
+        }
+    }
+}
+
+}
@@ -0,0 +1,211 @@
+#ifndef AUDIO_EQUALIZER_EQUALIZER_ENGINE_H
+#define AUDIO_EQUALIZER_EQUALIZER_ENGINE_H
+
+#include <atomic>
+#include <cstdint>
+#include <vector>
+
+#include "Biquad.h"
+#include "SpectrumAnalyzer.h"
+#include "TripleBuffer.h"
+
+namespace equalizer {
+
+// Tratamento das amostras que passam do fundo de escala na saída (mesmos valores de CLIP_* em AudioEqualizer.java)
+enum ClipMode {
+    CLIP_HARD = 0,
+    CLIP_SOFT = 1
+};
+
+// Banco de filtros biquad em cascata, com estado preservado entre chamadas de process().
+// O laço interno trabalha em float32 sobre blocos de tamanho fixo, então o custo por
+// buffer depende apenas do número de amostras e de bandas ativas. As operações por
+// amostra são delegadas aos kernels escolhidos no carregamento (ver Kernels.h).
+// A taxa e o número de canais são fixos por instância, com estado separado por canal. As
+// amostras podem vir em int16 ou float32 (fundo de escala ±1.0), intercaladas (L R L R ...) ou
+// planares (um buffer por canal): a conversão acontece no bloco de trabalho, sem passada extra.
+//
+// Threads: configureBand, setBandGains, loadBands, setAutoHeadroom, setPreGainDb e setClipMode são do thread de controle
+// (UI) e podem rodar em paralelo com process(), sem lock. Os coeficientes finais são calculados
+// no thread de controle e publicados de uma vez (TripleBuffer); o thread de áudio pega a versão
+// mais recente no início do próximo process() e faz a transição ao longo desse buffer, sem
+// degrau (zipper). reset() e setAnalyzer() são do thread de áudio.
+class EqualizerEngine {
+public:
+    // Tamanho do bloco interno (em frames) usado como área de trabalho
+    static const int kBlockSize = 256;
+    static const int kMaxChannels = 8;
+
+    // Limites da rampa (em frames): o tamanho do próximo buffer, mas nunca curta a ponto de
+    // estalar nem longa a ponto de atrasar visivelmente o slider
+    static const int kMinRampFrames = 64;
+    static const int kMaxRampFrames = 4096;
+
+    // Durante a rampa, ganho/frequência/Q são interpolados e a banda é recalculada a cada
+    // kRampSubBlock frames; entre dois pontos os coeficientes andam linearmente, amostra a amostra.
+    // Interpolar só os coeficientes entre os extremos não serve: em bandas graves o ganho em DC
+    // de (b0 + b1 + b2) / (1 + a1 + a2) muda de forma muito não linear e gera um transiente.
+    static const int kRampSubBlock = 16;
+
+    // Floats por banda em designBands/loadBands: b0, b1, b2, a1, a2
+    static const int kCoefficientsPerBand = 5;
+
+    EqualizerEngine(int sampleRate, int channelCount, int bandCount);
+
+    int getSampleRate() const { return sampleRate; }
+    int getChannelCount() const { return channelCount; }
+    int getBandCount() const { return static_cast<int>(designs.size()); }
+
+    // Recalcula os coeficientes de uma banda. Com gainDb == 0 a banda é ignorada no processamento.
+    bool configureBand(int band, BandType type, float frequency, float q, float gainDb);
+
+    // Troca o ganho de várias bandas em uma única publicação (uma única rampa), mantendo tipo,
+    // frequência e Q da última configureBand de cada uma. Retorna false se alguma banda ainda
+    // não foi configurada ou o ganho não é válido.
+    bool setBandGains(const float *gainsDb, int count);
+
+    // Projeta count bandas sem depender de nenhum motor (qualquer thread), para guardar em cache:
+    // kCoefficientsPerBand floats por banda em coefficients e, em peakDb, o maior reforço da curva
+    // (base do headroom automático).
+    static bool designBands(int sampleRate, const BandType *types, const float *frequencies, const float *qs,
+                            const float *gainsDb, int count, float *coefficients, float *peakDb);
+
+    // Carrega todas as bandas de uma vez com o resultado de designBands (mesmos parâmetros), sem
+    // recalcular coeficientes nem a resposta da curva. A troca tem a mesma rampa de setBandGains.
+    bool loadBands(const BandType *types, const float *frequencies, const float *qs,
+                   const float *gainsDb, const float *coefficients, int count, float peakDb);
+
+    // Zera o estado dos filtros (ex.: ao trocar de faixa ou após um seek). Uma rampa em
+    // andamento termina na hora.
+    void reset();
+
+    // Com headroom automático, a entrada é atenuada pelo maior reforço da curva configurada,
+    // de forma que nenhuma frequência passe do nível original. A atenuação entra na escala
+    // da conversão int16 -> float, então não custa nenhuma passada extra.
+    void setAutoHeadroom(bool enabled);
+
+    // Ganho fixo na entrada, antes das bandas (ex.: normalização de loudness da faixa). Entra na
+    // mesma escala do headroom, com a mesma rampa: nenhum custo por amostra.
+    void setPreGainDb(float gainDb);
+    float getPreGainDb() const { return preGainDb; }
+
+    void setClipMode(ClipMode mode) { clipMode.store(mode, std::memory_order_relaxed); }
+
+    // Analisador que recebe cada bloco já equalizado (antes da conversão para int16), ou
+    // nullptr para desligar. O motor não é dono do analisador.
+    void setAnalyzer(SpectrumAnalyzer *target) { analyzer = target; }
+
+    // Atenuação aplicada na entrada, em dB (0 quando o headroom automático está desligado)
+    float getHeadroomDb() const { return headroomDb; }
+
+    // Processa as amostras (intercaladas) no próprio buffer e retorna a quantidade processada.
+    // Um frame incompleto no final do buffer é ignorado.
+    int process(int16_t *samples, int count);
+
+    // Mesmo que o anterior em float32. A saída não é limitada: clipMode vale só para int16.
+    int process(float *samples, int count);
+
+    // Um buffer por canal (channels[0 .. channelCount)), frames amostras em cada. Retorna os frames
+    // processados.
+    int processPlanar(int16_t *const *channels, int frames);
+    int processPlanar(float *const *channels, int frames);
+
+private:
+    // Parâmetros de uma banda como pedidos pelo thread de controle
+    struct BandDesign {
+        BandType type;
+        float frequency;
+        float q;
+        float gainDb;
+        bool configured;
+    };
+
+    struct BandTarget {
+        BandDesign design;
+        BiquadCoefficients coefficients;
+        bool active;
+    };
+
+    // Tudo o que o thread de áudio precisa, publicado de uma vez
+    struct Parameters {
+        std::vector<BandTarget> bands;
+        float inputScale;
+    };
+
+    // Estado de uma banda no thread de áudio
+    struct Band {
+        // Forma em blocos de current, usada pelos kernels fora das rampas
+        BiquadSection section;
+        BiquadCoefficients current;
+        BiquadCoefficients target;
+        // Extremos da rampa (from começa com o ganho 0 dB quando a banda estava desligada)
+        BandDesign from;
+        BandDesign to;
+        BiquadCoefficients start;
+        BiquadState state[kMaxChannels];
+        // Uma banda que volta a 0 dB segue ativa (com os coeficientes de 0 dB) até o estado
+        // zerar: cortar o transitório no meio geraria um degrau
+        bool active;
+        bool targetActive;
+        bool ramping;
+    };
+
+    // Thread de controle
+    bool designBand(int band, const BandDesign &design);
+    static bool designTarget(int sampleRate, const BandDesign &design, BandTarget *target);
+    void updateHeadroom();
+    void applyHeadroom(float peakDb);
+    static float maxResponseDb(int sampleRate, const std::vector<BandTarget> &targets);
+    void publishParameters();
+
+    // Thread de áudio
+    void applyParameters(int frames);
+    void finishRamp();
+    void rampInputScale(int frames);
+    BandDesign rampDesign(const Band &band, float t) const;
+    BiquadCoefficients rampCoefficients(const Band &band, float t) const;
+    void rampBand(Band &band, int frames);
+    void filterBlock(int frames);
+    void releaseBands();
+
+    // interleaved ou channels (o outro é nullptr); offset e frames em frames
+    template <typename Sample>
+    int processFrames(Sample *interleaved, Sample *const *channels, int frames);
+    void loadBlock(const int16_t *interleaved, const int16_t *const *channels, int offset, int frames, float scale);
+    void loadBlock(const float *interleaved, const float *const *channels, int offset, int frames, float scale);
+    void storeBlock(int16_t *interleaved, int16_t *const *channels, int offset, int frames, bool softClip);
+    void storeBlock(float *interleaved, float *const *channels, int offset, int frames, bool softClip);
+    void deinterleave(const float *source, int frames);
+    void interleave(float *destination, int frames) const;
+
+    int sampleRate;
+    int channelCount;
+
+    std::vector<BandDesign> designs;
+    Parameters pending;
+    bool autoHeadroom;
+    float headroomDb;
+    float preGainDb;
+    TripleBuffer<Parameters> parameters;
+
+    std::vector<Band> bands;
+    std::atomic<int> clipMode;
+    // Ganho do headroom e do pré-ganho aplicado na entrada (1.0 = nenhum), além do fundo de escala do formato
+    float inputScale;
+    float inputScaleTarget;
+    float inputScaleStep;
+    int rampFrames;
+    int rampElapsed;
+    // Antes do primeiro process() os parâmetros entram direto, sem rampa
+    bool started;
+    SpectrumAnalyzer *analyzer;
+
+    // Bloco em float intercalado, só para a conversão int16 <-> float com mais de um canal
+    float scratch[kBlockSize * kMaxChannels];
+    // Bloco de trabalho, um array por canal: é onde os filtros rodam
+    float planar[kMaxChannels][kBlockSize];
+};
+
+}
+
+#endif
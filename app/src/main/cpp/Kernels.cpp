@@ -0,0 +1,41 @@
+#include "Kernels.h"
+
+#if defined(__arm__)
+#include <sys/auxv.h>
+
+#ifndef HWCAP_NEON
+#define HWCAP_NEON (1 << 12)
+#endif
+#endif
+
+namespace equalizer {
+
+namespace {
+
+const EqualizerKernels *gActiveKernels = &kScalarKernels;
+
+}
+
+bool cpuSupportsSimd() {
+    if (simdKernels() == nullptr) {
+        return false;
+    }
+
+#if defined(__arm__)
+    // armeabi-v7a não garante NEON; o kernel é compilado com -mfpu=neon e só é usado se a CPU tiver
+    return (getauxval(AT_HWCAP) & HWCAP_NEON) != 0;
+#else
+    // arm64-v8a sempre tem NEON e x86_64 sempre tem SSE2
+    return true;
+#endif
+}
+
+void selectKernels(bool allowSimd) {
+    gActiveKernels = allowSimd && cpuSupportsSimd() ? simdKernels() : &kScalarKernels;
+}
+
+const EqualizerKernels &activeKernels() {
+    return *gActiveKernels;
+}
+
+}
@@ -0,0 +1,58 @@
+#ifndef AUDIO_EQUALIZER_KERNELS_H
+#define AUDIO_EQUALIZER_KERNELS_H
+
+#include <cstdint>
+
+#include "Biquad.h"
+
+namespace equalizer {
+
+// Conjunto de kernels usados pelo EqualizerEngine. Existe uma versão escalar (sempre
+// disponível) e uma vetorizada (NEON em ARM, SSE2 no build de host x86_64).
+struct EqualizerKernels {
+    const char *name;
+
+    // destination[i] = source[i] * scale
+    void (*int16ToFloat)(const int16_t *source, float *destination, int count, float scale);
+
+    // destination[i] = saturate(round(source[i] * 32768))
+    void (*floatToInt16)(const float *source, int16_t *destination, int count);
+
+    // Igual a floatToInt16, mas comprimindo suavemente o que passa de kSoftClipThreshold
+    // (ver softClip) em vez de cortar, evitando o "click" da saturação
+    void (*floatToInt16SoftClip)(const float *source, int16_t *destination, int count);
+
+    // Aplica uma seção biquad no próprio buffer, atualizando o estado
+    void (*biquad)(const BiquadSection &section, BiquadState &state, float *data, int count);
+};
+
+// A partir deste nível (em escala [-1, 1]) o soft clip começa a atuar
+const float kSoftClipThreshold = 0.89f;
+
+// Joelho racional: linear até o limiar e depois tende assintoticamente a ±1.
+// Contínuo e com derivada 1 no limiar; usa só uma divisão (sem tanh).
+inline float softClip(float value) {
+    const float magnitude = value < 0.0f ? -value : value;
+    const float over = magnitude > kSoftClipThreshold ? magnitude - kSoftClipThreshold : 0.0f;
+    const float linear = magnitude < kSoftClipThreshold ? magnitude : kSoftClipThreshold;
+    const float shaped = linear + over / (1.0f + over / (1.0f - kSoftClipThreshold));
+    return value < 0.0f ? -shaped : shaped;
+}
+
+extern const EqualizerKernels kScalarKernels;
+
+// nullptr quando o build não possui kernels vetorizados para a arquitetura
+const EqualizerKernels *simdKernels();
+
+// Verifica em tempo de execução se a CPU suporta os kernels vetorizados
+bool cpuSupportsSimd();
+
+// Escolhe os kernels usados pelo motor. Chamado uma vez no carregamento da biblioteca;
+// allowSimd = false força a versão escalar (útil para testes e comparações).
+void selectKernels(bool allowSimd);
+
+const EqualizerKernels &activeKernels();
+
+}
+
+#endif
@@ -0,0 +1,64 @@
+#include "Kernels.h"
+
+#include <algorithm>
+#include <cmath>
+
+namespace equalizer {
+
+namespace {
+
+void int16ToFloatScalar(const int16_t *source, float *destination, int count, float scale) {
+    for (int i = 0; i < count; i++) {
+        destination[i] = source[i] * scale;
+    }
+}
+
+void floatToInt16Scalar(const float *source, int16_t *destination, int count) {
+    for (int i = 0; i < count; i++) {
+        float scaled = source[i] * 32768.0f;
+        scaled = std::min(32767.0f, std::max(-32768.0f, scaled));
+        destination[i] = static_cast<int16_t>(std::lrintf(scaled));
+    }
+}
+
+void floatToInt16SoftClipScalar(const float *source, int16_t *destination, int count) {
+    for (int i = 0; i < count; i++) {
+        float scaled = softClip(source[i]) * 32768.0f;
+        scaled = std::min(32767.0f, scaled);
+        destination[i] = static_cast<int16_t>(std::lrintf(scaled));
+    }
+}
+
+void biquadScalar(const BiquadSection &section, BiquadState &state, float *data, int count) {
+    // Cópias locais para que o compilador mantenha tudo em registradores
+    const float b0 = section.coefficients.b0;
+    const float b1 = section.coefficients.b1;
+    const float b2 = section.coefficients.b2;
+    const float a1 = section.coefficients.a1;
+    const float a2 = section.coefficients.a2;
+    float z1 = state.z1;
+    float z2 = state.z2;
+
+    for (int i = 0; i < count; i++) {
+        const float x = data[i];
+        const float y = b0 * x + z1;
+        z1 = b1 * x - a1 * y + z2;
+        z2 = b2 * x - a2 * y;
+        data[i] = y;
+    }
+
+    state.z1 = z1;
+    state.z2 = z2;
+}
+
+}
+
+const EqualizerKernels kScalarKernels = {
+        "scalar",
+        int16ToFloatScalar,
+        floatToInt16Scalar,
+        floatToInt16SoftClipScalar,
+        biquadScalar
+};
+
+}
@@ -0,0 +1,267 @@
+#include "Kernels.h"
+
+#if defined(__ARM_NEON) || defined(__ARM_NEON__)
+#include <arm_neon.h>
+#define EQUALIZER_NEON 1
+#elif defined(__SSE2__)
+#include <emmintrin.h>
+#define EQUALIZER_SSE2 1
+#endif
+
+namespace equalizer {
+
+#if defined(EQUALIZER_NEON) || defined(EQUALIZER_SSE2)
+
+namespace {
+
+// Pequena camada sobre os intrínsecos para que o mesmo kernel rode em ARM (NEON)
+// e no build de host x86_64 (SSE2), permitindo testar e medir o algoritmo fora do aparelho.
+#if defined(EQUALIZER_NEON)
+
+typedef float32x4_t Vec4;
+
+inline Vec4 load(const float *p) { return vld1q_f32(p); }
+inline void store(float *p, Vec4 v) { vst1q_f32(p, v); }
+inline Vec4 splat(float value) { return vdupq_n_f32(value); }
+inline Vec4 mul(Vec4 a, Vec4 b) { return vmulq_f32(a, b); }
+inline Vec4 mulAdd(Vec4 acc, Vec4 a, Vec4 b) { return vmlaq_f32(acc, a, b); }
+inline float lane0(Vec4 v) { return vgetq_lane_f32(v, 0); }
+inline float lane1(Vec4 v) { return vgetq_lane_f32(v, 1); }
+
+// Converte 4 valores em [-1, 1] para int16 com arredondamento e saturação
+inline void storeInt16x4(int16_t *destination, float32x4_t value) {
+    const float32x4_t scaled = vmulq_f32(value, vdupq_n_f32(32768.0f));
+#if defined(__aarch64__)
+    const int32x4_t rounded = vcvtnq_s32_f32(scaled);
+#else
+    const uint32x4_t half = vorrq_u32(vandq_u32(vreinterpretq_u32_f32(scaled), vdupq_n_u32(0x80000000u)),
+                                      vreinterpretq_u32_f32(vdupq_n_f32(0.5f)));
+    const int32x4_t rounded = vcvtq_s32_f32(vaddq_f32(scaled, vreinterpretq_f32_u32(half)));
+#endif
+    vst1_s16(destination, vqmovn_s32(rounded));
+}
+
+#else
+
+typedef __m128 Vec4;
+
+inline Vec4 load(const float *p) { return _mm_loadu_ps(p); }
+inline void store(float *p, Vec4 v) { _mm_storeu_ps(p, v); }
+inline Vec4 splat(float value) { return _mm_set1_ps(value); }
+inline Vec4 mul(Vec4 a, Vec4 b) { return _mm_mul_ps(a, b); }
+inline Vec4 mulAdd(Vec4 acc, Vec4 a, Vec4 b) { return _mm_add_ps(acc, _mm_mul_ps(a, b)); }
+inline float lane0(Vec4 v) { return _mm_cvtss_f32(v); }
+inline float lane1(Vec4 v) { return _mm_cvtss_f32(_mm_shuffle_ps(v, v, _MM_SHUFFLE(1, 1, 1, 1))); }
+
+// Converte 4 valores em [-1, 1] para int16 com arredondamento e saturação
+inline void storeInt16x4(int16_t *destination, __m128 value) {
+    const __m128 scaled = _mm_max_ps(_mm_set1_ps(-32768.0f),
+                                     _mm_min_ps(_mm_set1_ps(32767.0f), _mm_mul_ps(value, _mm_set1_ps(32768.0f))));
+    const __m128i rounded = _mm_cvtps_epi32(scaled);
+    _mm_storel_epi64(reinterpret_cast<__m128i *>(destination), _mm_packs_epi32(rounded, rounded));
+}
+
+#endif
+
+void int16ToFloatSimd(const int16_t *source, float *destination, int count, float scale) {
+    int i = 0;
+
+#if defined(EQUALIZER_NEON)
+    const float32x4_t vScale = vdupq_n_f32(scale);
+
+    for (; i + 8 <= count; i += 8) {
+        const int16x8_t samples = vld1q_s16(source + i);
+        const float32x4_t low = vcvtq_f32_s32(vmovl_s16(vget_low_s16(samples)));
+        const float32x4_t high = vcvtq_f32_s32(vmovl_s16(vget_high_s16(samples)));
+        vst1q_f32(destination + i, vmulq_f32(low, vScale));
+        vst1q_f32(destination + i + 4, vmulq_f32(high, vScale));
+    }
+#else
+    const __m128 vScale = _mm_set1_ps(scale);
+
+    for (; i + 8 <= count; i += 8) {
+        const __m128i samples = _mm_loadu_si128(reinterpret_cast<const __m128i *>(source + i));
+        // Extensão de sinal 16 -> 32 bits: duplica cada amostra e desloca aritmeticamente
+        const __m128i low = _mm_srai_epi32(_mm_unpacklo_epi16(samples, samples), 16);
+        const __m128i high = _mm_srai_epi32(_mm_unpackhi_epi16(samples, samples), 16);
+        _mm_storeu_ps(destination + i, _mm_mul_ps(_mm_cvtepi32_ps(low), vScale));
+        _mm_storeu_ps(destination + i + 4, _mm_mul_ps(_mm_cvtepi32_ps(high), vScale));
+    }
+#endif
+
+    kScalarKernels.int16ToFloat(source + i, destination + i, count - i, scale);
+}
+
+void floatToInt16Simd(const float *source, int16_t *destination, int count) {
+    int i = 0;
+
+#if defined(EQUALIZER_NEON)
+    const float32x4_t vScale = vdupq_n_f32(32768.0f);
+
+    for (; i + 8 <= count; i += 8) {
+        const float32x4_t low = vmulq_f32(vld1q_f32(source + i), vScale);
+        const float32x4_t high = vmulq_f32(vld1q_f32(source + i + 4), vScale);
+#if defined(__aarch64__)
+        const int32x4_t lowInt = vcvtnq_s32_f32(low);
+        const int32x4_t highInt = vcvtnq_s32_f32(high);
+#else
+        // ARMv7 só converte truncando: soma ±0.5 (copysign) para arredondar
+        const uint32x4_t signMask = vdupq_n_u32(0x80000000u);
+        const uint32x4_t half = vreinterpretq_u32_f32(vdupq_n_f32(0.5f));
+        const float32x4_t lowHalf = vreinterpretq_f32_u32(
+                vorrq_u32(vandq_u32(vreinterpretq_u32_f32(low), signMask), half));
+        const float32x4_t highHalf = vreinterpretq_f32_u32(
+                vorrq_u32(vandq_u32(vreinterpretq_u32_f32(high), signMask), half));
+        const int32x4_t lowInt = vcvtq_s32_f32(vaddq_f32(low, lowHalf));
+        const int32x4_t highInt = vcvtq_s32_f32(vaddq_f32(high, highHalf));
+#endif
+        // vqmovn satura para o intervalo de 16 bits
+        vst1q_s16(destination + i, vcombine_s16(vqmovn_s32(lowInt), vqmovn_s32(highInt)));
+    }
+#else
+    const __m128 vScale = _mm_set1_ps(32768.0f);
+    const __m128 vMax = _mm_set1_ps(32767.0f);
+    const __m128 vMin = _mm_set1_ps(-32768.0f);
+
+    for (; i + 8 <= count; i += 8) {
+        // O clamp vem antes da conversão: _mm_cvtps_epi32 não satura
+        const __m128 low = _mm_max_ps(vMin, _mm_min_ps(vMax, _mm_mul_ps(_mm_loadu_ps(source + i), vScale)));
+        const __m128 high = _mm_max_ps(vMin, _mm_min_ps(vMax, _mm_mul_ps(_mm_loadu_ps(source + i + 4), vScale)));
+        const __m128i packed = _mm_packs_epi32(_mm_cvtps_epi32(low), _mm_cvtps_epi32(high));
+        _mm_storeu_si128(reinterpret_cast<__m128i *>(destination + i), packed);
+    }
+#endif
+
+    kScalarKernels.floatToInt16(source + i, destination + i, count - i);
+}
+
+void floatToInt16SoftClipSimd(const float *source, int16_t *destination, int count) {
+    int i = 0;
+
+#if defined(EQUALIZER_NEON)
+    const float32x4_t vThreshold = vdupq_n_f32(kSoftClipThreshold);
+    const float32x4_t vKnee = vdupq_n_f32(1.0f / (1.0f - kSoftClipThreshold));
+    const float32x4_t vOne = vdupq_n_f32(1.0f);
+    const float32x4_t vZero = vdupq_n_f32(0.0f);
+    const uint32x4_t signMask = vdupq_n_u32(0x80000000u);
+
+    for (; i + 4 <= count; i += 4) {
+        const float32x4_t value = vld1q_f32(source + i);
+        const float32x4_t magnitude = vabsq_f32(value);
+        const float32x4_t over = vmaxq_f32(vsubq_f32(magnitude, vThreshold), vZero);
+        const float32x4_t linear = vminq_f32(magnitude, vThreshold);
+        const float32x4_t denominator = vmlaq_f32(vOne, over, vKnee);
+#if defined(__aarch64__)
+        const float32x4_t ratio = vdivq_f32(over, denominator);
+#else
+        // ARMv7 não tem divisão vetorial: estimativa do recíproco + dois passos de Newton-Raphson
+        float32x4_t reciprocal = vrecpeq_f32(denominator);
+        reciprocal = vmulq_f32(vrecpsq_f32(denominator, reciprocal), reciprocal);
+        reciprocal = vmulq_f32(vrecpsq_f32(denominator, reciprocal), reciprocal);
+        const float32x4_t ratio = vmulq_f32(over, reciprocal);
+#endif
+        const float32x4_t shaped = vaddq_f32(linear, ratio);
+        // Devolve o sinal original (copysign)
+        const float32x4_t result = vreinterpretq_f32_u32(vorrq_u32(
+                vreinterpretq_u32_f32(shaped), vandq_u32(vreinterpretq_u32_f32(value), signMask)));
+        storeInt16x4(destination + i, result);
+    }
+#else
+    const __m128 vThreshold = _mm_set1_ps(kSoftClipThreshold);
+    const __m128 vKnee = _mm_set1_ps(1.0f / (1.0f - kSoftClipThreshold));
+    const __m128 vOne = _mm_set1_ps(1.0f);
+    const __m128 vZero = _mm_setzero_ps();
+    const __m128 signMask = _mm_set1_ps(-0.0f);
+
+    for (; i + 4 <= count; i += 4) {
+        const __m128 value = _mm_loadu_ps(source + i);
+        const __m128 magnitude = _mm_andnot_ps(signMask, value);
+        const __m128 over = _mm_max_ps(_mm_sub_ps(magnitude, vThreshold), vZero);
+        const __m128 linear = _mm_min_ps(magnitude, vThreshold);
+        const __m128 shaped = _mm_add_ps(linear, _mm_div_ps(over, _mm_add_ps(vOne, _mm_mul_ps(over, vKnee))));
+        storeInt16x4(destination + i, _mm_or_ps(shaped, _mm_and_ps(signMask, value)));
+    }
+#endif
+
+    kScalarKernels.floatToInt16SoftClip(source + i, destination + i, count - i);
+}
+
+void biquadSimd(const BiquadSection &section, BiquadState &state, float *data, int count) {
+    const BiquadBlockCoefficients &block = section.block;
+
+    const Vec4 zOut1 = load(block.zToOutput[0]);
+    const Vec4 zOut2 = load(block.zToOutput[1]);
+    const Vec4 xOut0 = load(block.xToOutput[0]);
+    const Vec4 xOut1 = load(block.xToOutput[1]);
+    const Vec4 xOut2 = load(block.xToOutput[2]);
+    const Vec4 xOut3 = load(block.xToOutput[3]);
+    const Vec4 zState1 = load(block.zToState[0]);
+    const Vec4 zState2 = load(block.zToState[1]);
+    const Vec4 xState0 = load(block.xToState[0]);
+    const Vec4 xState1 = load(block.xToState[1]);
+    const Vec4 xState2 = load(block.xToState[2]);
+    const Vec4 xState3 = load(block.xToState[3]);
+
+    float z1 = state.z1;
+    float z2 = state.z2;
+    int i = 0;
+
+    // 4 amostras por iteração: as saídas dependem só do estado inicial e das entradas do bloco
+    for (; i + 4 <= count; i += 4) {
+        const Vec4 x0 = splat(data[i]);
+        const Vec4 x1 = splat(data[i + 1]);
+        const Vec4 x2 = splat(data[i + 2]);
+        const Vec4 x3 = splat(data[i + 3]);
+        const Vec4 s1 = splat(z1);
+        const Vec4 s2 = splat(z2);
+
+        Vec4 y = mul(zOut1, s1);
+        y = mulAdd(y, zOut2, s2);
+        y = mulAdd(y, xOut0, x0);
+        y = mulAdd(y, xOut1, x1);
+        y = mulAdd(y, xOut2, x2);
+        y = mulAdd(y, xOut3, x3);
+
+        Vec4 next = mul(zState1, s1);
+        next = mulAdd(next, zState2, s2);
+        next = mulAdd(next, xState0, x0);
+        next = mulAdd(next, xState1, x1);
+        next = mulAdd(next, xState2, x2);
+        next = mulAdd(next, xState3, x3);
+
+        store(data + i, y);
+        z1 = lane0(next);
+        z2 = lane1(next);
+    }
+
+    // O estado é o mesmo da forma TDF-II, então o restante segue no kernel escalar
+    state.z1 = z1;
+    state.z2 = z2;
+    kScalarKernels.biquad(section, state, data + i, count - i);
+}
+
+#if defined(EQUALIZER_NEON)
+const EqualizerKernels kSimdKernels = {
+        "neon", int16ToFloatSimd, floatToInt16Simd, floatToInt16SoftClipSimd, biquadSimd
+};
+#else
+const EqualizerKernels kSimdKernels = {
+        "sse2", int16ToFloatSimd, floatToInt16Simd, floatToInt16SoftClipSimd, biquadSimd
+};
+#endif
+
+}
+
+const EqualizerKernels *simdKernels() {
+    return &kSimdKernels;
+}
+
+#else
+
+const EqualizerKernels *simdKernels() {
+    return nullptr;
+}
+
+#endif
+
+}
@@ -0,0 +1,178 @@
+#include "LoudnessMeter.h"
+
+#include <algorithm>
+#include <cmath>
+#include <limits>
+
+namespace equalizer {
+
+namespace {
+
+// Constante da BS.1770: compensa o ganho do filtro K em 1 kHz
+const double kLoudnessOffset = -0.691;
+const double kAbsoluteGateLufs = -70.0;
+const double kRelativeGateLu = -10.0;
+
+double toLufs(double meanSquare) {
+    return kLoudnessOffset + 10.0 * std::log10(meanSquare);
+}
+
+double fromLufs(double lufs) {
+    return std::pow(10.0, (lufs - kLoudnessOffset) / 10.0);
+}
+
+}
+
+const float LoudnessMeter::kSilence = -std::numeric_limits<float>::infinity();
+
+LoudnessMeter::LoudnessMeter(int sampleRate, int channelCount)
+        : sampleRate(std::max(1, sampleRate)),
+          channelCount(std::min(kMaxChannels, std::max(1, channelCount))),
+          stepFrames(std::max(1, static_cast<int>(std::lround(this->sampleRate * 0.1)))) {
+    // Filtro K para qualquer taxa: os parâmetros analógicos que reproduzem os coeficientes de
+    // 48 kHz da BS.1770, transformados para a taxa pedida
+    const double pi = 3.14159265358979323846;
+
+    double k = std::tan(pi * 1681.974450955533 / this->sampleRate);
+    double q = 0.7071752369554196;
+    const double vh = std::pow(10.0, 3.999843853973347 / 20.0);
+    const double vb = std::pow(vh, 0.4996667741545416);
+    double a0 = 1.0 + k / q + k * k;
+
+    stages[0].b0 = (vh + vb * k / q + k * k) / a0;
+    stages[0].b1 = 2.0 * (k * k - vh) / a0;
+    stages[0].b2 = (vh - vb * k / q + k * k) / a0;
+    stages[0].a1 = 2.0 * (k * k - 1.0) / a0;
+    stages[0].a2 = (1.0 - k / q + k * k) / a0;
+
+    k = std::tan(pi * 38.13547087602444 / this->sampleRate);
+    q = 0.5003270373238773;
+    a0 = 1.0 + k / q + k * k;
+
+    stages[1].b0 = 1.0;
+    stages[1].b1 = -2.0;
+    stages[1].b2 = 1.0;
+    stages[1].a1 = 2.0 * (k * k - 1.0) / a0;
+    stages[1].a2 = (1.0 - k / q + k * k) / a0;
+
+    for (int c = 0; c < kMaxChannels; c++) {
+        weights[c] = 1.0;
+    }
+
+    if (this->channelCount == 1) {
+        weights[0] = 2.0;
+    } else if (this->channelCount == 6) {
+        weights[3] = 0.0;
+        weights[4] = 1.41;
+        weights[5] = 1.41;
+    }
+
+    reset();
+}
+
+void LoudnessMeter::reset() {
+    for (ChannelState &state : states) {
+        state.s1[0] = state.s1[1] = 0.0;
+        state.s2[0] = state.s2[1] = 0.0;
+    }
+
+    stepElapsed = 0;
+    stepEnergy = 0.0;
+    stepCount = 0;
+    std::fill(steps, steps + 4, 0.0);
+    blocks.clear();
+    frameCount = 0;
+    peak = 0.0f;
+}
+
+void LoudnessMeter::push(const int16_t *samples, int count) {
+    pushFrames(samples, count / channelCount, 1.0 / 32768.0);
+}
+
+void LoudnessMeter::push(const float *samples, int count) {
+    pushFrames(samples, count / channelCount, 1.0);
+}
+
+double LoudnessMeter::filter(ChannelState &state, double x) const {
+    for (int stage = 0; stage < 2; stage++) {
+        const Filter &f = stages[stage];
+        const double y = f.b0 * x + state.s1[stage];
+        state.s1[stage] = f.b1 * x - f.a1 * y + state.s2[stage];
+        state.s2[stage] = f.b2 * x - f.a2 * y;
+        x = y;
+    }
+
+    return x;
+}
+
+template <typename Sample>
+void LoudnessMeter::pushFrames(const Sample *samples, int frames, double scale) {
+    float maxAbs = peak;
+
+    for (int frame = 0; frame < frames; frame++) {
+        const Sample *in = samples + frame * channelCount;
+        double energy = 0.0;
+
+        for (int c = 0; c < channelCount; c++) {
+            const double x = in[c] * scale;
+            maxAbs = std::max(maxAbs, static_cast<float>(std::fabs(x)));
+
+            const double y = filter(states[c], x);
+            energy += weights[c] * y * y;
+        }
+
+        stepEnergy += energy;
+
+        if (++stepElapsed == stepFrames) {
+            finishStep();
+        }
+    }
+
+    peak = maxAbs;
+    frameCount += frames;
+}
+
+void LoudnessMeter::finishStep() {
+    steps[stepCount % 4] = stepEnergy;
+    stepCount++;
+    stepEnergy = 0.0;
+    stepElapsed = 0;
+
+    if (stepCount >= 4) {
+        const double blockEnergy = steps[0] + steps[1] + steps[2] + steps[3];
+        blocks.push_back(static_cast<float>(blockEnergy / (4.0 * stepFrames)));
+    }
+}
+
+float LoudnessMeter::getIntegratedLoudness() const {
+    const double absoluteGate = fromLufs(kAbsoluteGateLufs);
+    double sum = 0.0;
+    int count = 0;
+
+    for (float block : blocks) {
+        if (block > absoluteGate) {
+            sum += block;
+            count++;
+        }
+    }
+
+    if (count == 0) {
+        return kSilence;
+    }
+
+    const double relativeGate = fromLufs(toLufs(sum / count) + kRelativeGateLu);
+    const double gate = std::max(absoluteGate, relativeGate);
+    sum = 0.0;
+    count = 0;
+
+    for (float block : blocks) {
+        if (block > gate) {
+            sum += block;
+            count++;
+        }
+    }
+
+    return count > 0 ? static_cast<float>(toLufs(sum / count)) : kSilence;
+}
+
+}
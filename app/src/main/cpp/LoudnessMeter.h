@@ -0,0 +1,82 @@
+#ifndef AUDIO_EQUALIZER_LOUDNESS_METER_H
+#define AUDIO_EQUALIZER_LOUDNESS_METER_H
+
+#include <cstdint>
+#include <vector>
+
+namespace equalizer {
+
+// Loudness integrada (EBU R128 / ITU-R BS.1770) e pico de amostra de uma faixa, em uma única
+// passada incremental sobre o PCM decodificado (antes do equalizador).
+//
+// Cada canal passa pelo filtro K (shelf de +4 dB acima de ~1,7 kHz e passa-altas em 38 Hz); a
+// energia é acumulada em passos de 100 ms, e cada bloco de 400 ms (75% de sobreposição) guarda
+// só a sua energia média. A loudness integrada aplica o gate absoluto (-70 LUFS) e o relativo
+// (-10 LU) sobre esses blocos, então pode ser lida a qualquer momento sem reprocessar o áudio.
+// A memória cresce 4 bytes por 100 ms (~140 KB por hora).
+//
+// Pesos dos canais: 5.1 (L R C LFE Ls Rs) ignora o LFE e usa 1,41 nos surrounds; mono conta
+// como dual mono (peso 2), para a mesma música em mono e em estéreo receber o mesmo ganho.
+class LoudnessMeter {
+public:
+    static const int kMaxChannels = 8;
+
+    // Valor de getIntegratedLoudness() quando nenhum bloco passou pelo gate absoluto (silêncio ou
+    // menos de 400 ms de áudio)
+    static const float kSilence;
+
+    LoudnessMeter(int sampleRate, int channelCount);
+
+    int getSampleRate() const { return sampleRate; }
+    int getChannelCount() const { return channelCount; }
+    int64_t getFrameCount() const { return frameCount; }
+
+    // Amostras intercaladas; um frame incompleto no final é ignorado
+    void push(const int16_t *samples, int count);
+    void push(const float *samples, int count);
+
+    // Em LUFS, ou kSilence
+    float getIntegratedLoudness() const;
+
+    // Maior |amostra| vista, em fundo de escala (1.0 = 0 dBFS)
+    float getSamplePeak() const { return peak; }
+
+    void reset();
+
+private:
+    struct Filter {
+        double b0, b1, b2, a1, a2;
+    };
+
+    // Estado das duas seções do filtro K de um canal (forma direta II transposta)
+    struct ChannelState {
+        double s1[2];
+        double s2[2];
+    };
+
+    template <typename Sample>
+    void pushFrames(const Sample *samples, int frames, double scale);
+    double filter(ChannelState &state, double x) const;
+    void finishStep();
+
+    int sampleRate;
+    int channelCount;
+    Filter stages[2];
+    double weights[kMaxChannels];
+    ChannelState states[kMaxChannels];
+
+    int stepFrames;
+    int stepElapsed;
+    double stepEnergy;
+    // Energia dos últimos 4 passos (um bloco de 400 ms)
+    double steps[4];
+    int stepCount;
+    std::vector<float> blocks;
+
+    int64_t frameCount;
+    float peak;
+};
+
+}
+
+#endif
@@ -0,0 +1,290 @@
+#include "SpectrumAnalyzer.h"
+
+#include <algorithm>
+#include <cmath>
+#include <cstring>
+
+namespace equalizer {
+
+constexpr float SpectrumAnalyzer::kSilenceDb;
+const int SpectrumAnalyzer::kMaxBands;
+
+namespace {
+
+const float kMinBandFrequency = 20.0f;
+const float kMaxBandFrequency = 20000.0f;
+
+// 10^(kSilenceDb / 20): abaixo disso o nível é reportado como silêncio
+const float kSilenceAmplitude = 1.0e-6f;
+
+int roundFftSize(int requested) {
+    int size = SpectrumAnalyzer::kMinFftSize;
+
+    while (size < requested && size < SpectrumAnalyzer::kMaxFftSize) {
+        size <<= 1;
+    }
+
+    return size;
+}
+
+inline float amplitudeToDb(float amplitude) {
+    return amplitude > kSilenceAmplitude ? 20.0f * std::log10(amplitude) : SpectrumAnalyzer::kSilenceDb;
+}
+
+inline float powerToDb(double power) {
+    return power > static_cast<double>(kSilenceAmplitude) * kSilenceAmplitude
+           ? static_cast<float>(10.0 * std::log10(power)) : SpectrumAnalyzer::kSilenceDb;
+}
+
+}
+
+SpectrumAnalyzer::SpectrumAnalyzer(int fftSize, int bandCount, float updateRateHz)
+        : fftSize(roundFftSize(fftSize)),
+          bandCount(std::min(kMaxBands, std::max(1, bandCount))),
+          updateRateHz(updateRateHz > 0.0f ? updateRateHz : 30.0f),
+          sampleRate(0), hopFrames(0), framesUntilAnalysis(0),
+          history(static_cast<size_t>(this->fftSize), 0.0f), historyPosition(0),
+          sumSquares(0.0), levelSamples(0), peak(0.0f),
+          bandEdges(static_cast<size_t>(this->bandCount + 1), 0),
+          sequence(0) {
+    const int n = this->fftSize;
+    const int half = n / 2;
+
+    // Hann periódica
+    window.resize(static_cast<size_t>(n));
+    double windowSum = 0.0;
+    double windowSquares = 0.0;
+
+    for (int i = 0; i < n; i++) {
+        window[i] = static_cast<float>(0.5 - 0.5 * std::cos(2.0 * M_PI * i / n));
+        windowSum += window[i];
+        windowSquares += static_cast<double>(window[i]) * window[i];
+    }
+
+    // Uma senoide de amplitude A resulta em |X[k]| = A * soma(w) / 2 no seu bin
+    amplitudeScale = static_cast<float>(2.0 / windowSum);
+    noiseBandwidth = static_cast<float>(n * windowSquares / (windowSum * windowSum));
+
+    twiddleCos.resize(static_cast<size_t>(half / 2));
+    twiddleSin.resize(static_cast<size_t>(half / 2));
+    for (int k = 0; k < half / 2; k++) {
+        twiddleCos[k] = static_cast<float>(std::cos(2.0 * M_PI * k / half));
+        twiddleSin[k] = static_cast<float>(-std::sin(2.0 * M_PI * k / half));
+    }
+
+    splitCos.resize(static_cast<size_t>(half));
+    splitSin.resize(static_cast<size_t>(half));
+    for (int k = 0; k < half; k++) {
+        splitCos[k] = static_cast<float>(std::cos(2.0 * M_PI * k / n));
+        splitSin[k] = static_cast<float>(-std::sin(2.0 * M_PI * k / n));
+    }
+
+    int bits = 0;
+    while ((1 << bits) < half) {
+        bits++;
+    }
+
+    bitReverse.resize(static_cast<size_t>(half));
+    for (int i = 0; i < half; i++) {
+        int reversed = 0;
+        for (int bit = 0; bit < bits; bit++) {
+            reversed |= ((i >> bit) & 1) << (bits - 1 - bit);
+        }
+        bitReverse[i] = reversed;
+    }
+
+    real.resize(static_cast<size_t>(half));
+    imag.resize(static_cast<size_t>(half));
+    amplitude.resize(static_cast<size_t>(half));
+
+    for (int i = 0; i < 3; i++) {
+        results.slot(i).values.assign(static_cast<size_t>(getResultSize()), kSilenceDb);
+        results.slot(i).sequence = 0;
+    }
+}
+
+void SpectrumAnalyzer::configureRate(int newSampleRate) {
+    sampleRate = newSampleRate;
+    hopFrames = std::max(1, static_cast<int>(std::lround(sampleRate / updateRateHz)));
+    framesUntilAnalysis = hopFrames;
+
+    const int half = fftSize / 2;
+    const float binHz = sampleRate / static_cast<float>(fftSize);
+    const float maxFrequency = std::min(kMaxBandFrequency, sampleRate * 0.5f);
+    const float ratio = maxFrequency / kMinBandFrequency;
+
+    // Cada banda tem pelo menos um bin; com FFT curta as bandas graves ficam com um bin cada
+    int previous = std::max(1, static_cast<int>(kMinBandFrequency / binHz));
+    bandEdges[0] = previous;
+
+    for (int band = 1; band <= bandCount; band++) {
+        float frequency = kMinBandFrequency * std::pow(ratio, band / static_cast<float>(bandCount));
+        int edge = static_cast<int>(std::lround(frequency / binHz));
+        edge = std::min(half, std::max(previous + 1, edge));
+        bandEdges[band] = edge;
+        previous = edge;
+    }
+}
+
+void SpectrumAnalyzer::push(const float *interleaved, int frames, int channelCount, int rate) {
+    if (interleaved == nullptr) {
+        return;
+    }
+
+    pushFrames(frames, channelCount, rate, [interleaved, channelCount](int frame, int channel) {
+        return interleaved[frame * channelCount + channel];
+    });
+}
+
+void SpectrumAnalyzer::pushPlanar(const float *const *channels, int frames, int channelCount, int rate) {
+    if (channels == nullptr) {
+        return;
+    }
+
+    pushFrames(frames, channelCount, rate, [channels](int frame, int channel) {
+        return channels[channel][frame];
+    });
+}
+
+template <typename SampleAt>
+void SpectrumAnalyzer::pushFrames(int frames, int channelCount, int rate, SampleAt sampleAt) {
+    if (frames <= 0 || channelCount <= 0 || rate <= 0) {
+        return;
+    }
+
+    if (rate != sampleRate) {
+        configureRate(rate);
+    }
+
+    const float channelScale = 1.0f / channelCount;
+    int frame = 0;
+
+    while (frame < frames) {
+        const int chunk = std::min(frames - frame, framesUntilAnalysis);
+
+        for (int i = 0; i < chunk; i++) {
+            float mono = 0.0f;
+
+            for (int channel = 0; channel < channelCount; channel++) {
+                const float sample = sampleAt(frame + i, channel);
+                mono += sample;
+                sumSquares += static_cast<double>(sample) * sample;
+                peak = std::max(peak, std::fabs(sample));
+            }
+
+            history[historyPosition] = mono * channelScale;
+            historyPosition = (historyPosition + 1) & (fftSize - 1);
+        }
+
+        levelSamples += static_cast<int64_t>(chunk) * channelCount;
+        framesUntilAnalysis -= chunk;
+        frame += chunk;
+
+        if (framesUntilAnalysis == 0) {
+            analyze();
+            framesUntilAnalysis = hopFrames;
+        }
+    }
+}
+
+void SpectrumAnalyzer::analyze() {
+    const int half = fftSize / 2;
+    std::vector<float> &out = results.writeBuffer().values;
+
+    out[kIndexRms] = levelSamples > 0 ? powerToDb(sumSquares / levelSamples) : kSilenceDb;
+    out[kIndexPeak] = amplitudeToDb(peak);
+    sumSquares = 0.0;
+    levelSamples = 0;
+    peak = 0.0f;
+
+    // Amostras pares na parte real e ímpares na imaginária (FFT real de N pontos feita com
+    // uma complexa de N / 2), já na ordem bit-reversa pedida pela FFT iterativa
+    for (int k = 0; k < half; k++) {
+        const int even = (historyPosition + 2 * k) & (fftSize - 1);
+        const int target = bitReverse[k];
+        real[target] = history[even] * window[2 * k];
+        imag[target] = history[(even + 1) & (fftSize - 1)] * window[2 * k + 1];
+    }
+
+    transform();
+
+    float *spectrum = out.data() + kHeaderSize + 2 * bandCount;
+
+    for (int k = 0; k < half; k++) {
+        const int mirror = (half - k) & (half - 1);
+
+        // Separa os espectros das amostras pares (even) e ímpares (odd)
+        const float evenReal = 0.5f * (real[k] + real[mirror]);
+        const float evenImag = 0.5f * (imag[k] - imag[mirror]);
+        const float oddReal = 0.5f * (imag[k] + imag[mirror]);
+        const float oddImag = -0.5f * (real[k] - real[mirror]);
+
+        const float xReal = evenReal + splitCos[k] * oddReal - splitSin[k] * oddImag;
+        const float xImag = evenImag + splitCos[k] * oddImag + splitSin[k] * oddReal;
+
+        amplitude[k] = std::sqrt(xReal * xReal + xImag * xImag) * amplitudeScale;
+        spectrum[k] = amplitudeToDb(amplitude[k]);
+    }
+
+    // Potência da banda = soma das potências dos bins (A² / 2), descontado o espalhamento da janela
+    for (int band = 0; band < bandCount; band++) {
+        double power = 0.0;
+        float bandPeak = 0.0f;
+
+        for (int k = bandEdges[band]; k < bandEdges[band + 1]; k++) {
+            power += 0.5 * amplitude[k] * amplitude[k];
+            bandPeak = std::max(bandPeak, amplitude[k]);
+        }
+
+        out[kHeaderSize + band] = powerToDb(power / noiseBandwidth);
+        out[kHeaderSize + bandCount + band] = amplitudeToDb(bandPeak);
+    }
+
+    publish();
+}
+
+void SpectrumAnalyzer::transform() {
+    const int half = fftSize / 2;
+
+    for (int size = 2; size <= half; size <<= 1) {
+        const int step = half / size;
+        const int span = size / 2;
+
+        for (int start = 0; start < half; start += size) {
+            for (int j = 0; j < span; j++) {
+                const float wr = twiddleCos[j * step];
+                const float wi = twiddleSin[j * step];
+                const int a = start + j;
+                const int b = a + span;
+
+                const float tr = wr * real[b] - wi * imag[b];
+                const float ti = wr * imag[b] + wi * real[b];
+
+                real[b] = real[a] - tr;
+                imag[b] = imag[a] - ti;
+                real[a] += tr;
+                imag[a] += ti;
+            }
+        }
+    }
+}
+
+void SpectrumAnalyzer::publish() {
+    results.writeBuffer().sequence = ++sequence;
+    results.publish();
+}
+
+uint64_t SpectrumAnalyzer::read(float *out, int capacity) {
+    results.update();
+
+    const Result &result = results.readBuffer();
+    const int count = std::min(capacity, static_cast<int>(result.values.size()));
+
+    if (out != nullptr && count > 0) {
+        std::memcpy(out, result.values.data(), static_cast<size_t>(count) * sizeof(float));
+    }
+
+    return result.sequence;
+}
+
+}
@@ -0,0 +1,108 @@
+#ifndef AUDIO_EQUALIZER_SPECTRUM_ANALYZER_H
+#define AUDIO_EQUALIZER_SPECTRUM_ANALYZER_H
+
+#include <cstdint>
+#include <vector>
+
+#include "TripleBuffer.h"
+
+namespace equalizer {
+
+// Análise do sinal que sai do equalizador, para o visualizador: nível RMS/pico do bloco,
+// RMS/pico por banda (bandas em escala logarítmica de 20 Hz até Nyquist) e o espectro de uma
+// FFT real com janela de Hann, tudo em dBFS.
+//
+// push() roda no thread de áudio e só copia as amostras (mixadas em mono) para o histórico; a
+// FFT é feita a cada sampleRate / updateRateHz frames. Toda a memória é alocada no construtor.
+// O resultado é publicado por triple buffering: o thread de áudio nunca espera o leitor e o
+// leitor sempre recebe uma análise completa.
+//
+// Layout do resultado (getResultSize() floats):
+//   [0] RMS do período, [1] pico do período,
+//   [2, 2 + bands) RMS por banda, [2 + bands, 2 + 2 * bands) pico por banda,
+//   [2 + 2 * bands, ... + fftSize / 2) magnitude de cada bin (bin k = k * sampleRate / fftSize Hz)
+class SpectrumAnalyzer {
+public:
+    static const int kMinFftSize = 64;
+    static const int kMaxFftSize = 8192;
+    static const int kMaxBands = 64;
+
+    static const int kIndexRms = 0;
+    static const int kIndexPeak = 1;
+    static const int kHeaderSize = 2;
+
+    // Valor usado para silêncio (e piso de todos os níveis)
+    static constexpr float kSilenceDb = -120.0f;
+
+    // fftSize é arredondado para uma potência de 2 entre kMinFftSize e kMaxFftSize
+    SpectrumAnalyzer(int fftSize, int bandCount, float updateRateHz);
+
+    int getFftSize() const { return fftSize; }
+    int getBandCount() const { return bandCount; }
+    int getResultSize() const { return kHeaderSize + 2 * bandCount + fftSize / 2; }
+
+    // Thread de áudio: amostras float intercaladas, já equalizadas (fundo de escala = 1.0)
+    void push(const float *interleaved, int frames, int channelCount, int sampleRate);
+
+    // Mesmo que push, com um array por canal
+    void pushPlanar(const float *const *channels, int frames, int channelCount, int sampleRate);
+
+    // Copia a análise mais recente para out (até capacity floats). Retorna o número sequencial
+    // dessa análise (0 enquanto nenhuma foi feita). Não bloqueia o thread de áudio; um único
+    // leitor por vez.
+    uint64_t read(float *out, int capacity);
+
+private:
+    void configureRate(int newSampleRate);
+    // sampleAt(frame, channel) devolve a amostra; comum a push e pushPlanar
+    template <typename SampleAt>
+    void pushFrames(int frames, int channelCount, int rate, SampleAt sampleAt);
+    void analyze();
+    void transform();
+    void publish();
+
+    int fftSize;
+    int bandCount;
+    float updateRateHz;
+
+    int sampleRate;
+    int hopFrames;
+    int framesUntilAnalysis;
+
+    // Histórico circular (mono) das últimas fftSize amostras
+    std::vector<float> history;
+    int historyPosition;
+
+    double sumSquares;
+    int64_t levelSamples;
+    float peak;
+
+    // Tabelas da FFT (complexa de fftSize / 2 pontos + separação do espectro real)
+    std::vector<float> window;
+    std::vector<float> twiddleCos;
+    std::vector<float> twiddleSin;
+    std::vector<float> splitCos;
+    std::vector<float> splitSin;
+    std::vector<int> bitReverse;
+    std::vector<float> real;
+    std::vector<float> imag;
+    std::vector<float> amplitude;
+    float amplitudeScale;
+    // Largura de banda equivalente de ruído da janela, em bins
+    float noiseBandwidth;
+
+    // Primeiro bin de cada banda (bandCount + 1 limites)
+    std::vector<int> bandEdges;
+
+    struct Result {
+        std::vector<float> values;
+        uint64_t sequence;
+    };
+
+    TripleBuffer<Result> results;
+    uint64_t sequence;
+};
+
+}
+
+#endif
@@ -0,0 +1,52 @@
+#ifndef AUDIO_EQUALIZER_TRIPLE_BUFFER_H
+#define AUDIO_EQUALIZER_TRIPLE_BUFFER_H
+
+#include <atomic>
+
+namespace equalizer {
+
+// Troca de dados sem lock entre um escritor e um leitor (um thread de cada lado). O escritor
+// preenche writeBuffer() e chama publish(); o leitor chama update() e usa readBuffer(). Nenhum
+// dos dois espera o outro e o leitor sempre enxerga uma publicação completa (a mais recente).
+//
+// É um double buffer (o que está sendo escrito e o que está sendo lido) mais um slot de
+// passagem, que é o que permite ao escritor publicar de novo antes de o leitor pegar a anterior.
+// Cada publicação deve ser completa: writeBuffer() volta com o conteúdo de duas publicações atrás.
+template <typename T>
+class TripleBuffer {
+public:
+    TripleBuffer() : writeIndex(0), readIndex(1), middle(2) {}
+
+    // Acesso a todos os slots, só para a inicialização (antes de haver concorrência)
+    T &slot(int index) { return slots[index]; }
+
+    T &writeBuffer() { return slots[writeIndex]; }
+
+    void publish() {
+        writeIndex = middle.exchange(writeIndex | kDirty, std::memory_order_acq_rel) & ~kDirty;
+    }
+
+    // Pega a publicação mais recente, se houver. Retorna false se nada mudou desde a última.
+    bool update() {
+        if ((middle.load(std::memory_order_relaxed) & kDirty) == 0) {
+            return false;
+        }
+
+        readIndex = middle.exchange(readIndex, std::memory_order_acq_rel) & ~kDirty;
+        return true;
+    }
+
+    const T &readBuffer() const { return slots[readIndex]; }
+
+private:
+    static const int kDirty = 4;
+
+    T slots[3];
+    int writeIndex;
+    int readIndex;
+    std::atomic<int> middle;
+};
+
+}
+
+#endif
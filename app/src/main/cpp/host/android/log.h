@@ -0,0 +1,41 @@
+// Substituto de <android/log.h> para o build de host (Linux x86_64): só entra no include path da
+// biblioteca JNI de host, usada pelos testes JVM. Escreve no stderr no lugar do logcat.
+
+#ifndef AUDIOEQUALIZER_HOST_ANDROID_LOG_H
+#define AUDIOEQUALIZER_HOST_ANDROID_LOG_H
+
+#include <cstdarg>
+#include <cstdio>
+
+enum android_LogPriority {
+    ANDROID_LOG_UNKNOWN = 0,
+    ANDROID_LOG_DEFAULT,
+    ANDROID_LOG_VERBOSE,
+    ANDROID_LOG_DEBUG,
+    ANDROID_LOG_INFO,
+    ANDROID_LOG_WARN,
+    ANDROID_LOG_ERROR,
+    ANDROID_LOG_FATAL,
+    ANDROID_LOG_SILENT,
+};
+
+inline int __android_log_print(int prio, const char *tag, const char *fmt, ...)
+        __attribute__((format(printf, 3, 4)));
+
+inline int __android_log_print(int prio, const char *tag, const char *fmt, ...) {
+    // Só avisos e erros: o log informativo da carga da biblioteca polui a saída dos testes
+    if (prio < ANDROID_LOG_WARN) {
+        return 0;
+    }
+
+    va_list args;
+    va_start(args, fmt);
+    int written = std::fprintf(stderr, "%s: ", tag);
+    written += std::vfprintf(stderr, fmt, args);
+    written += std::fprintf(stderr, "\n");
+    va_end(args);
+
+    return written;
+}
+
+#endif
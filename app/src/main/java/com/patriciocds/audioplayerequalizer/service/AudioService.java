@@ -7,14 +7,19 @@ import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.database.ContentObserver;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.net.Uri;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
 import android.os.RemoteCallbackList;
 import android.os.RemoteException;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.system.ErrnoException;
 import android.widget.RemoteViews;
 
 import androidx.annotation.Nullable;
@@ -25,7 +30,11 @@ import com.patriciocds.audioplayerequalizer.PlaybackCallback;
 import com.patriciocds.audioplayerequalizer.PlaybackInterface;
 import com.patriciocds.audioplayerequalizer.R;
 import com.patriciocds.audioplayerequalizer.ui.MainActivity;
+import com.patriciocds.audioplayerequalizer.util.EqualizerPreset;
+import com.patriciocds.audioplayerequalizer.util.EqualizerPresetStore;
 import com.patriciocds.audioplayerequalizer.util.ExceptionUtils;
+import com.patriciocds.audioplayerequalizer.util.TrackInfo;
+import com.patriciocds.audioplayerequalizer.util.TrackInfoCache;
 
 import java.io.IOException;
 
@@ -36,10 +45,21 @@ public class AudioService extends Service {
     public static final String ACTION_STOP = "com.patriciocds.audioplayerequalizer.action.STOP";
     public static final String ACTION_SEEK = "com.patriciocds.audioplayerequalizer.action.SEEK";
     public static final String ACTION_UPDATE_VOLUME = "com.patriciocds.audioplayerequalizer.action.UPDATE_VOLUME";
+    public static final String ACTION_PREPARE_NEXT = "com.patriciocds.audioplayerequalizer.action.PREPARE_NEXT";
+    public static final String ACTION_SET_ENGINE = "com.patriciocds.audioplayerequalizer.action.SET_ENGINE";
 
+    // JSON de MusicData (legado); prefira EXTRA_MUSIC_DATA
     public static final String EXTRA_AUDIO_PATH = "audioPath";
+    public static final String EXTRA_MUSIC_DATA = "musicData";
     public static final String EXTRA_SEEK_POSITION = "seekPosition";
     public static final String EXTRA_VOLUME = "newVolume";
+    public static final String EXTRA_ENGINE = "engine";
+    public static final String EXTRA_BUFFER_SIZE_MS = "bufferSizeMs";
+
+    // MediaPlayer reproduz o arquivo diretamente (sem equalização)
+    public static final int ENGINE_MEDIA_PLAYER = 0;
+    // MediaCodec + AudioEqualizer + AudioTrack (ver StreamingPlayer)
+    public static final int ENGINE_AUDIO_TRACK = 1;
 
     @VisibleForTesting
     static final String CHANNEL_ID = "AUDIO_SERVICE_CHANNEL_A";
@@ -48,26 +68,69 @@ public class AudioService extends Service {
     MediaPlayer mediaPlayer;
     @VisibleForTesting
     AudioManager audioManager;
+    // Próxima música já preparada, encadeada ao mediaPlayer com setNextMediaPlayer
+    @VisibleForTesting
+    MediaPlayer nextMediaPlayer;
+    @VisibleForTesting
+    MusicData nextMusicData;
+    @VisibleForTesting
+    StreamingPlayer streamingPlayer;
 
+    private int engine = ENGINE_MEDIA_PLAYER;
     private MusicData musicData;
 
-    private final Handler progressHandler = new Handler(Looper.getMainLooper());
+    // Estado do prepareAsync do mediaPlayer e do nextMediaPlayer (ou do prepare em segundo plano
+    // do streamingPlayer)
+    private boolean preparing;
+    private boolean prepared;
+    private boolean startWhenPrepared;
+    private boolean nextPrepared;
+
+    // Comandos do binder chegam em threads do pool; o estado dos players é da thread principal
+    private final Handler commandHandler = new Handler(Looper.getMainLooper());
+
+    // reset/setDataSource/prepare/release do streamingPlayer (MediaExtractor, MediaCodec e
+    // AudioTrack bloqueiam), fora da thread principal e sempre nessa ordem
+    private HandlerThread streamingThread;
+    private Handler streamingHandler;
+    // Incrementado a cada play() e troca de motor: um prepare que termina depois é descartado
+    private int streamingRequest;
+    // Seek pedido durante o prepare, aplicado antes do start; -1 se não há
+    private int seekWhenPreparedMs = -1;
+
+    private final ProgressScheduler progressScheduler = new ProgressScheduler(new ProgressScheduler.PositionSource() {
+        @Override
+        public boolean isPlaying() {
+            return AudioService.this.isPlaying();
+        }
 
-    private final Runnable progressRunnable = new Runnable() {
         @Override
-        public void run() {
-            if (isPlaying()) {
-                int position = mediaPlayer.getCurrentPosition();
-                notifyOnMusicProgressUpdate(position);
-                progressHandler.postDelayed(this, 1000);
-            } else {
-                progressHandler.removeCallbacks(this);
-            }
+        public int getCurrentPosition() {
+            return AudioService.this.getCurrentPosition();
         }
-    };
+    });
 
     private final RemoteCallbackList<PlaybackCallback> playbackCallback = new RemoteCallbackList<>();
 
+    // Estado lido pelos clientes sem IPC; null se a memória compartilhada não pôde ser criada
+    @VisibleForTesting
+    PlaybackStateBlock stateBlock;
+    private int trackId;
+
+    private EqualizerPresetStore presetStore;
+    private TrackInfoCache trackInfoCache;
+    // Dados guardados da faixa atual (musicData): duração antes do prepare, formato e loudness.
+    // Null enquanto o TrackInfoCache não responder ou se a faixa nunca foi tocada
+    private TrackInfo trackInfo;
+
+    // Volume alterado fora do app (teclas de volume) também precisa chegar ao bloco de estado
+    private final ContentObserver volumeObserver = new ContentObserver(commandHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            publishState();
+        }
+    };
+
     @VisibleForTesting
     final PlaybackInterface.Stub binder = new PlaybackInterface.Stub() {
 
@@ -78,7 +141,7 @@ public class AudioService extends Service {
 
         @Override
         public int getDuration() {
-            return mediaPlayer.getDuration();
+            return AudioService.this.getDuration();
         }
 
         @Override
@@ -91,6 +154,75 @@ public class AudioService extends Service {
             return audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
         }
 
+        @Override
+        public MusicData getMusicData() {
+            return musicData;
+        }
+
+        @Override
+        public void play(MusicData musicData) {
+            runOnMainThread(() -> {
+                // Mantém o serviço "started": sem isso ele seria destruído quando a UI desvinculasse
+                startService(new Intent(AudioService.this, AudioService.class));
+                AudioService.this.play(musicData);
+            });
+        }
+
+        @Override
+        public void prepareNext(MusicData musicData) {
+            runOnMainThread(() -> AudioService.this.prepareNext(musicData));
+        }
+
+        @Override
+        public void pause() {
+            runOnMainThread(AudioService.this::pausePlayback);
+        }
+
+        @Override
+        public void resume() {
+            runOnMainThread(AudioService.this::resumePlayback);
+        }
+
+        @Override
+        public void stop() {
+            runOnMainThread(AudioService.this::stopPlayback);
+        }
+
+        @Override
+        public void seekTo(int positionMs) {
+            runOnMainThread(() -> AudioService.this.seekTo(positionMs));
+        }
+
+        @Override
+        public void setVolume(int volume) {
+            runOnMainThread(() -> setStreamVolume(volume));
+        }
+
+        @Override
+        public void setEngine(int engine, int bufferSizeMs) {
+            runOnMainThread(() -> AudioService.this.setEngine(engine, bufferSizeMs));
+        }
+
+        @Override
+        public void setEqualizerPreset(String name) {
+            runOnMainThread(() -> AudioService.this.setEqualizerPreset(name));
+        }
+
+        @Override
+        public void setCustomEqualizer(float[] gainsDb) {
+            runOnMainThread(() -> AudioService.this.setCustomEqualizer(gainsDb));
+        }
+
+        @Override
+        public String getEqualizerPreset() {
+            return presetStore.getSelectedName();
+        }
+
+        @Override
+        public PlaybackStateBlock getStateBlock() {
+            return stateBlock;
+        }
+
         @Override
         public void registerCallback(PlaybackCallback callback) {
             playbackCallback.register(callback);
@@ -99,6 +231,12 @@ public class AudioService extends Service {
         @Override
         public void unregisterCallback(PlaybackCallback callback) {
             playbackCallback.unregister(callback);
+            runOnMainThread(() -> progressScheduler.unsubscribe(callback));
+        }
+
+        @Override
+        public void setProgressInterval(PlaybackCallback callback, int intervalMs) {
+            runOnMainThread(() -> progressScheduler.subscribe(callback, intervalMs));
         }
     };
 
@@ -109,9 +247,26 @@ public class AudioService extends Service {
         audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
 
         mediaPlayer = new MediaPlayer();
-        mediaPlayer.setOnCompletionListener(mp -> notifyOnMusicComplete());
+        mediaPlayer.setOnCompletionListener(this::onPlaybackCompletion);
+
+        presetStore = new EqualizerPresetStore(this);
+
+        streamingThread = new HandlerThread("StreamingPrepare");
+        streamingThread.start();
+        streamingHandler = new Handler(streamingThread.getLooper());
+
+        trackInfoCache = new TrackInfoCache(this);
 
         createNotificationChannel();
+
+        try {
+            stateBlock = PlaybackStateBlock.create();
+            publishState();
+
+            getContentResolver().registerContentObserver(Settings.System.CONTENT_URI, true, volumeObserver);
+        } catch (ErrnoException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
     }
 
     @Override
@@ -121,15 +276,18 @@ public class AudioService extends Service {
 
             switch (action) {
                 case ACTION_PLAY:
-                    play(intent.getStringExtra(EXTRA_AUDIO_PATH));
+                    play(readMusicData(intent));
                     break;
                 case ACTION_PAUSE:
-                    if (isPlaying()) {
+                    if (isPlaying() || (preparing && startWhenPrepared)) {
                         pausePlayback();
                     } else {
                         resumePlayback();
                     }
                     break;
+                case ACTION_PREPARE_NEXT:
+                    prepareNext(readMusicData(intent));
+                    break;
                 case ACTION_STOP:
                     stopPlayback();
                     break;
@@ -139,6 +297,10 @@ public class AudioService extends Service {
                 case ACTION_UPDATE_VOLUME:
                     setStreamVolume(intent.getIntExtra(EXTRA_VOLUME, 0));
                     break;
+                case ACTION_SET_ENGINE:
+                    setEngine(intent.getIntExtra(EXTRA_ENGINE, ENGINE_MEDIA_PLAYER),
+                            intent.getIntExtra(EXTRA_BUFFER_SIZE_MS, StreamingPlayer.DEFAULT_BUFFER_SIZE_MS));
+                    break;
             }
         }
 
@@ -159,6 +321,19 @@ public class AudioService extends Service {
             mediaPlayer = null;
         }
 
+        releaseNextPlayer();
+        releaseStreamingPlayer();
+        // Termina depois do release (e de um prepare em andamento)
+        streamingThread.quitSafely();
+
+        progressScheduler.release();
+
+        if (stateBlock != null) {
+            getContentResolver().unregisterContentObserver(volumeObserver);
+            stateBlock.close();
+            stateBlock = null;
+        }
+
         super.onDestroy();
     }
 
@@ -174,6 +349,18 @@ public class AudioService extends Service {
         return binder;
     }
 
+    /**
+     * Chamadas do mesmo processo já chegam na thread principal e rodam direto; as demais são
+     * postadas na ordem em que chegaram.
+     */
+    private void runOnMainThread(Runnable command) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            command.run();
+        } else {
+            commandHandler.post(command);
+        }
+    }
+
     private void createNotificationChannel() {
         NotificationChannel channel = new NotificationChannel(
                 CHANNEL_ID,
@@ -244,33 +431,58 @@ public class AudioService extends Service {
         );
     }
 
-    private void play(String data) {
+    /**
+     * MusicData do Intent: o Parcelable em EXTRA_MUSIC_DATA ou, por compatibilidade, o JSON
+     * em EXTRA_AUDIO_PATH. Null quando o Intent não traz música (ex.: botão da notificação).
+     */
+    private static MusicData readMusicData(Intent intent) {
+        MusicData data = intent.getParcelableExtra(EXTRA_MUSIC_DATA);
+
+        if (data == null) {
+            String json = intent.getStringExtra(EXTRA_AUDIO_PATH);
+            data = json != null ? MusicData.make(json) : null;
+        }
+
+        return data;
+    }
+
+    private void play(MusicData data) {
+        if (engine == ENGINE_AUDIO_TRACK) {
+            playStreaming(data);
+            return;
+        }
+
         try {
             if (mediaPlayer != null) {
+                MusicData requested = data != null ? data : musicData;
+
+                // A música pedida já está preparada no segundo player: troca sem recarregar
+                if (requested != null && nextPrepared && isSameTrack(requested, nextMusicData)) {
+                    switchToNextPlayer(true);
+                    return;
+                }
+
                 if (isPlaying()) {
                     mediaPlayer.stop();
                 }
 
                 mediaPlayer.reset();
+                prepared = false;
+                preparing = false;
 
-                if (data != null) {
-                    musicData = MusicData.make(data);
-                }
+                musicData = requested;
 
                 if (musicData != null) {
-                    if (musicData.getPath().contains("android.resource://")) {
-                        Uri uri = Uri.parse(musicData.getPath());
-                        mediaPlayer.setDataSource(getApplicationContext(), uri);
-                    } else {
-                        mediaPlayer.setDataSource(musicData.getPath());
-                    }
+                    loadTrackInfo();
+                    setDataSource(mediaPlayer, musicData);
 
                     startForeground(1, createNotification(musicData.getTitle(), musicData.getArtist()));
 
-                    mediaPlayer.prepare();
-                    mediaPlayer.start();
-
-                    progressHandler.post(progressRunnable);
+                    // prepareAsync: a decodificação do cabeçalho não trava a thread principal
+                    mediaPlayer.setOnPreparedListener(mp -> onPlayerPrepared());
+                    preparing = true;
+                    startWhenPrepared = true;
+                    mediaPlayer.prepareAsync();
                 }
             }
         } catch (IOException e) {
@@ -278,17 +490,371 @@ public class AudioService extends Service {
         }
     }
 
+    private void setDataSource(MediaPlayer player, MusicData data) throws IOException {
+        if (data.getPath().contains("android.resource://")) {
+            Uri uri = Uri.parse(data.getPath());
+            player.setDataSource(getApplicationContext(), uri);
+        } else {
+            player.setDataSource(data.getPath());
+        }
+    }
+
+    private void onPlayerPrepared() {
+        preparing = false;
+        prepared = true;
+        saveDuration(mediaPlayer.getDuration());
+
+        if (startWhenPrepared) {
+            mediaPlayer.start();
+        }
+
+        notifyOnTrackChanged();
+        onPlaybackStateChanged();
+
+        if (nextPrepared) {
+            mediaPlayer.setNextMediaPlayer(nextMediaPlayer);
+        }
+    }
+
+    /**
+     * Prepara a próxima música em um segundo MediaPlayer. Quando a atual terminar, o
+     * MediaPlayer passa para ela sem intervalo (setNextMediaPlayer); um play() da mesma
+     * música também a usa diretamente.
+     */
+    private void prepareNext(MusicData data) {
+        releaseNextPlayer();
+
+        if (data == null) {
+            return;
+        }
+
+        // Duração, formato e ganho já na memória quando ela começar, em qualquer motor
+        trackInfoCache.prefetch(data.getPath());
+
+        if (engine != ENGINE_MEDIA_PLAYER) {
+            return;
+        }
+
+        nextMusicData = data;
+        nextMediaPlayer = new MediaPlayer();
+
+        try {
+            setDataSource(nextMediaPlayer, nextMusicData);
+            nextMediaPlayer.setOnPreparedListener(this::onNextPlayerPrepared);
+            nextMediaPlayer.prepareAsync();
+        } catch (IOException e) {
+            ExceptionUtils.printStackTrace(e);
+            releaseNextPlayer();
+        }
+    }
+
+    @VisibleForTesting
+    void onNextPlayerPrepared(MediaPlayer player) {
+        if (player != nextMediaPlayer) {
+            return;
+        }
+
+        nextPrepared = true;
+
+        if (prepared && mediaPlayer != null) {
+            mediaPlayer.setNextMediaPlayer(player);
+        }
+    }
+
+    @VisibleForTesting
+    void onPlaybackCompletion(MediaPlayer player) {
+        if (player == mediaPlayer && nextPrepared) {
+            // O MediaPlayer já iniciou o próximo sozinho; só assume o lugar do atual
+            switchToNextPlayer(false);
+        } else {
+            onPlaybackStateChanged();
+            notifyOnMusicComplete();
+        }
+    }
+
+    private void switchToNextPlayer(boolean startNow) {
+        MediaPlayer finished = mediaPlayer;
+
+        mediaPlayer = nextMediaPlayer;
+        musicData = nextMusicData;
+        nextMediaPlayer = null;
+        nextMusicData = null;
+        nextPrepared = false;
+
+        mediaPlayer.setOnCompletionListener(this::onPlaybackCompletion);
+        preparing = false;
+        prepared = true;
+
+        if (startNow) {
+            mediaPlayer.start();
+        }
+
+        finished.release();
+        loadTrackInfo();
+        saveDuration(mediaPlayer.getDuration());
+
+        startForeground(1, createNotification(musicData.getTitle(), musicData.getArtist()));
+
+        notifyOnTrackChanged();
+        onPlaybackStateChanged();
+    }
+
+    private void releaseNextPlayer() {
+        if (nextMediaPlayer != null) {
+            nextMediaPlayer.release();
+            nextMediaPlayer = null;
+        }
+
+        nextMusicData = null;
+        nextPrepared = false;
+    }
+
+    private static boolean isSameTrack(MusicData a, MusicData b) {
+        return b != null && a.getPath().equals(b.getPath());
+    }
+
+    /**
+     * O prepare roda em streamingThread; o start, a normalização e os avisos voltam para a
+     * thread principal em {@link #onStreamingPrepared}. Enquanto isso o estado é "preparando",
+     * como no prepareAsync do MediaPlayer, e o streamingPlayer não é tocado por aqui.
+     */
+    private void playStreaming(MusicData data) {
+        if (data != null) {
+            musicData = data;
+        }
+
+        if (musicData == null) {
+            return;
+        }
+
+        MusicData track = musicData;
+        StreamingPlayer player = streamingPlayer;
+        int request = ++streamingRequest;
+
+        preparing = true;
+        startWhenPrepared = true;
+        seekWhenPreparedMs = -1;
+
+        startForeground(1, createNotification(track.getTitle(), track.getArtist()));
+
+        loadTrackInfo();
+        TrackInfo hint = trackInfo;
+        onPlaybackStateChanged();
+
+        streamingHandler.post(() -> {
+            boolean ok = prepareStreaming(player, track, hint);
+            commandHandler.post(() -> onStreamingPrepared(request, ok));
+        });
+    }
+
+    // streamingThread
+    private boolean prepareStreaming(StreamingPlayer player, MusicData track, TrackInfo hint) {
+        try {
+            if (track.getPath().contains("android.resource://")) {
+                Uri uri = Uri.parse(track.getPath());
+                player.setDataSource(getApplicationContext(), uri);
+            } else {
+                player.setDataSource(track.getPath());
+            }
+
+            if (hint != null && hint.hasFormat()) {
+                player.setOutputFormatHint(hint.getSampleRate(), hint.getChannelCount());
+            }
+
+            player.prepare();
+            return true;
+        } catch (IOException e) {
+            ExceptionUtils.printStackTrace(e);
+            return false;
+        }
+    }
+
+    private void onStreamingPrepared(int request, boolean ok) {
+        // Outro play() ou uma troca de motor chegou antes: o resultado é de um pedido antigo
+        if (request != streamingRequest) {
+            return;
+        }
+
+        preparing = false;
+
+        if (!ok) {
+            onPlaybackStateChanged();
+            return;
+        }
+
+        saveDuration(streamingPlayer.getDuration());
+        applyLoudness();
+
+        if (seekWhenPreparedMs >= 0) {
+            streamingPlayer.seekTo(seekWhenPreparedMs);
+            seekWhenPreparedMs = -1;
+        }
+
+        if (startWhenPrepared) {
+            streamingPlayer.start();
+        }
+
+        notifyOnTrackChanged();
+        onPlaybackStateChanged();
+    }
+
+    /**
+     * Libera o streamingPlayer em streamingThread, depois de um prepare que ainda esteja rodando.
+     */
+    private void releaseStreamingPlayer() {
+        if (streamingPlayer == null) {
+            return;
+        }
+
+        StreamingPlayer released = streamingPlayer;
+        streamingPlayer = null;
+        streamingRequest++;
+        streamingHandler.post(released::release);
+    }
+
     private void pausePlayback() {
         if (isPlaying()) {
-            progressHandler.removeCallbacks(progressRunnable);
-            mediaPlayer.pause();
+            if (engine == ENGINE_AUDIO_TRACK) {
+                streamingPlayer.pause();
+            } else {
+                mediaPlayer.pause();
+            }
+        } else if (preparing) {
+            startWhenPrepared = false;
         }
+
+        onPlaybackStateChanged();
     }
 
     private void stopPlayback() {
         if (isPlaying()) {
-            progressHandler.removeCallbacks(progressRunnable);
-            mediaPlayer.stop();
+            if (engine == ENGINE_AUDIO_TRACK) {
+                streamingPlayer.stop();
+            } else {
+                mediaPlayer.stop();
+                prepared = false;
+            }
+        } else if (preparing && engine == ENGINE_AUDIO_TRACK) {
+            // O prepare em segundo plano não pode ser interrompido: a faixa só não começa
+            startWhenPrepared = false;
+        } else if (preparing) {
+            // Cancela o prepareAsync em andamento
+            mediaPlayer.reset();
+            preparing = false;
+        }
+
+        onPlaybackStateChanged();
+    }
+
+    /**
+     * Troca o motor de reprodução. A música atual é interrompida; a próxima chamada de play
+     * já usa o novo motor.
+     */
+    private void setEngine(int newEngine, int bufferSizeMs) {
+        stopPlayback();
+        releaseNextPlayer();
+
+        if (streamingPlayer != null) {
+            releaseStreamingPlayer();
+            preparing = false;
+        }
+
+        engine = newEngine == ENGINE_AUDIO_TRACK ? ENGINE_AUDIO_TRACK : ENGINE_MEDIA_PLAYER;
+
+        if (engine == ENGINE_AUDIO_TRACK) {
+            streamingPlayer = new StreamingPlayer(bufferSizeMs);
+            streamingPlayer.setPreset(presetStore.getSelected());
+            streamingPlayer.setOnCompletionListener(player -> {
+                onPlaybackStateChanged();
+                notifyOnMusicComplete();
+            });
+            // O player descarta resultados de faixas anteriores: musicData é a faixa medida
+            streamingPlayer.setOnLoudnessMeasuredListener((player, integratedLufs, gainDb) -> {
+                if (musicData != null) {
+                    trackInfoCache.putLoudness(musicData.getPath(), integratedLufs, gainDb);
+                }
+            });
+            // Formato real do decoder, usado como palpite no próximo prepare da faixa
+            streamingPlayer.setOnOutputFormatListener((player, sampleRate, channelCount) -> {
+                if (musicData != null) {
+                    trackInfoCache.putFormat(musicData.getPath(), sampleRate, channelCount);
+                }
+            });
+        }
+    }
+
+    /**
+     * Começa a faixa atual com o que o LRU do {@link TrackInfoCache} já tem e pede os dados do
+     * disco, que chegam em {@link #onTrackInfoLoaded}.
+     */
+    private void loadTrackInfo() {
+        trackInfo = trackInfoCache.peek(musicData.getPath());
+        trackInfoCache.get(musicData.getPath(), this::onTrackInfoLoaded);
+    }
+
+    private void saveDuration(int durationMs) {
+        if (durationMs > 0) {
+            trackInfoCache.putDuration(musicData.getPath(), durationMs);
+        }
+    }
+
+    /**
+     * Normaliza a faixa com o ganho salvo. Na primeira vez ela toca sem normalização e é medida
+     * durante a reprodução; a partir da próxima, o ganho vem do {@link TrackInfoCache} (enquanto
+     * o arquivo não mudar). Aqui só vale o que estava no LRU; o ganho lido do disco entra em
+     * {@link #onTrackInfoLoaded}.
+     */
+    private void applyLoudness() {
+        if (trackInfo != null && trackInfo.hasLoudness()) {
+            streamingPlayer.setLoudnessGainDb(trackInfo.getGainDb());
+        } else {
+            streamingPlayer.setLoudnessGainDb(0f);
+            streamingPlayer.measureLoudness();
+        }
+    }
+
+    /**
+     * Resultado do disco para a faixa atual. O ganho salvo substitui a medição (a mudança é
+     * interpolada no próximo buffer); sem ganho válido (o arquivo mudou desde que entrou no LRU),
+     * a faixa volta a tocar sem normalização. A duração guardada já vale durante o prepareAsync.
+     */
+    private void onTrackInfoLoaded(String path, TrackInfo info) {
+        if (musicData == null || !musicData.getPath().equals(path)) {
+            return;
+        }
+
+        trackInfo = info;
+
+        if (engine == ENGINE_AUDIO_TRACK && streamingPlayer != null) {
+            if (info != null && info.hasLoudness()) {
+                streamingPlayer.cancelLoudnessMeasurement();
+                streamingPlayer.setLoudnessGainDb(info.getGainDb());
+            } else {
+                streamingPlayer.setLoudnessGainDb(0f);
+            }
+        }
+
+        publishState();
+    }
+
+    private void setEqualizerPreset(String name) {
+        if (!EqualizerPreset.isValidName(name)) {
+            return;
+        }
+
+        presetStore.select(name);
+
+        if (streamingPlayer != null) {
+            streamingPlayer.setPreset(presetStore.get(name));
+        }
+    }
+
+    private void setCustomEqualizer(float[] gainsDb) {
+        presetStore.saveCustom(gainsDb);
+
+        // Os ganhos do slider vão direto para o equalizador, sem passar pelo cache de curvas
+        if (streamingPlayer != null) {
+            streamingPlayer.setBandGains(gainsDb);
         }
     }
 
@@ -298,25 +864,109 @@ public class AudioService extends Service {
     }
 
     private void seekTo(int position) {
-        if (mediaPlayer != null) {
+        if (engine == ENGINE_AUDIO_TRACK && preparing) {
+            seekWhenPreparedMs = position;
+        } else if (engine == ENGINE_AUDIO_TRACK) {
+            streamingPlayer.seekTo(position);
+        } else if (mediaPlayer != null) {
             mediaPlayer.seekTo(position);
         }
+
+        onPlaybackStateChanged();
     }
 
     private void resumePlayback() {
-        if (mediaPlayer != null && !mediaPlayer.isPlaying()) {
+        if (preparing) {
+            startWhenPrepared = true;
+        } else if (engine == ENGINE_AUDIO_TRACK) {
+            if (!streamingPlayer.isPlaying()) {
+                streamingPlayer.start();
+            }
+        } else if (mediaPlayer != null && !mediaPlayer.isPlaying()) {
             mediaPlayer.start();
-            progressHandler.post(progressRunnable);
         }
+
+        onPlaybackStateChanged();
     }
 
     @VisibleForTesting
     boolean isPlaying() {
+        if (engine == ENGINE_AUDIO_TRACK) {
+            return !preparing && streamingPlayer != null && streamingPlayer.isPlaying();
+        }
+
         return mediaPlayer != null && mediaPlayer.isPlaying();
     }
 
+    private int getDuration() {
+        int duration = 0;
+
+        if (engine == ENGINE_AUDIO_TRACK) {
+            duration = preparing ? 0 : streamingPlayer.getDuration();
+        } else if (prepared && mediaPlayer != null) {
+            duration = mediaPlayer.getDuration();
+        }
+
+        // Antes do prepare (ou sem duração no contêiner), a de uma reprodução anterior
+        if (duration <= 0 && trackInfo != null && trackInfo.hasDuration()) {
+            duration = (int) trackInfo.getDurationMs();
+        }
+
+        return duration;
+    }
+
+    private int getCurrentPosition() {
+        if (engine == ENGINE_AUDIO_TRACK) {
+            return preparing ? 0 : streamingPlayer.getCurrentPosition();
+        }
+
+        return prepared && mediaPlayer != null ? mediaPlayer.getCurrentPosition() : 0;
+    }
+
     private void setStreamVolume(int volume) {
         audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, volume, AudioManager.FLAG_SHOW_UI);
+        publishState();
+    }
+
+    /**
+     * Play, pause, stop, seek ou troca de música: avisa os assinantes da posição e atualiza o
+     * bloco de estado compartilhado.
+     */
+    private void onPlaybackStateChanged() {
+        progressScheduler.onPlaybackStateChanged();
+        publishState();
+    }
+
+    /**
+     * Escreve o estado atual no bloco compartilhado. A posição vai junto com o uptime em que foi
+     * lida; o cliente extrapola enquanto o estado for STATE_PLAYING.
+     */
+    private void publishState() {
+        if (stateBlock == null) {
+            return;
+        }
+
+        int state;
+        int duration = 0;
+
+        if (isPlaying()) {
+            state = PlaybackStateBlock.STATE_PLAYING;
+        } else if (preparing) {
+            state = PlaybackStateBlock.STATE_PREPARING;
+        } else if (musicData != null && (prepared || engine == ENGINE_AUDIO_TRACK)) {
+            state = PlaybackStateBlock.STATE_PAUSED;
+        } else {
+            state = PlaybackStateBlock.STATE_STOPPED;
+        }
+
+        if (state != PlaybackStateBlock.STATE_STOPPED) {
+            duration = getDuration();
+        }
+
+        stateBlock.write(state, getCurrentPosition(), SystemClock.uptimeMillis(), duration,
+                audioManager.getStreamVolume(AudioManager.STREAM_MUSIC),
+                audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC),
+                trackId);
     }
 
     private void notifyOnMusicComplete() {
@@ -333,16 +983,15 @@ public class AudioService extends Service {
         playbackCallback.finishBroadcast();
     }
 
-    private void notifyOnMusicProgressUpdate(int position) {
+    private void notifyOnTrackChanged() {
+        trackId++;
+
+        int duration = getDuration();
         int items = playbackCallback.beginBroadcast();
 
         for (int i = 0; i < items; i++) {
             try {
-                playbackCallback.getBroadcastItem(i).onProgress(
-                        musicData.getTitle(),
-                        musicData.getArtist(),
-                        position
-                );
+                playbackCallback.getBroadcastItem(i).onTrackChanged(musicData, duration);
             } catch (RemoteException e) {
                 ExceptionUtils.printStackTrace(e);
             }
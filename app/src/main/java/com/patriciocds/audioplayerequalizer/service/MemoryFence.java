@@ -0,0 +1,62 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import android.annotation.SuppressLint;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Barreiras de memória de hardware para o seqlock do {@link PlaybackStateBlock}. Os acessos ao
+ * bloco mapeado são leituras/escritas comuns de {@link java.nio.ByteBuffer}, que o compilador e o
+ * processador podem reordenar; um campo volátil do objeto Java não ajuda (no arm64 vira
+ * {@code stlr}/{@code ldar}, que só ordenam o próprio acesso, e no cliente é outro objeto, em
+ * outro processo). As barreiras aqui valem para qualquer memória, inclusive a compartilhada.
+ *
+ * <p>Usa {@code std::atomic_thread_fence} pela biblioteca nativa, já presente no app (o
+ * {@code VarHandle} só existe a partir do Android 13, e o minSdk é 27).
+ */
+final class MemoryFence {
+
+    private static final boolean NATIVE;
+
+    static {
+        boolean loaded;
+        try {
+            System.loadLibrary("audio-equalizer-lib");
+            loaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            // Só nos testes JVM sem a build de host da biblioteca
+            loaded = false;
+        }
+        NATIVE = loaded;
+    }
+
+    private MemoryFence() { }
+
+    /**
+     * Leituras antes da barreira não são reordenadas com leituras/escritas depois dela.
+     */
+    @SuppressLint("NewApi")
+    static void acquire() {
+        if (NATIVE) {
+            nativeAcquireFence();
+        } else {
+            VarHandle.acquireFence();
+        }
+    }
+
+    /**
+     * Leituras/escritas antes da barreira não são reordenadas com escritas depois dela.
+     */
+    @SuppressLint("NewApi")
+    static void release() {
+        if (NATIVE) {
+            nativeReleaseFence();
+        } else {
+            VarHandle.releaseFence();
+        }
+    }
+
+    private static native void nativeAcquireFence();
+
+    private static native void nativeReleaseFence();
+}
@@ -1,17 +1,28 @@
 package com.patriciocds.audioplayerequalizer.service;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import androidx.annotation.NonNull;
 
 import com.google.gson.Gson;
 
-public class MusicData {
+/**
+ * Metadados de uma música. Trafega entre a UI e o {@link AudioService} como Parcelable
+ * (extras de Intent e AIDL); o JSON fica só para compatibilidade com quem ainda envia o path
+ * serializado.
+ */
+public class MusicData implements Parcelable {
+
+    // Gson é thread-safe; criar um por chamada refaz a descoberta dos adapters por reflexão
+    private static final Gson GSON = new Gson();
 
     private final String title;
     private final String artist;
     private final String path;
 
     public static MusicData make(String jsonData) {
-        return (new Gson()).fromJson(jsonData, MusicData.class);
+        return GSON.fromJson(jsonData, MusicData.class);
     }
 
     public MusicData(String title, String artist, String path) {
@@ -20,6 +31,12 @@ public class MusicData {
         this.path = path;
     }
 
+    protected MusicData(Parcel in) {
+        title = in.readString();
+        artist = in.readString();
+        path = in.readString();
+    }
+
     public String getTitle() {
         return title;
     }
@@ -32,9 +49,33 @@ public class MusicData {
         return path;
     }
 
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+        dest.writeString(title);
+        dest.writeString(artist);
+        dest.writeString(path);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<MusicData> CREATOR = new Creator<MusicData>() {
+        @Override
+        public MusicData createFromParcel(Parcel in) {
+            return new MusicData(in);
+        }
+
+        @Override
+        public MusicData[] newArray(int size) {
+            return new MusicData[size];
+        }
+    };
+
     @NonNull
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return GSON.toJson(this);
     }
 }
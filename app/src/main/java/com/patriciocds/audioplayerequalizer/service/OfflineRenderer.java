@@ -0,0 +1,459 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+
+import com.patriciocds.audioplayerequalizer.util.AudioEqualizer;
+import com.patriciocds.audioplayerequalizer.util.EqualizerCoefficients;
+import com.patriciocds.audioplayerequalizer.util.EqualizerPreset;
+import com.patriciocds.audioplayerequalizer.util.ExceptionUtils;
+import com.patriciocds.audioplayerequalizer.util.ParallelEqualizer;
+import com.patriciocds.audioplayerequalizer.util.PcmFormat;
+import com.patriciocds.audioplayerequalizer.util.WavWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renderização offline: decodifica um {@link MusicData}, passa pelo {@link AudioEqualizer} com a
+ * curva de um preset e grava um WAV, sem AudioTrack e sem esperar o tempo real. Cada faixa roda
+ * inteira em uma thread do pool (uma faixa por núcleo, por padrão), com o próprio decoder e
+ * equalizador; o PCM é equalizado em blocos grandes ({@link #BLOCK_MS} ms) para a travessia JNI
+ * pesar pouco. O desempenho é informado em "x tempo real" (duração do áudio / tempo gasto).
+ *
+ * <p>Com poucas faixas longas, o pool fica ocioso: com {@code chunkParallelism} > 1 cada faixa
+ * também divide a equalização entre núcleos ({@link ParallelEqualizer}), em blocos de
+ * {@code chunkParallelism} chunks. A decodificação continua em uma thread só.
+ *
+ * <p>O WAV sai no formato do decoder: float quando ele aceita entregar float, 16 bits caso
+ * contrário. A curva é a mesma da reprodução ({@link StreamingPlayer#BAND_FREQUENCIES}, com o
+ * headroom automático).
+ */
+public class OfflineRenderer {
+
+    /** Tamanho dos blocos equalizados de uma vez. */
+    public static final int BLOCK_MS = 500;
+
+    // Só a saída espera: sem AudioTrack, o decoder nunca deve ficar parado por falta de entrada
+    private static final long CODEC_TIMEOUT_US = 10_000;
+
+    /**
+     * Resultado de uma faixa.
+     */
+    public static final class Result {
+
+        private final MusicData source;
+        private final File output;
+        private final PcmFormat format;
+        private final long frames;
+        private final long elapsedNanos;
+
+        Result(MusicData source, File output, PcmFormat format, long frames, long elapsedNanos) {
+            this.source = source;
+            this.output = output;
+            this.format = format;
+            this.frames = frames;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public MusicData getSource() {
+            return source;
+        }
+
+        public File getOutput() {
+            return output;
+        }
+
+        public PcmFormat getFormat() {
+            return format;
+        }
+
+        public long getFrameCount() {
+            return frames;
+        }
+
+        public double getAudioSeconds() {
+            return format != null ? (double) frames / format.getSampleRate() : 0;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return segundos de áudio renderizados por segundo gasto nesta faixa
+         */
+        public double getRealTimeFactor() {
+            return elapsedNanos > 0 ? getAudioSeconds() / (elapsedNanos / 1e9) : 0;
+        }
+    }
+
+    /**
+     * Resultado de um lote: as faixas na ordem pedida e o tempo total, que com várias threads é
+     * menor que a soma dos tempos de cada faixa.
+     */
+    public static final class BatchResult {
+
+        private final List<Result> results;
+        private final long elapsedNanos;
+
+        BatchResult(List<Result> results, long elapsedNanos) {
+            this.results = results;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<Result> getResults() {
+            return results;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getAudioSeconds() {
+            double seconds = 0;
+            for (Result result : results) {
+                seconds += result.getAudioSeconds();
+            }
+            return seconds;
+        }
+
+        /**
+         * @return segundos de áudio do lote inteiro por segundo de relógio
+         */
+        public double getRealTimeFactor() {
+            return elapsedNanos > 0 ? getAudioSeconds() / (elapsedNanos / 1e9) : 0;
+        }
+    }
+
+    private final Context context;
+    private final ExecutorService executor;
+    private final int chunkParallelism;
+
+    /**
+     * Uma thread por núcleo.
+     */
+    public OfflineRenderer(Context context) {
+        this(context, Runtime.getRuntime().availableProcessors());
+    }
+
+    public OfflineRenderer(Context context, int threadCount) {
+        this(context, threadCount, 1);
+    }
+
+    /**
+     * @param chunkParallelism núcleos usados para equalizar cada faixa; 1 equaliza na thread da
+     *                         faixa. Para uma faixa só, algo como {@code (context, 1, núcleos)}.
+     */
+    public OfflineRenderer(Context context, int threadCount, int chunkParallelism) {
+        if (threadCount <= 0 || chunkParallelism <= 0) {
+            throw new IllegalArgumentException("threadCount e chunkParallelism devem ser positivos");
+        }
+
+        this.context = context.getApplicationContext();
+        this.chunkParallelism = chunkParallelism;
+        this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "OfflineRenderer");
+            // Não disputa CPU com a UI nem com uma reprodução em andamento
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Agenda uma faixa. O {@link Future} falha com a {@link IOException} do decoder ou da
+     * gravação; cancelá-lo interrompe a renderização e deixa o WAV incompleto.
+     */
+    public Future<Result> render(MusicData source, EqualizerPreset preset, File output) {
+        return executor.submit(() -> renderTrack(source, preset, output));
+    }
+
+    /**
+     * Renderiza todas as faixas em {@code outputDir} ("título-índice.wav") e espera o lote
+     * terminar.
+     *
+     * @throws IOException a primeira falha do lote, depois que todas as faixas terminaram
+     */
+    public BatchResult renderAll(List<MusicData> sources, EqualizerPreset preset, File outputDir)
+            throws IOException, InterruptedException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Não foi possível criar " + outputDir);
+        }
+
+        long start = System.nanoTime();
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (int i = 0; i < sources.size(); i++) {
+            futures.add(render(sources.get(i), preset, new File(outputDir, outputName(sources.get(i), i))));
+        }
+
+        List<Result> results = new ArrayList<>();
+        IOException failure = null;
+
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause()
+                            : new IOException(e.getCause());
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        return new BatchResult(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Interrompe as faixas em andamento e libera as threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String outputName(MusicData source, int index) {
+        String title = source.getTitle() != null ? source.getTitle().replaceAll("[^\\w\\- ]", "_").trim() : "";
+        return (title.isEmpty() ? "track" : title) + "-" + index + ".wav";
+    }
+
+    private Result renderTrack(MusicData source, EqualizerPreset preset, File output) throws IOException {
+        long start = System.nanoTime();
+
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        AudioEqualizer equalizer = new AudioEqualizer();
+        ParallelEqualizer parallel = null;
+        WavWriter writer = null;
+
+        try {
+            setDataSource(extractor, source);
+            MediaFormat format = selectAudioTrack(extractor);
+
+            if (format == null) {
+                throw new IOException("Nenhuma trilha de áudio em " + source.getPath());
+            }
+
+            // Mesma cadeia em float da reprodução, quando o decoder aceita
+            format.setInteger(MediaFormat.KEY_PCM_ENCODING, AudioFormat.ENCODING_PCM_FLOAT);
+
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            ByteBuffer block = null;
+            boolean inputDone = false;
+
+            while (true) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Renderização cancelada");
+                }
+
+                if (!inputDone) {
+                    inputDone = queueInput(extractor, codec);
+                }
+
+                int index = codec.dequeueOutputBuffer(info, CODEC_TIMEOUT_US);
+
+                if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    PcmFormat pcmFormat = pcmFormatOf(codec.getOutputFormat());
+
+                    if (writer == null) {
+                        writer = new WavWriter(output, pcmFormat);
+                        EqualizerCoefficients curve = StreamingPlayer.designCurve(pcmFormat.getSampleRate(),
+                                gainsOf(preset));
+
+                        if (chunkParallelism > 1) {
+                            parallel = new ParallelEqualizer(pcmFormat, curve, chunkParallelism);
+                        } else {
+                            equalizer.create(pcmFormat, StreamingPlayer.BAND_FREQUENCIES.length);
+                            equalizer.setAutoHeadroom(true);
+                            equalizer.load(curve);
+                        }
+
+                        block = ByteBuffer.allocateDirect(blockSize(pcmFormat)).order(ByteOrder.nativeOrder());
+                    } else if (!writer.getFormat().equals(pcmFormat)) {
+                        // Um WAV só tem um formato
+                        throw new IOException("O formato mudou no meio de " + source.getPath());
+                    }
+
+                    continue;
+                }
+
+                if (index < 0) {
+                    continue;
+                }
+
+                ByteBuffer decoded = codec.getOutputBuffer(index);
+
+                if (decoded != null && info.size > 0) {
+                    if (writer == null) {
+                        throw new IOException("Saída do decoder antes do formato em " + source.getPath());
+                    }
+
+                    decoded.position(info.offset);
+                    decoded.limit(info.offset + info.size);
+                    appendToBlock(decoded, block, equalizer, parallel, writer);
+                }
+
+                codec.releaseOutputBuffer(index, false);
+
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    break;
+                }
+            }
+
+            if (writer == null) {
+                throw new IOException("Nenhum áudio decodificado em " + source.getPath());
+            }
+
+            flushBlock(block, equalizer, parallel, writer);
+            writer.close();
+
+            Result result = new Result(source, output, writer.getFormat(), writer.getFrameCount(),
+                    System.nanoTime() - start);
+            writer = null;
+
+            return result;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    ExceptionUtils.printStackTrace(e);
+                }
+            }
+
+            if (codec != null) {
+                codec.release();
+            }
+
+            extractor.release();
+            equalizer.release();
+
+            if (parallel != null) {
+                parallel.close();
+            }
+        }
+    }
+
+    // Junta a saída do decoder em um bloco grande; cada bloco cheio é equalizado e gravado
+    private static void appendToBlock(ByteBuffer decoded, ByteBuffer block, AudioEqualizer equalizer,
+                                      ParallelEqualizer parallel, WavWriter writer) throws IOException {
+        while (decoded.hasRemaining()) {
+            int count = Math.min(decoded.remaining(), block.remaining());
+            int limit = decoded.limit();
+
+            decoded.limit(decoded.position() + count);
+            block.put(decoded);
+            decoded.limit(limit);
+
+            if (!block.hasRemaining()) {
+                flushBlock(block, equalizer, parallel, writer);
+            }
+        }
+    }
+
+    private static void flushBlock(ByteBuffer block, AudioEqualizer equalizer, ParallelEqualizer parallel,
+                                   WavWriter writer) throws IOException {
+        if (block == null || block.position() == 0) {
+            return;
+        }
+
+        block.flip();
+        if (parallel != null) {
+            parallel.process(block, 0, block.limit());
+        } else {
+            equalizer.process(block, 0, block.limit());
+        }
+        writer.write(block);
+        block.clear();
+    }
+
+    // Em paralelo, um chunk por worker em cada bloco
+    private int blockSize(PcmFormat format) {
+        int blockMs = chunkParallelism > 1 ? chunkParallelism * ParallelEqualizer.DEFAULT_CHUNK_MS : BLOCK_MS;
+        int frames = Math.max(1, format.getSampleRate() * blockMs / 1000);
+        return frames * format.getFrameSize();
+    }
+
+    private static float[] gainsOf(EqualizerPreset preset) {
+        float[] presetGains = preset.getGainsDb();
+        float[] gainsDb = new float[StreamingPlayer.BAND_FREQUENCIES.length];
+        System.arraycopy(presetGains, 0, gainsDb, 0, Math.min(presetGains.length, gainsDb.length));
+        return gainsDb;
+    }
+
+    private static PcmFormat pcmFormatOf(MediaFormat format) {
+        boolean isFloat = format.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                && format.getInteger(MediaFormat.KEY_PCM_ENCODING) == AudioFormat.ENCODING_PCM_FLOAT;
+
+        return new PcmFormat(format.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                format.getInteger(MediaFormat.KEY_CHANNEL_COUNT),
+                isFloat ? PcmFormat.ENCODING_PCM_FLOAT : PcmFormat.ENCODING_PCM_16BIT,
+                PcmFormat.LAYOUT_INTERLEAVED);
+    }
+
+    private void setDataSource(MediaExtractor extractor, MusicData source) throws IOException {
+        if (source.getPath().contains("android.resource://")) {
+            extractor.setDataSource(context, Uri.parse(source.getPath()), null);
+        } else {
+            extractor.setDataSource(source.getPath());
+        }
+    }
+
+    private static MediaFormat selectAudioTrack(MediaExtractor extractor) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat format = extractor.getTrackFormat(i);
+            String mime = format.getString(MediaFormat.KEY_MIME);
+
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(i);
+                return format;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true quando o fim do arquivo foi enviado ao decoder
+     */
+    private static boolean queueInput(MediaExtractor extractor, MediaCodec codec) {
+        int index = codec.dequeueInputBuffer(0);
+
+        if (index < 0) {
+            return false;
+        }
+
+        ByteBuffer input = codec.getInputBuffer(index);
+        int size = input != null ? extractor.readSampleData(input, 0) : -1;
+
+        if (size < 0) {
+            codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            return true;
+        }
+
+        codec.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+        extractor.advance();
+        return false;
+    }
+}
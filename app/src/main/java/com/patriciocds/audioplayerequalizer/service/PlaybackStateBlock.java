@@ -0,0 +1,203 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SharedMemory;
+import android.system.ErrnoException;
+import android.system.OsConstants;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Pequeno bloco de estado da reprodução em memória compartilhada ({@link SharedMemory}).
+ * O serviço escreve a cada mudança (play, pause, seek, troca de música, volume) e o cliente lê
+ * sem nenhuma chamada de binder; o bloco é entregue uma única vez, ao vincular.
+ *
+ * <p>A consistência entre os campos é garantida por um seqlock: o escritor deixa a sequência
+ * ímpar enquanto escreve e o leitor repete a leitura se a sequência mudou ou estava ímpar.
+ * Há um único escritor (a thread principal do serviço). A ordem entre a sequência e os campos é
+ * garantida por barreiras de hardware ({@link MemoryFence}), que valem entre processos.
+ */
+public class PlaybackStateBlock implements Parcelable {
+
+    public static final int STATE_STOPPED = 0;
+    public static final int STATE_PLAYING = 1;
+    public static final int STATE_PAUSED = 2;
+    public static final int STATE_PREPARING = 3;
+
+    // Layout do bloco (ordem nativa; o long fica alinhado em 8)
+    private static final int OFFSET_SEQUENCE = 0;
+    private static final int OFFSET_STATE = 4;
+    private static final int OFFSET_POSITION_UPTIME = 8;
+    private static final int OFFSET_POSITION = 16;
+    private static final int OFFSET_DURATION = 20;
+    private static final int OFFSET_VOLUME = 24;
+    private static final int OFFSET_MAX_VOLUME = 28;
+    private static final int OFFSET_TRACK_ID = 32;
+
+    static final int SIZE = 64;
+
+    private static final int MAX_READ_ATTEMPTS = 64;
+
+    /** Cópia consistente do bloco; reutilizável para não alocar a cada leitura. */
+    public static final class Snapshot {
+        public int state;
+        public int positionMs;
+        public long positionUptimeMs;
+        public int durationMs;
+        public int volume;
+        public int maxVolume;
+        // Incrementado a cada troca de música
+        public int trackId;
+
+        public boolean isPlaying() {
+            return state == STATE_PLAYING;
+        }
+
+        /**
+         * Posição extrapolada para o uptime informado (só avança durante a reprodução).
+         */
+        public int estimatePosition(long uptimeMs) {
+            if (!isPlaying()) {
+                return positionMs;
+            }
+
+            long position = positionMs + Math.max(0, uptimeMs - positionUptimeMs);
+            return (int) (durationMs > 0 ? Math.min(position, durationMs) : position);
+        }
+    }
+
+    private final SharedMemory sharedMemory;
+    private final ByteBuffer buffer;
+    private int sequence;
+
+    /**
+     * Cria o bloco no serviço (leitura e escrita). Os clientes só conseguem mapeá-lo para leitura.
+     */
+    public static PlaybackStateBlock create() throws ErrnoException {
+        SharedMemory memory = SharedMemory.create("playback-state", SIZE);
+        ByteBuffer mapped = memory.mapReadWrite();
+        memory.setProtect(OsConstants.PROT_READ);
+
+        return new PlaybackStateBlock(memory, mapped);
+    }
+
+    @VisibleForTesting
+    PlaybackStateBlock(SharedMemory sharedMemory, ByteBuffer buffer) {
+        this.sharedMemory = sharedMemory;
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+    }
+
+    protected PlaybackStateBlock(Parcel in) {
+        sharedMemory = in.readParcelable(SharedMemory.class.getClassLoader());
+
+        ByteBuffer mapped;
+        try {
+            mapped = sharedMemory.mapReadOnly();
+        } catch (ErrnoException e) {
+            throw new IllegalStateException("Não foi possível mapear o estado da reprodução", e);
+        }
+
+        buffer = mapped.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Publica um novo estado. Só o serviço (dono do mapeamento de escrita) pode chamar.
+     */
+    public void write(int state, int positionMs, long positionUptimeMs, int durationMs,
+                      int volume, int maxVolume, int trackId) {
+        buffer.putInt(OFFSET_SEQUENCE, ++sequence);
+        // A sequência ímpar fica visível antes de qualquer campo novo
+        MemoryFence.release();
+
+        buffer.putInt(OFFSET_STATE, state);
+        buffer.putLong(OFFSET_POSITION_UPTIME, positionUptimeMs);
+        buffer.putInt(OFFSET_POSITION, positionMs);
+        buffer.putInt(OFFSET_DURATION, durationMs);
+        buffer.putInt(OFFSET_VOLUME, volume);
+        buffer.putInt(OFFSET_MAX_VOLUME, maxVolume);
+        buffer.putInt(OFFSET_TRACK_ID, trackId);
+
+        // Todos os campos ficam visíveis antes da sequência par
+        MemoryFence.release();
+        buffer.putInt(OFFSET_SEQUENCE, ++sequence);
+    }
+
+    /**
+     * Copia o estado para out. Retorna false (sem alterar out) se não conseguiu uma leitura
+     * consistente, o que só acontece com o escritor publicando sem parar.
+     */
+    public boolean read(Snapshot out) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            int before = buffer.getInt(OFFSET_SEQUENCE);
+            // Os campos são lidos depois da primeira leitura da sequência...
+            MemoryFence.acquire();
+
+            if ((before & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+
+            int state = buffer.getInt(OFFSET_STATE);
+            long positionUptimeMs = buffer.getLong(OFFSET_POSITION_UPTIME);
+            int positionMs = buffer.getInt(OFFSET_POSITION);
+            int durationMs = buffer.getInt(OFFSET_DURATION);
+            int volume = buffer.getInt(OFFSET_VOLUME);
+            int maxVolume = buffer.getInt(OFFSET_MAX_VOLUME);
+            int trackId = buffer.getInt(OFFSET_TRACK_ID);
+
+            // ...e antes da segunda
+            MemoryFence.acquire();
+
+            if (buffer.getInt(OFFSET_SEQUENCE) == before) {
+                out.state = state;
+                out.positionUptimeMs = positionUptimeMs;
+                out.positionMs = positionMs;
+                out.durationMs = durationMs;
+                out.volume = volume;
+                out.maxVolume = maxVolume;
+                out.trackId = trackId;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Desfaz o mapeamento e fecha o descritor. O bloco não pode mais ser usado.
+     */
+    public void close() {
+        SharedMemory.unmap(buffer);
+
+        if (sharedMemory != null) {
+            sharedMemory.close();
+        }
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+        dest.writeParcelable(sharedMemory, flags);
+    }
+
+    @Override
+    public int describeContents() {
+        return CONTENTS_FILE_DESCRIPTOR;
+    }
+
+    public static final Creator<PlaybackStateBlock> CREATOR = new Creator<PlaybackStateBlock>() {
+        @Override
+        public PlaybackStateBlock createFromParcel(Parcel in) {
+            return new PlaybackStateBlock(in);
+        }
+
+        @Override
+        public PlaybackStateBlock[] newArray(int size) {
+            return new PlaybackStateBlock[size];
+        }
+    };
+}
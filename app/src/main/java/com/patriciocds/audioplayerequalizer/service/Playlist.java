@@ -0,0 +1,269 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import android.content.Context;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Fila de reprodução carregada de uma lista JSON no formato de res/raw/music_dataset.json.
+ *
+ * <p>O JSON é lido em streaming ({@link JsonReader}), sem montar a árvore de objetos, e as
+ * faixas ficam em arrays paralelos; um {@link MusicData} só é criado para a faixa pedida.
+ * next/previous/shuffle trabalham sobre um array de índices, sem reler o arquivo.
+ */
+public class Playlist {
+
+    private static final String RESOURCE_SCHEME = "android.resource://";
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String packageName;
+
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] artists = new String[INITIAL_CAPACITY];
+    private String[] paths = new String[INITIAL_CAPACITY];
+    private int size;
+
+    // Ordem de reprodução (índices nos arrays acima) e posição atual nela
+    private int[] order = new int[0];
+    private int position;
+    private boolean shuffle;
+
+    /**
+     * @param packageName usado para montar a URI das faixas que são só o nome de um recurso raw
+     */
+    public Playlist(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Carrega um recurso raw, ignorando faixas cujo recurso não existe no APK.
+     */
+    public static Playlist fromRawResource(Context context, int resId) throws IOException {
+        Playlist playlist = new Playlist(context.getPackageName());
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                context.getResources().openRawResource(resId), StandardCharsets.UTF_8))) {
+            playlist.load(reader);
+        }
+
+        playlist.removeMissingResources(context);
+        return playlist;
+    }
+
+    /**
+     * Acrescenta as faixas de um array JSON [{"title", "artist", "path"}, ...]. Campos
+     * desconhecidos são ignorados e faixas sem path são descartadas.
+     */
+    public void load(Reader source) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+            String title = null;
+            String artist = null;
+            String path = null;
+
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+
+                switch (name) {
+                    case "title":
+                        title = reader.nextString();
+                        break;
+                    case "artist":
+                        artist = reader.nextString();
+                        break;
+                    case "path":
+                        path = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+
+            reader.endObject();
+
+            if (path != null) {
+                add(title, artist, path);
+            }
+        }
+
+        reader.endArray();
+
+        shuffle = false;
+        resetOrder();
+    }
+
+    private void add(String title, String artist, String path) {
+        if (size == paths.length) {
+            int capacity = size * 2;
+            titles = Arrays.copyOf(titles, capacity);
+            artists = Arrays.copyOf(artists, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+        }
+
+        titles[size] = title;
+        artists[size] = artist;
+        paths[size] = path;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Faixa no índice original (ordem do arquivo).
+     */
+    public MusicData get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", tamanho " + size);
+        }
+
+        return new MusicData(titles[index], artists[index], resolvePath(paths[index]));
+    }
+
+    /**
+     * Faixa atual na ordem de reprodução, ou null se a fila estiver vazia.
+     */
+    public MusicData current() {
+        return isEmpty() ? null : get(order[position]);
+    }
+
+    /**
+     * Avança (voltando ao início depois da última) e retorna a nova faixa atual.
+     */
+    public MusicData next() {
+        if (isEmpty()) {
+            return null;
+        }
+
+        position = (position + 1) % order.length;
+        return current();
+    }
+
+    public MusicData previous() {
+        if (isEmpty()) {
+            return null;
+        }
+
+        position = (position - 1 + order.length) % order.length;
+        return current();
+    }
+
+    /**
+     * Faixa que next() retornaria, sem avançar. Usada para pré-carregar a próxima música.
+     */
+    public MusicData peekNext() {
+        return isEmpty() ? null : get(order[(position + 1) % order.length]);
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    public void setShuffle(boolean shuffle) {
+        setShuffle(shuffle, new Random());
+    }
+
+    /**
+     * Liga/desliga a ordem aleatória mantendo a faixa atual: ela passa a ser a primeira da nova
+     * ordem (ou volta à sua posição original ao desligar).
+     */
+    public void setShuffle(boolean shuffle, Random random) {
+        if (isEmpty()) {
+            this.shuffle = shuffle;
+            return;
+        }
+
+        int currentIndex = order[position];
+        this.shuffle = shuffle;
+
+        resetOrder();
+
+        if (shuffle) {
+            // Fisher-Yates sobre todos menos a faixa atual, que fica na posição 0
+            order[currentIndex] = order[0];
+            order[0] = currentIndex;
+
+            for (int i = size - 1; i > 1; i--) {
+                int j = 1 + random.nextInt(i);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+
+            position = 0;
+        } else {
+            position = currentIndex;
+        }
+    }
+
+    private void resetOrder() {
+        if (order.length != size) {
+            order = new int[size];
+        }
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        position = Math.min(position, Math.max(0, size - 1));
+    }
+
+    /**
+     * Remove as faixas que apontam para um recurso raw inexistente.
+     */
+    private void removeMissingResources(Context context) {
+        int kept = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (!isResourceName(paths[i])
+                    || context.getResources().getIdentifier(paths[i], "raw", packageName) != 0) {
+                titles[kept] = titles[i];
+                artists[kept] = artists[i];
+                paths[kept] = paths[i];
+                kept++;
+            }
+        }
+
+        Arrays.fill(titles, kept, size, null);
+        Arrays.fill(artists, kept, size, null);
+        Arrays.fill(paths, kept, size, null);
+        size = kept;
+        position = 0;
+        resetOrder();
+    }
+
+    /**
+     * Um path sem esquema nem barra é o nome de um recurso em res/raw.
+     */
+    private static boolean isResourceName(String path) {
+        return !path.contains("://") && !path.startsWith("/");
+    }
+
+    private String resolvePath(String path) {
+        return isResourceName(path) ? RESOURCE_SCHEME + packageName + "/raw/" + path : path;
+    }
+}
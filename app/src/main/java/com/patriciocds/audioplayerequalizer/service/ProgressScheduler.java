@@ -0,0 +1,136 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.RemoteCallbackList;
+import android.os.RemoteException;
+import android.os.SystemClock;
+
+import com.patriciocds.audioplayerequalizer.PlaybackCallback;
+import com.patriciocds.audioplayerequalizer.util.ExceptionUtils;
+
+/**
+ * Envia a posição de reprodução a cada assinante no intervalo que ele pediu. Cada envio é só o
+ * par (posição, uptime) para o cliente extrapolar localmente entre um envio e outro.
+ *
+ * <p>O tick é agendado para o próximo assinante que vence e para de vez quando a reprodução
+ * está parada ou ninguém assinou (ex.: a UI não está visível). Usado só na thread principal.
+ */
+class ProgressScheduler {
+
+    interface PositionSource {
+        boolean isPlaying();
+
+        int getCurrentPosition();
+    }
+
+    private static final class Subscription {
+        final int intervalMs;
+        long nextDueUptimeMs;
+
+        Subscription(int intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tickRunnable = this::tick;
+    private final PositionSource source;
+
+    // O cookie de cada callback é a sua Subscription; a lista remove sozinha clientes mortos
+    private final RemoteCallbackList<PlaybackCallback> subscribers = new RemoteCallbackList<>();
+
+    private Boolean lastPlaying;
+
+    ProgressScheduler(PositionSource source) {
+        this.source = source;
+    }
+
+    /**
+     * @param intervalMs intervalo desejado entre envios; 0 ou negativo cancela a assinatura
+     */
+    void subscribe(PlaybackCallback callback, int intervalMs) {
+        subscribers.unregister(callback);
+
+        if (intervalMs > 0) {
+            // nextDueUptimeMs = 0: o novo assinante recebe a posição atual na hora
+            subscribers.register(callback, new Subscription(intervalMs));
+            lastPlaying = null;
+            tick();
+        }
+    }
+
+    void unsubscribe(PlaybackCallback callback) {
+        subscribers.unregister(callback);
+    }
+
+    /**
+     * Play, pause, stop, seek ou troca de música: todos recebem a nova posição imediatamente
+     * (e o novo estado, se mudou) e o tick é reagendado.
+     */
+    void onPlaybackStateChanged() {
+        int items = subscribers.beginBroadcast();
+
+        for (int i = 0; i < items; i++) {
+            ((Subscription) subscribers.getBroadcastCookie(i)).nextDueUptimeMs = 0;
+        }
+
+        subscribers.finishBroadcast();
+        tick();
+    }
+
+    void release() {
+        handler.removeCallbacks(tickRunnable);
+        subscribers.kill();
+    }
+
+    private void tick() {
+        handler.removeCallbacks(tickRunnable);
+
+        int items = subscribers.beginBroadcast();
+
+        if (items == 0) {
+            subscribers.finishBroadcast();
+            return;
+        }
+
+        boolean playing = source.isPlaying();
+        boolean stateChanged = lastPlaying == null || lastPlaying != playing;
+        lastPlaying = playing;
+
+        long now = SystemClock.uptimeMillis();
+        long nextDue = Long.MAX_VALUE;
+        int position = -1;
+
+        for (int i = 0; i < items; i++) {
+            Subscription subscription = (Subscription) subscribers.getBroadcastCookie(i);
+            PlaybackCallback callback = subscribers.getBroadcastItem(i);
+
+            try {
+                if (stateChanged) {
+                    callback.onPlaybackStateChanged(playing);
+                }
+
+                if (now >= subscription.nextDueUptimeMs) {
+                    if (position < 0) {
+                        position = source.getCurrentPosition();
+                    }
+
+                    callback.onPosition(position, now);
+                    subscription.nextDueUptimeMs = now + subscription.intervalMs;
+                }
+            } catch (RemoteException e) {
+                ExceptionUtils.printStackTrace(e);
+            }
+
+            nextDue = Math.min(nextDue, subscription.nextDueUptimeMs);
+        }
+
+        subscribers.finishBroadcast();
+
+        // Pausado, a posição não muda: o cliente já tem o valor final e não há o que enviar
+        if (playing) {
+            handler.postAtTime(tickRunnable, nextDue);
+        }
+    }
+}
@@ -0,0 +1,1003 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.patriciocds.audioplayerequalizer.util.AudioEqualizer;
+import com.patriciocds.audioplayerequalizer.util.CoefficientCache;
+import com.patriciocds.audioplayerequalizer.util.EqualizerCoefficients;
+import com.patriciocds.audioplayerequalizer.util.EqualizerPreset;
+import com.patriciocds.audioplayerequalizer.util.ExceptionUtils;
+import com.patriciocds.audioplayerequalizer.util.LoudnessMeter;
+import com.patriciocds.audioplayerequalizer.util.PcmFormat;
+import com.patriciocds.audioplayerequalizer.util.PcmRingBuffer;
+import com.patriciocds.audioplayerequalizer.util.SpectrumAnalyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Player alternativo ao MediaPlayer: decodifica com MediaExtractor/MediaCodec, passa o PCM
+ * pelo {@link AudioEqualizer} nativo e escreve em um {@link AudioTrack}.
+ *
+ * <p>O decoder roda em uma thread própria e entrega o PCM por um {@link PcmRingBuffer}; a
+ * thread de renderização (prioridade de áudio) lê do ring, equaliza e escreve no AudioTrack
+ * sem alocar nem esperar pelo decoder. A equalização acontece depois do ring, então a latência
+ * de uma mudança de EQ depende só do buffer do AudioTrack, não da profundidade do ring.
+ *
+ * <p>Por padrão o decoder é configurado para entregar PCM float, e o equalizador e o AudioTrack
+ * seguem o formato que ele realmente entregar: com float, a cadeia decoder → EQ → AudioTrack não
+ * passa por 16 bits em nenhum ponto.
+ *
+ * <p>A normalização de loudness é um pré-ganho do equalizador ({@link #setLoudnessGainDb(float)}),
+ * sem custo por amostra. O ganho de uma faixa nova pode ser medido durante a primeira reprodução
+ * ({@link #measureLoudness()}), na thread do decoder.
+ */
+public class StreamingPlayer {
+
+    public static final int DEFAULT_BUFFER_SIZE_MS = 40;
+    public static final int DEFAULT_RING_BUFFER_MS = 500;
+
+    /** Frequências centrais das bandas: low shelf, três peaking e high shelf. */
+    public static final float[] BAND_FREQUENCIES = {60f, 230f, 910f, 3600f, 14000f};
+
+    private static final int[] BAND_TYPES = {
+            AudioEqualizer.BAND_LOW_SHELF,
+            AudioEqualizer.BAND_PEAKING,
+            AudioEqualizer.BAND_PEAKING,
+            AudioEqualizer.BAND_PEAKING,
+            AudioEqualizer.BAND_HIGH_SHELF
+    };
+    private static final float[] BAND_QS = {0.707f, 1.0f, 1.0f, 1.0f, 0.707f};
+    private static final long CODEC_TIMEOUT_US = 10_000;
+
+    // Espera do decoder com o ring cheio e da renderização com o ring vazio
+    private static final long DECODER_WAIT_NS = 5_000_000;
+    private static final long RENDER_WAIT_NS = 1_000_000;
+
+    public interface OnLoudnessMeasuredListener {
+        /**
+         * Chamado na thread principal quando a faixa medida foi decodificada inteira, do início e
+         * sem seek.
+         *
+         * @param gainDb ganho de normalização ({@link LoudnessMeter#replayGainDb(float, float)})
+         */
+        void onLoudnessMeasured(StreamingPlayer player, float integratedLufs, float gainDb);
+    }
+
+    public interface OnOutputFormatListener {
+        /**
+         * Chamado na thread principal quando o decoder informa o formato real da saída
+         * (INFO_OUTPUT_FORMAT_CHANGED), que pode ser diferente do contêiner (ex.: HE-AAC).
+         */
+        void onOutputFormat(StreamingPlayer player, int sampleRate, int channelCount);
+    }
+
+    public interface OnCompletionListener {
+        void onCompletion(StreamingPlayer player);
+    }
+
+    private final int bufferSizeMs;
+    private final int ringBufferMs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AudioEqualizer equalizer = new AudioEqualizer();
+    private final float[] bandGainsDb = new float[BAND_FREQUENCIES.length];
+    // Curvas por preset e taxa: trocar de preset ou de taxa não recalcula na thread de áudio
+    private final CoefficientCache coefficientCache = new CoefficientCache(CoefficientCache.DEFAULT_CAPACITY);
+    // Preset de bandGainsDb (CUSTOM depois de setBandGains); protegido por equalizerLock
+    private String presetName = EqualizerPreset.FLAT;
+
+    // Protege a criação/liberação do equalizador contra as chamadas de controle (ganhos, análise).
+    // O process() da thread de áudio não usa o lock: só ela cria o equalizador enquanto toca, e os
+    // ganhos chegam até ela sem lock (AudioEqualizer.setBandGains).
+    private final Object equalizerLock = new Object();
+    private final Object stateLock = new Object();
+
+    private OnCompletionListener onCompletionListener;
+    private OnLoudnessMeasuredListener onLoudnessMeasuredListener;
+    private OnOutputFormatListener onOutputFormatListener;
+
+    private MediaExtractor extractor;
+    private MediaCodec codec;
+    private volatile AudioTrack audioTrack;
+    private volatile PcmRingBuffer ringBuffer;
+    private Thread decoderThread;
+    private Thread renderThread;
+
+    // Bloco lido do ring pela thread de renderização; alocado só quando o formato muda
+    private ByteBuffer renderChunk;
+
+    private long durationUs;
+    private int sampleRate;
+    private int channelCount;
+    // PcmFormat.ENCODING_*, do formato de saída do decoder
+    private int encoding;
+
+    // Pede PCM float ao decoder no prepare(); o decoder pode ignorar e entregar 16 bits
+    private boolean floatOutputEnabled = true;
+
+    private volatile boolean playing;
+    private volatile boolean completed;
+    private volatile boolean stopRequested;
+    private volatile boolean decoderDone;
+
+    // Mudança de formato pedida pelo decoder (com o ring vazio) e aplicada pela renderização
+    private volatile boolean formatChangePending;
+    private volatile int pendingSampleRate;
+    private volatile int pendingChannelCount;
+    private volatile int pendingEncoding;
+
+    // Posição (em us) correspondente ao frame 0 do AudioTrack, atualizada a cada seek
+    private volatile long basePositionUs;
+
+    // Analisador pedido pelo visualizador (enableAnalysis), null se desligado. Quem liga e libera
+    // o analisador no equalizador é a thread de áudio (attachedAnalyzer), para o process() nunca
+    // usar um analisador já liberado. Sobrevive às trocas de formato.
+    private volatile SpectrumAnalyzer analyzer;
+    private volatile boolean analyzerChangePending;
+    private SpectrumAnalyzer attachedAnalyzer;
+
+    // Pré-ganho de normalização, mantido entre faixas e reaplicado a cada configureOutput()
+    private float loudnessGainDb;
+    // Usado só pela thread do decoder enquanto ela roda
+    private final LoudnessMeter loudnessMeter = new LoudnessMeter();
+    private volatile boolean measuringLoudness;
+    private boolean decoderStarted;
+    // Muda a cada faixa: um resultado postado para a faixa anterior é descartado
+    private volatile int trackGeneration;
+
+    // Formato de saída esperado para o prepare() (setOutputFormatHint), 0 se não há
+    private int hintSampleRate;
+    private int hintChannelCount;
+
+    public StreamingPlayer() {
+        this(DEFAULT_BUFFER_SIZE_MS, DEFAULT_RING_BUFFER_MS);
+    }
+
+    public StreamingPlayer(int bufferSizeMs) {
+        this(bufferSizeMs, DEFAULT_RING_BUFFER_MS);
+    }
+
+    /**
+     * @param bufferSizeMs tamanho do buffer do AudioTrack (latência de saída)
+     * @param ringBufferMs profundidade do ring entre decoder e renderização
+     */
+    public StreamingPlayer(int bufferSizeMs, int ringBufferMs) {
+        this.bufferSizeMs = bufferSizeMs;
+        this.ringBufferMs = ringBufferMs;
+    }
+
+    public void setOnLoudnessMeasuredListener(OnLoudnessMeasuredListener listener) {
+        onLoudnessMeasuredListener = listener;
+    }
+
+    public void setOnOutputFormatListener(OnOutputFormatListener listener) {
+        onOutputFormatListener = listener;
+    }
+
+    public void setOnCompletionListener(OnCompletionListener listener) {
+        this.onCompletionListener = listener;
+    }
+
+    /**
+     * Liga (padrão) ou desliga o pedido de PCM float ao decoder. Vale a partir do próximo
+     * {@link #prepare()}; desligado, toda a cadeia usa PCM 16 bits.
+     */
+    public void setFloatOutputEnabled(boolean enabled) {
+        this.floatOutputEnabled = enabled;
+    }
+
+    /**
+     * @return codificação em uso ({@link PcmFormat#ENCODING_PCM_16BIT} ou
+     * {@link PcmFormat#ENCODING_PCM_FLOAT}), definida pelo formato de saída do decoder
+     */
+    public int getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return taxa de amostragem da saída (a do decoder), 0 antes do prepare()
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return canais da saída, 0 antes do prepare()
+     */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public void setDataSource(Context context, Uri uri) throws IOException {
+        reset();
+        extractor = new MediaExtractor();
+        extractor.setDataSource(context, uri, null);
+    }
+
+    public void setDataSource(String path) throws IOException {
+        reset();
+        extractor = new MediaExtractor();
+        extractor.setDataSource(path);
+    }
+
+    /**
+     * Formato de saída do decoder já visto em uma reprodução anterior da faixa: o prepare() abre
+     * o AudioTrack e o equalizador nele em vez do formato do contêiner, e o HE-AAC não precisa
+     * recriá-los no primeiro INFO_OUTPUT_FORMAT_CHANGED. Um formato errado é corrigido nesse
+     * momento, como sem o palpite. Deve ser chamado entre setDataSource() e prepare().
+     */
+    public void setOutputFormatHint(int sampleRate, int channelCount) {
+        hintSampleRate = sampleRate;
+        hintChannelCount = channelCount;
+    }
+
+    /**
+     * Seleciona a trilha de áudio e configura o decoder. Bloqueia apenas o tempo de ler o cabeçalho.
+     */
+    public void prepare() throws IOException {
+        if (extractor == null) {
+            throw new IllegalStateException("setDataSource() não foi chamado");
+        }
+
+        MediaFormat format = selectAudioTrack();
+
+        if (format == null) {
+            throw new IOException("Nenhuma trilha de áudio encontrada");
+        }
+
+        durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+        basePositionUs = 0;
+        decoderDone = false;
+        decoderStarted = false;
+        completed = false;
+
+        if (floatOutputEnabled) {
+            format.setInteger(MediaFormat.KEY_PCM_ENCODING, AudioFormat.ENCODING_PCM_FLOAT);
+        }
+
+        codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+        codec.configure(format, null, null, 0);
+        codec.start();
+
+        // O formato de saída definitivo chega em INFO_OUTPUT_FORMAT_CHANGED; até lá usa o palpite
+        // (ou o da trilha) e a codificação que o decoder aceitou na configuração
+        boolean hinted = hintSampleRate > 0 && hintChannelCount > 0;
+        configureOutput(hinted ? hintSampleRate : format.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                hinted ? hintChannelCount : format.getInteger(MediaFormat.KEY_CHANNEL_COUNT),
+                encodingOf(codec.getOutputFormat()));
+    }
+
+    public void start() {
+        if (codec == null) {
+            return;
+        }
+
+        if (completed) {
+            // Assim como no MediaPlayer, um novo start() após o fim recomeça do início
+            seekTo(0);
+        }
+
+        synchronized (stateLock) {
+            playing = true;
+            stateLock.notifyAll();
+        }
+
+        audioTrack.play();
+
+        if (renderThread == null) {
+            stopRequested = false;
+            decoderStarted = true;
+
+            decoderThread = new Thread(this::decoderLoop, "StreamingPlayer-decoder");
+            renderThread = new Thread(this::renderLoop, "StreamingPlayer-render");
+            decoderThread.start();
+            renderThread.start();
+        }
+    }
+
+    public void pause() {
+        synchronized (stateLock) {
+            playing = false;
+        }
+
+        if (audioTrack != null) {
+            audioTrack.pause();
+        }
+    }
+
+    public void stop() {
+        stopThreads();
+
+        if (audioTrack != null) {
+            audioTrack.stop();
+        }
+    }
+
+    /**
+     * Para as threads, reposiciona o extractor e descarta o que estava no ring e no AudioTrack.
+     * Se estava tocando, a reprodução continua da nova posição.
+     */
+    public void seekTo(int positionMs) {
+        if (codec == null) {
+            return;
+        }
+
+        boolean wasPlaying = playing;
+        stopThreads();
+        // A medição precisa da faixa inteira
+        measuringLoudness = false;
+
+        extractor.seekTo(Math.max(0, positionMs) * 1000L, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+        codec.flush();
+        ringBuffer.clear();
+
+        audioTrack.pause();
+        audioTrack.flush();
+        basePositionUs = Math.max(0, extractor.getSampleTime());
+        decoderDone = false;
+        completed = false;
+
+        synchronized (equalizerLock) {
+            equalizer.reset();
+        }
+
+        if (wasPlaying) {
+            start();
+        }
+    }
+
+    public boolean isPlaying() {
+        return playing && renderThread != null;
+    }
+
+    public int getDuration() {
+        return (int) (durationUs / 1000);
+    }
+
+    public int getCurrentPosition() {
+        AudioTrack track = audioTrack;
+
+        if (track == null || sampleRate == 0) {
+            return 0;
+        }
+
+        long playedFrames = track.getPlaybackHeadPosition() & 0xFFFFFFFFL;
+        return (int) ((basePositionUs + playedFrames * 1_000_000L / sampleRate) / 1000);
+    }
+
+    /**
+     * Ring entre decoder e renderização, com nível de preenchimento e contagem de underruns
+     * para ajustar a profundidade do buffer em cada aparelho. Null antes do prepare().
+     */
+    public PcmRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
+    /**
+     * Ganhos (dB) das bandas de {@link #BAND_FREQUENCIES}, interpolados ao longo do próximo buffer.
+     * Pode ser chamado a cada movimento do slider: a thread de áudio não espera por esta chamada.
+     * O resultado passa a ser o preset {@link EqualizerPreset#CUSTOM}.
+     */
+    public void setBandGains(float[] gainsDb) {
+        synchronized (equalizerLock) {
+            System.arraycopy(gainsDb, 0, bandGainsDb, 0, Math.min(gainsDb.length, bandGainsDb.length));
+            presetName = EqualizerPreset.CUSTOM;
+
+            // Tipo, frequência e Q já foram configurados em configureOutput(); só os ganhos mudam
+            if (equalizer.isCreated()) {
+                equalizer.setBandGains(bandGainsDb);
+            }
+        }
+    }
+
+    /**
+     * Troca para um preset. A curva vem do cache quando o preset já foi usado nessa taxa de
+     * amostragem; caso contrário é calculada aqui, na thread de quem chama, nunca na de áudio.
+     */
+    public void setPreset(EqualizerPreset preset) {
+        float[] gainsDb = preset.getGainsDb();
+
+        synchronized (equalizerLock) {
+            Arrays.fill(bandGainsDb, 0f);
+            System.arraycopy(gainsDb, 0, bandGainsDb, 0, Math.min(gainsDb.length, bandGainsDb.length));
+            presetName = preset.getName();
+
+            if (equalizer.isCreated()) {
+                equalizer.load(curveFor(sampleRate));
+            }
+        }
+    }
+
+    /**
+     * Ganho de normalização (dB) aplicado na entrada do equalizador, somado ao headroom sem custo
+     * por amostra. Vale para as próximas faixas até ser trocado; a mudança é interpolada ao longo
+     * do próximo buffer.
+     */
+    public void setLoudnessGainDb(float gainDb) {
+        synchronized (equalizerLock) {
+            loudnessGainDb = gainDb;
+
+            if (equalizer.isCreated()) {
+                equalizer.setPreGainDb(gainDb);
+            }
+        }
+    }
+
+    /**
+     * Mede a loudness da faixa enquanto ela é decodificada (na thread do decoder, antes do
+     * equalizador, sem custo na thread de áudio) e entrega o resultado ao
+     * {@link OnLoudnessMeasuredListener} quando o decoder chega ao fim. Deve ser chamado entre
+     * prepare() e o primeiro start(); um seek ou uma nova faixa cancelam a medição.
+     *
+     * @return false se não há faixa preparada ou ela já começou a ser decodificada
+     */
+    public boolean measureLoudness() {
+        if (codec == null || decoderStarted) {
+            return false;
+        }
+
+        loudnessMeter.create(new PcmFormat(sampleRate, channelCount, encoding, PcmFormat.LAYOUT_INTERLEAVED));
+        measuringLoudness = true;
+        return true;
+    }
+
+    /**
+     * Abandona a medição em andamento, sem resultado (ex.: o ganho da faixa já era conhecido).
+     */
+    public void cancelLoudnessMeasurement() {
+        measuringLoudness = false;
+    }
+
+    /**
+     * Curvas já calculadas, por preset e taxa (contadores de acerto/falta para diagnóstico).
+     */
+    public CoefficientCache getCoefficientCache() {
+        return coefficientCache;
+    }
+
+    /**
+     * Liga a análise de espectro/níveis do áudio equalizado. O resultado é lido com
+     * {@link SpectrumAnalyzer#read(float[])} no analisador retornado, de qualquer thread. Um
+     * analisador ligado antes é substituído (e liberado).
+     */
+    public SpectrumAnalyzer enableAnalysis(int fftSize, int bandCount, float updateRateHz) {
+        SpectrumAnalyzer created = new SpectrumAnalyzer();
+        created.create(fftSize, bandCount, updateRateHz);
+        requestAnalyzer(created);
+
+        return created;
+    }
+
+    public void disableAnalysis() {
+        requestAnalyzer(null);
+    }
+
+    /**
+     * Analisador ligado por {@link #enableAnalysis(int, int, float)}, ou null se desligado.
+     */
+    public SpectrumAnalyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    public void reset() {
+        stopThreads();
+        measuringLoudness = false;
+        trackGeneration++;
+        hintSampleRate = 0;
+        hintChannelCount = 0;
+
+        if (codec != null) {
+            codec.release();
+            codec = null;
+        }
+
+        if (extractor != null) {
+            extractor.release();
+            extractor = null;
+        }
+
+        if (audioTrack != null) {
+            audioTrack.release();
+            audioTrack = null;
+        }
+
+        ringBuffer = null;
+        renderChunk = null;
+        sampleRate = 0;
+        channelCount = 0;
+        encoding = 0;
+        durationUs = 0;
+    }
+
+    public void release() {
+        reset();
+        loudnessMeter.release();
+
+        synchronized (equalizerLock) {
+            equalizer.release();
+
+            if (analyzer != null && analyzer != attachedAnalyzer) {
+                analyzer.release();
+            }
+
+            if (attachedAnalyzer != null) {
+                attachedAnalyzer.release();
+            }
+
+            analyzer = null;
+            attachedAnalyzer = null;
+            analyzerChangePending = false;
+        }
+    }
+
+    /**
+     * Troca o analisador pedido. A troca no equalizador é feita pela thread de áudio antes do
+     * próximo buffer (ou na próxima configureOutput(), se ela não estiver rodando).
+     */
+    private void requestAnalyzer(SpectrumAnalyzer requested) {
+        synchronized (equalizerLock) {
+            // Um pedido anterior que a thread de áudio ainda não aplicou nunca foi ligado
+            if (analyzer != null && analyzer != attachedAnalyzer) {
+                analyzer.release();
+            }
+
+            analyzer = requested;
+            analyzerChangePending = true;
+        }
+    }
+
+    /**
+     * Liga o analisador pedido e libera o anterior. Chamado com equalizerLock, na thread de áudio
+     * ou com ela parada.
+     */
+    private void attachAnalyzer() {
+        SpectrumAnalyzer previous = attachedAnalyzer;
+        attachedAnalyzer = analyzer;
+        analyzerChangePending = false;
+
+        if (equalizer.isCreated()) {
+            equalizer.setAnalyzer(attachedAnalyzer);
+        }
+
+        if (previous != null && previous != attachedAnalyzer) {
+            previous.release();
+        }
+    }
+
+    private MediaFormat selectAudioTrack() {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat format = extractor.getTrackFormat(i);
+            String mime = format.getString(MediaFormat.KEY_MIME);
+
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(i);
+                return format;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return a codificação PCM do formato de saída do decoder (16 bits quando não informada)
+     */
+    private static int encodingOf(MediaFormat format) {
+        if (format.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                && format.getInteger(MediaFormat.KEY_PCM_ENCODING) == AudioFormat.ENCODING_PCM_FLOAT) {
+            return PcmFormat.ENCODING_PCM_FLOAT;
+        }
+
+        return PcmFormat.ENCODING_PCM_16BIT;
+    }
+
+    /**
+     * (Re)cria o AudioTrack, o ring e o equalizador quando a taxa, o número de canais ou a
+     * codificação mudam. Chamado no prepare() ou pela thread de renderização com o decoder parado
+     * e o ring vazio.
+     */
+    private void configureOutput(int newSampleRate, int newChannelCount, int newEncoding) {
+        if (newSampleRate == sampleRate && newChannelCount == channelCount && newEncoding == encoding
+                && audioTrack != null) {
+            return;
+        }
+
+        boolean wasPlaying = playing;
+
+        if (audioTrack != null) {
+            audioTrack.release();
+        }
+
+        sampleRate = newSampleRate;
+        channelCount = newChannelCount;
+        encoding = newEncoding;
+
+        PcmFormat format = new PcmFormat(sampleRate, channelCount, encoding, PcmFormat.LAYOUT_INTERLEAVED);
+        int frameSize = format.getFrameSize();
+        int trackBufferSize = trackBufferSize(frameSize);
+        audioTrack = createAudioTrack(trackBufferSize);
+
+        // Metade do buffer do AudioTrack por escrita: o AudioTrack nunca fica sem o próximo bloco
+        int chunkSize = Math.max(frameSize * 64, trackBufferSize / 2 / frameSize * frameSize);
+        renderChunk = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.nativeOrder());
+
+        int ringSize = Math.max(chunkSize * 2, sampleRate * ringBufferMs / 1000 * frameSize);
+        if (ringBuffer == null || ringBuffer.capacity() < ringSize) {
+            ringBuffer = new PcmRingBuffer(ringSize);
+        }
+
+        synchronized (equalizerLock) {
+            equalizer.create(format, BAND_FREQUENCIES.length);
+            equalizer.setAutoHeadroom(true);
+            // Em uma troca de faixa a curva da nova taxa já foi calculada pelo decoder
+            equalizer.load(curveFor(sampleRate));
+            equalizer.setPreGainDb(loudnessGainDb);
+            attachAnalyzer();
+        }
+
+        if (wasPlaying) {
+            audioTrack.play();
+        }
+    }
+
+    private int channelMask() {
+        return channelCount == 1 ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO;
+    }
+
+    private int trackEncoding() {
+        return encoding == PcmFormat.ENCODING_PCM_FLOAT
+                ? AudioFormat.ENCODING_PCM_FLOAT
+                : AudioFormat.ENCODING_PCM_16BIT;
+    }
+
+    private int trackBufferSize(int frameSize) {
+        int minBufferSize = AudioTrack.getMinBufferSize(sampleRate, channelMask(), trackEncoding());
+        return Math.max(minBufferSize, sampleRate * bufferSizeMs / 1000 * frameSize);
+    }
+
+    private AudioTrack createAudioTrack(int bufferSize) {
+        return new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(channelMask())
+                        .setEncoding(trackEncoding())
+                        .build())
+                .setBufferSizeInBytes(bufferSize)
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY)
+                .build();
+    }
+
+    /**
+     * Curva dos ganhos atuais para a taxa dada, do cache ou calculada e guardada. Chamado com
+     * equalizerLock.
+     */
+    private EqualizerCoefficients curveFor(int rate) {
+        EqualizerCoefficients curve = coefficientCache.get(presetName, rate, bandGainsDb);
+
+        if (curve == null) {
+            curve = designCurve(rate, bandGainsDb);
+            coefficientCache.put(presetName, curve);
+        }
+
+        return curve;
+    }
+
+    /**
+     * Curva das bandas do player ({@link #BAND_FREQUENCIES}) com esses ganhos, para a taxa dada.
+     * Também usada pela renderização offline, para o arquivo soar como a reprodução.
+     */
+    static EqualizerCoefficients designCurve(int rate, float[] gainsDb) {
+        float maxFrequency = rate * 0.45f;
+        float[] frequencies = new float[BAND_FREQUENCIES.length];
+
+        for (int band = 0; band < BAND_FREQUENCIES.length; band++) {
+            frequencies[band] = Math.min(BAND_FREQUENCIES[band], maxFrequency);
+        }
+
+        return AudioEqualizer.design(rate, BAND_TYPES, frequencies, BAND_QS, gainsDb);
+    }
+
+    private void stopThreads() {
+        if (renderThread == null) {
+            return;
+        }
+
+        synchronized (stateLock) {
+            stopRequested = true;
+            playing = false;
+            stateLock.notifyAll();
+        }
+
+        // Libera uma escrita bloqueada no AudioTrack
+        AudioTrack track = audioTrack;
+        if (track != null) {
+            track.pause();
+            track.flush();
+        }
+
+        joinThreads();
+    }
+
+    private void joinThreads() {
+        try {
+            decoderThread.join();
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        decoderThread = null;
+        renderThread = null;
+        stopRequested = false;
+    }
+
+    private void decoderLoop() {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        boolean inputDone = false;
+
+        try {
+            while (!stopRequested) {
+                if (!inputDone) {
+                    inputDone = queueInput();
+                }
+
+                int index = codec.dequeueOutputBuffer(info, CODEC_TIMEOUT_US);
+
+                if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    requestFormatChange(codec.getOutputFormat());
+                    continue;
+                }
+
+                if (index < 0) {
+                    continue;
+                }
+
+                ByteBuffer output = codec.getOutputBuffer(index);
+
+                if (output != null && info.size > 0) {
+                    if (measuringLoudness) {
+                        loudnessMeter.process(output, info.offset, info.size);
+                    }
+
+                    output.position(info.offset);
+                    output.limit(info.offset + info.size);
+                    writeToRing(output);
+                }
+
+                codec.releaseOutputBuffer(index, false);
+
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    if (measuringLoudness) {
+                        finishLoudnessMeasurement();
+                    }
+
+                    decoderDone = true;
+                    return;
+                }
+            }
+        } catch (IllegalStateException e) {
+            // Codec liberado enquanto a thread terminava
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
+
+    /**
+     * @return true quando o fim do arquivo foi enviado ao decoder
+     */
+    private boolean queueInput() {
+        int index = codec.dequeueInputBuffer(CODEC_TIMEOUT_US);
+
+        if (index < 0) {
+            return false;
+        }
+
+        ByteBuffer input = codec.getInputBuffer(index);
+        int size = input != null ? extractor.readSampleData(input, 0) : -1;
+
+        if (size < 0) {
+            codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            return true;
+        }
+
+        codec.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+        extractor.advance();
+        return false;
+    }
+
+    private void writeToRing(ByteBuffer source) {
+        PcmRingBuffer ring = ringBuffer;
+
+        while (source.hasRemaining() && !stopRequested) {
+            if (ring.write(source) == 0) {
+                // Ring cheio (ou pausado): só o decoder espera, nunca a renderização
+                LockSupport.parkNanos(DECODER_WAIT_NS);
+            }
+        }
+    }
+
+    /**
+     * Espera a renderização consumir o que já está no ring no formato antigo e então pede que
+     * ela reconfigure a saída, aguardando a confirmação.
+     */
+    private void requestFormatChange(MediaFormat format) {
+        while (ringBuffer.getFillLevel() > 0 && !stopRequested) {
+            LockSupport.parkNanos(DECODER_WAIT_NS);
+        }
+
+        int newSampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+
+        // A curva da nova taxa é calculada aqui; a renderização só copia os coeficientes
+        synchronized (equalizerLock) {
+            curveFor(newSampleRate);
+        }
+
+        pendingSampleRate = newSampleRate;
+        pendingChannelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+        pendingEncoding = encodingOf(format);
+        formatChangePending = true;
+        notifyOutputFormat(newSampleRate, pendingChannelCount);
+
+        if (measuringLoudness) {
+            updateLoudnessFormat();
+        }
+
+        while (formatChangePending && !stopRequested) {
+            LockSupport.parkNanos(DECODER_WAIT_NS);
+        }
+    }
+
+    private void notifyOutputFormat(int newSampleRate, int newChannelCount) {
+        int generation = trackGeneration;
+
+        mainHandler.post(() -> {
+            if (generation == trackGeneration && onOutputFormatListener != null) {
+                onOutputFormatListener.onOutputFormat(this, newSampleRate, newChannelCount);
+            }
+        });
+    }
+
+    /**
+     * O primeiro INFO_OUTPUT_FORMAT_CHANGED só confirma o formato real do decoder (que pode ter
+     * outra taxa, como no HE-AAC): antes do primeiro frame o medidor é recriado; no meio da faixa
+     * a medição é abandonada. Thread do decoder.
+     */
+    private void updateLoudnessFormat() {
+        PcmFormat format = new PcmFormat(pendingSampleRate, pendingChannelCount, pendingEncoding,
+                PcmFormat.LAYOUT_INTERLEAVED);
+
+        if (format.equals(loudnessMeter.getFormat())) {
+            return;
+        }
+
+        if (loudnessMeter.getFrameCount() == 0) {
+            loudnessMeter.create(format);
+        } else {
+            measuringLoudness = false;
+        }
+    }
+
+    /**
+     * Thread do decoder, no fim do arquivo: o resultado vai para a thread principal, a menos que
+     * outra faixa tenha sido carregada nesse meio tempo.
+     */
+    private void finishLoudnessMeasurement() {
+        measuringLoudness = false;
+
+        float integratedLufs = loudnessMeter.getIntegratedLoudness();
+        float gainDb = loudnessMeter.getReplayGainDb();
+        int generation = trackGeneration;
+
+        mainHandler.post(() -> {
+            if (generation == trackGeneration && onLoudnessMeasuredListener != null) {
+                onLoudnessMeasuredListener.onLoudnessMeasured(this, integratedLufs, gainDb);
+            }
+        });
+    }
+
+    private void renderLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+        while (!stopRequested) {
+            if (!waitWhilePaused()) {
+                return;
+            }
+
+            if (formatChangePending) {
+                configureOutput(pendingSampleRate, pendingChannelCount, pendingEncoding);
+                formatChangePending = false;
+                continue;
+            }
+
+            if (analyzerChangePending) {
+                synchronized (equalizerLock) {
+                    attachAnalyzer();
+                }
+            }
+
+            // decoderDone antes do nível: se o decoder terminou, tudo o que ele escreveu já está visível
+            boolean done = decoderDone;
+            PcmRingBuffer ring = ringBuffer;
+            int frameSize = equalizer.getFormat().getFrameSize();
+            int fillLevel = ring.getFillLevel();
+
+            if (done && fillLevel == 0) {
+                onRenderComplete();
+                return;
+            }
+
+            ByteBuffer chunk = renderChunk;
+            chunk.clear();
+            chunk.limit(Math.min(chunk.capacity(), fillLevel / frameSize * frameSize));
+
+            // Lê o que houver: um bloco parcial não é underrun (o AudioTrack ainda tem metade do
+            // buffer na fila), só o ring vazio antes do fim do arquivo
+            int count = ring.readAvailable(chunk);
+
+            if (count == 0) {
+                LockSupport.parkNanos(RENDER_WAIT_NS);
+                continue;
+            }
+
+            equalizer.process(chunk, 0, count);
+
+            chunk.position(0);
+            audioTrack.write(chunk, count, AudioTrack.WRITE_BLOCKING);
+        }
+    }
+
+    private boolean waitWhilePaused() {
+        synchronized (stateLock) {
+            while (!playing && !stopRequested) {
+                try {
+                    stateLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        return !stopRequested;
+    }
+
+    private void onRenderComplete() {
+        // Em MODE_STREAM, stop() deixa tocar o que já foi escrito antes de parar
+        audioTrack.stop();
+        playing = false;
+        completed = true;
+        int generation = trackGeneration;
+
+        mainHandler.post(() -> {
+            // Outra faixa carregada (ou um seek/start) nesse meio tempo: as threads atuais são dela
+            if (generation != trackGeneration || !completed) {
+                return;
+            }
+
+            // As duas threads já terminaram; só recolhe sem descartar o que ainda está tocando
+            if (renderThread != null) {
+                joinThreads();
+            }
+
+            if (onCompletionListener != null) {
+                onCompletionListener.onCompletion(this);
+            }
+        });
+    }
+}
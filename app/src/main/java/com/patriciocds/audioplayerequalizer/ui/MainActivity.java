@@ -4,17 +4,23 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.widget.SeekBar;
 import android.widget.TextView;
+import android.widget.ToggleButton;
 
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.patriciocds.audioplayerequalizer.R;
 import com.patriciocds.audioplayerequalizer.service.MusicData;
+import com.patriciocds.audioplayerequalizer.service.Playlist;
+import com.patriciocds.audioplayerequalizer.util.ExceptionUtils;
 import com.patriciocds.audioplayerequalizer.util.Playback;
 import com.patriciocds.audioplayerequalizer.util.PlaybackUtils;
 
+import java.io.IOException;
+
 public class MainActivity extends BaseActivity implements Playback.PlaybackEvents {
 
     private TextView txtMusicTimeProgress;
@@ -26,6 +32,11 @@ public class MainActivity extends BaseActivity implements Playback.PlaybackEvent
 
     Playback playback = new Playback(this, this);
 
+    private static final int PROGRESS_INTERVAL_MS = 250;
+
+    private Playlist playlist;
+    private int musicDuration;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -44,6 +55,13 @@ public class MainActivity extends BaseActivity implements Playback.PlaybackEvent
         findViewById(R.id.btnPlay).setOnClickListener(v -> onPlay());
         findViewById(R.id.btnPause).setOnClickListener(v -> onPausePlayback());
         findViewById(R.id.btnStop).setOnClickListener(v -> onStopPlayback());
+        findViewById(R.id.btnPrevious).setOnClickListener(v -> onPlayTrack(playlist.previous()));
+        findViewById(R.id.btnNext).setOnClickListener(v -> onPlayTrack(playlist.next()));
+
+        ToggleButton btnShuffle = findViewById(R.id.btnShuffle);
+        btnShuffle.setOnCheckedChangeListener((button, checked) -> onShuffleChanged(checked));
+
+        loadPlaylist();
 
         requestPermissions();
     }
@@ -73,18 +91,50 @@ public class MainActivity extends BaseActivity implements Playback.PlaybackEvent
         }
     }
 
+    private void loadPlaylist() {
+        try {
+            playlist = Playlist.fromRawResource(this, R.raw.music_dataset);
+        } catch (IOException e) {
+            ExceptionUtils.printStackTrace(e);
+            playlist = new Playlist(getPackageName());
+        }
+    }
+
     private void onPlay() {
-        String path = "android.resource://" + getPackageName() + "/" + R.raw.ketsa_if_you_waited;
-        MusicData musicData = new MusicData("If you waited", "Ketsa", path);
+        onPlayTrack(playlist.current());
+    }
+
+    private void onPlayTrack(MusicData musicData) {
+        if (musicData == null) {
+            return;
+        }
 
         txtMusicTitle.setText(musicData.getTitle());
         txtMusicArtist.setText(musicData.getArtist());
 
-        playback.play(musicData.toString());
+        playback.play(musicData);
+        prepareNextTrack();
+    }
+
+    private void onShuffleChanged(boolean shuffle) {
+        playlist.setShuffle(shuffle);
+        prepareNextTrack();
+    }
+
+    private void prepareNextTrack() {
+        MusicData next = playlist.peekNext();
+
+        if (next != null && playlist.size() > 1) {
+            playback.prepareNext(next);
+        }
     }
 
     private void onPausePlayback() {
-        playback.pause();
+        if (playback.isPlaying()) {
+            playback.pause();
+        } else {
+            playback.resume();
+        }
     }
 
     private void onStopPlayback() {
@@ -130,10 +180,25 @@ public class MainActivity extends BaseActivity implements Playback.PlaybackEvent
             public void onStartTrackingTouch(SeekBar seekBar) { /* without implementation */ }
 
             @Override
-            public void onStopTrackingTouch(SeekBar seekBar) { /* without implementation */ }
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                playback.flushPendingCommands();
+            }
         };
     }
 
+    // Ao reconectar no meio de uma música, o onTrackChanged dela já passou
+    private void updateMusicInfo() {
+        MusicData musicData = playback.getMusicData();
+
+        if (musicData != null) {
+            musicDuration = playback.getDuration();
+
+            txtMusicTitle.setText(musicData.getTitle());
+            txtMusicArtist.setText(musicData.getArtist());
+            txtMusicTimeDuration.setText(PlaybackUtils.formatMusicTime(musicDuration));
+        }
+    }
+
     private void updateVolume() {
         int volume = (int) ((playback.getMusicVolume() / (float) playback.getMusicMaxVolume()) * 100);
         sbrMusicVolume.setProgress(volume);
@@ -142,27 +207,56 @@ public class MainActivity extends BaseActivity implements Playback.PlaybackEvent
     @Override
     public void onMusicServiceConnected() {
         updateVolume();
+        updateMusicInfo();
+
+        // Só enquanto a Activity está visível: no onStop o serviço é desvinculado e para de enviar
+        playback.setProgressInterval(PROGRESS_INTERVAL_MS);
     }
 
     @Override
     public void onMusicComplete() {
-        runOnUiThread(this::clearMusicInfo);
+        runOnUiThread(() -> {
+            if (playlist.size() > 1) {
+                onPlayTrack(playlist.next());
+            } else {
+                clearMusicInfo();
+            }
+        });
     }
 
     @Override
-    public void onMusicProgress(String musicTitle, String artist, int position) {
-        int duration = playback.getDuration();
+    public void onTrackChanged(MusicData musicData, int durationMs) {
+        // O serviço passou sozinho para a música pré-carregada: acompanha na fila
+        MusicData next = playlist.peekNext();
+        MusicData current = playlist.current();
+
+        if (next != null && current != null && isTrack(next, musicData) && !isTrack(current, musicData)) {
+            playlist.next();
+            prepareNextTrack();
+        }
+
+        musicDuration = durationMs;
+
+        txtMusicTitle.setText(musicData.getTitle());
+        txtMusicArtist.setText(musicData.getArtist());
+        txtMusicTimeDuration.setText(PlaybackUtils.formatMusicTime(musicDuration));
+    }
+
+    @Override
+    public void onMusicPosition(int positionMs) {
+        int position = musicDuration > 0 ? Math.min(positionMs, musicDuration) : positionMs;
 
-        txtMusicTitle.setText(musicTitle);
-        txtMusicArtist.setText(artist);
         txtMusicTimeProgress.setText(PlaybackUtils.formatMusicTime(position));
-        txtMusicTimeDuration.setText(PlaybackUtils.formatMusicTime(duration));
 
-        if (duration > 0) {
-            int progress = (int) ((position / (float) duration) * 100);
+        if (musicDuration > 0) {
+            int progress = (int) ((position / (float) musicDuration) * 100);
             sbrMusicProgress.setProgress(progress);
         } else {
             sbrMusicProgress.setProgress(0);
         }
     }
+
+    private static boolean isTrack(MusicData a, MusicData b) {
+        return TextUtils.equals(a.getPath(), b.getPath());
+    }
 }
\ No newline at end of file
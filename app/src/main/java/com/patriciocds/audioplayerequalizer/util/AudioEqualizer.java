@@ -1,10 +1,338 @@
 package com.patriciocds.audioplayerequalizer.util;
 
+import java.nio.ByteBuffer;
+
 public class AudioEqualizer {
 
+    public static final int BAND_PEAKING = 0;
+    public static final int BAND_LOW_SHELF = 1;
+    public static final int BAND_HIGH_SHELF = 2;
+
+    public static final int CLIP_HARD = 0;
+    public static final int CLIP_SOFT = 1;
+
+    public static final int MAX_CHANNELS = 8;
+
     static {
         System.loadLibrary("audio-equalizer-lib");
     }
 
+    private long nativeHandle;
+    private PcmFormat format;
+
+    /**
+     * Ganho simples (produto de {@code gains} / 1000) sobre o buffer inteiro, sem noção de taxa de
+     * amostragem nem de canais. Mantido por compatibilidade; para equalizar de verdade, use
+     * {@link #create(PcmFormat, int)} e {@link #process(short[], int, int)}.
+     */
     public native int applyEqualization(short[] audioData, int[] gains);
+
+    /**
+     * Mesmo ganho de {@link #applyEqualization(short[], int[])}, aplicado no próprio
+     * {@link ByteBuffer} direto, sem cópias. {@code offset} e {@code size} são em bytes.
+     *
+     * @return quantidade de amostras processadas
+     */
+    public int applyEqualization(ByteBuffer audioData, int offset, int size, int[] gains) {
+        checkDirectBuffer(audioData, offset, size);
+        return nativeApplyEqualizationDirect(audioData, offset, size, gains);
+    }
+
+    /**
+     * Cria o banco de filtros nativo para áudio mono. Todas as bandas começam planas (0 dB) até
+     * serem configuradas com {@link #configureBand(int, int, float, float, float)}.
+     */
+    public void create(int sampleRate, int bandCount) {
+        create(sampleRate, 1, bandCount);
+    }
+
+    /**
+     * Cria o banco de filtros nativo para PCM 16 bits intercalado com {@code channelCount} canais,
+     * mantendo o estado dos filtros separado por canal.
+     */
+    public void create(int sampleRate, int channelCount, int bandCount) {
+        create(PcmFormat.pcm16(sampleRate, channelCount), bandCount);
+    }
+
+    /**
+     * Cria o banco de filtros nativo para o formato do decoder: os filtros são calculados para a
+     * taxa de amostragem do formato, cada canal tem o seu estado, e {@link #process} lê as amostras
+     * na codificação e na disposição (intercalada ou planar) do formato, sem conversão no Java.
+     */
+    public void create(PcmFormat format, int bandCount) {
+        if (bandCount <= 0) {
+            throw new IllegalArgumentException("bandCount deve ser positivo");
+        }
+
+        release();
+        nativeHandle = nativeCreate(format.getSampleRate(), format.getChannelCount(), bandCount);
+        this.format = format;
+    }
+
+    public boolean isCreated() {
+        return nativeHandle != 0;
+    }
+
+    /**
+     * @return formato passado na criação, ou null se o equalizador não foi criado
+     */
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Recalcula os coeficientes de uma banda. O estado dos filtros é preservado e a mudança é
+     * interpolada ao longo do próximo buffer processado, então pode ser chamado de outra thread
+     * durante a reprodução, sem lock contra {@link #process}.
+     */
+    public void configureBand(int band, int type, float frequency, float q, float gainDb) {
+        if (!nativeConfigureBand(requireHandle(), band, type, frequency, q, gainDb)) {
+            throw new IllegalArgumentException("Configuração inválida para a banda " + band);
+        }
+    }
+
+    /**
+     * Troca o ganho (dB) das primeiras {@code gainsDb.length} bandas de uma vez, mantendo tipo,
+     * frequência e Q da última {@link #configureBand(int, int, float, float, float)}. Os novos
+     * coeficientes são calculados aqui, publicados sem lock para a thread de áudio e interpolados
+     * ao longo do próximo buffer: pode ser chamado a cada movimento de um slider, com o áudio
+     * tocando, sem degrau audível.
+     */
+    public void setBandGains(float[] gainsDb) {
+        if (!nativeSetBandGains(requireHandle(), gainsDb)) {
+            throw new IllegalArgumentException("Ganhos inválidos ou bandas ainda não configuradas");
+        }
+    }
+
+    /**
+     * Calcula a curva completa (uma entrada por banda em cada array) para {@code sampleRate}, sem
+     * precisar de um equalizador criado. Pode rodar em qualquer thread; o resultado é imutável e
+     * pode ser guardado em um {@link CoefficientCache}.
+     */
+    public static EqualizerCoefficients design(int sampleRate, int[] types, float[] frequencies, float[] qs,
+                                               float[] gainsDb) {
+        int bandCount = types.length;
+
+        if (frequencies.length != bandCount || qs.length != bandCount || gainsDb.length != bandCount) {
+            throw new IllegalArgumentException("Todos os arrays devem ter uma entrada por banda");
+        }
+
+        float[] coefficients = new float[bandCount * EqualizerCoefficients.COEFFICIENTS_PER_BAND];
+        float peakDb = nativeDesignBands(sampleRate, types, frequencies, qs, gainsDb, coefficients);
+
+        if (Float.isNaN(peakDb)) {
+            throw new IllegalArgumentException("Configuração inválida para as bandas");
+        }
+
+        return new EqualizerCoefficients(sampleRate, types.clone(), frequencies.clone(), qs.clone(),
+                gainsDb.clone(), coefficients, peakDb);
+    }
+
+    /**
+     * Troca todas as bandas por uma curva calculada com {@link #design}, só copiando os
+     * coeficientes. Como {@link #setBandGains(float[])}, a troca é interpolada ao longo do próximo
+     * buffer e pode ser feita durante a reprodução. A curva deve ter uma banda para cada banda do
+     * equalizador e ter sido calculada para a mesma taxa de amostragem.
+     */
+    public void load(EqualizerCoefficients curve) {
+        long handle = requireHandle();
+
+        // Os coeficientes só valem na taxa em que foram calculados (44,1 kHz em 48 kHz desloca
+        // todas as bandas em ~9%)
+        if (curve.getSampleRate() != format.getSampleRate()) {
+            throw new IllegalArgumentException("A curva deve ter a mesma taxa de amostragem do equalizador");
+        }
+
+        if (!nativeLoadBands(handle, curve.types, curve.frequencies, curve.qs, curve.gainsDb,
+                curve.coefficients, curve.peakDb)) {
+            throw new IllegalArgumentException("A curva deve ter uma entrada para cada banda");
+        }
+    }
+
+    /**
+     * Equaliza {@code length} amostras PCM 16 bits a partir de {@code offset}, no próprio array,
+     * na disposição do formato: intercaladas ou, com {@link PcmFormat#LAYOUT_PLANAR}, um bloco de
+     * {@code length / canais} amostras por canal, um depois do outro.
+     *
+     * @return quantidade de amostras processadas
+     */
+    public int process(short[] audioData, int offset, int length) {
+        long handle = requireHandle();
+
+        if (offset < 0 || length < 0 || offset + length > audioData.length) {
+            throw new ArrayIndexOutOfBoundsException("offset/length fora dos limites do buffer");
+        }
+
+        checkPlanarLength(length);
+
+        return nativeProcess(handle, audioData, offset, length, format.isPlanar());
+    }
+
+    /**
+     * Mesmo que {@link #process(short[], int, int)} para PCM float (fundo de escala em ±1), sem
+     * conversão para 16 bits e de volta. A saída não é limitada a [-1, 1]: o clipping fica para o
+     * AudioTrack, e o headroom automático evita que a curva passe do nível original.
+     *
+     * @return quantidade de amostras processadas
+     */
+    public int process(float[] audioData, int offset, int length) {
+        long handle = requireHandle();
+
+        if (offset < 0 || length < 0 || offset + length > audioData.length) {
+            throw new ArrayIndexOutOfBoundsException("offset/length fora dos limites do buffer");
+        }
+
+        checkPlanarLength(length);
+
+        return nativeProcessFloat(handle, audioData, offset, length, format.isPlanar());
+    }
+
+    /**
+     * Equaliza PCM na codificação do formato (16 bits ou float, ordem de bytes nativa) direto na
+     * memória de um {@link ByteBuffer} alocado com {@link ByteBuffer#allocateDirect(int)} ou
+     * entregue pelo MediaCodec/AudioTrack. Não há cópia nem alocação no heap Java. {@code offset}
+     * e {@code size} são em bytes, na mesma convenção de {@code MediaCodec.BufferInfo}; a posição
+     * do buffer não é alterada. Em float a saída não é limitada a [-1, 1].
+     *
+     * @return quantidade de amostras processadas
+     */
+    public int process(ByteBuffer audioData, int offset, int size) {
+        long handle = requireHandle();
+        int bytesPerSample = format.getBytesPerSample();
+        checkDirectBuffer(audioData, offset, size, bytesPerSample);
+        checkPlanarLength(size / bytesPerSample);
+
+        return nativeProcessDirect(handle, audioData, offset, size, format.getEncoding(), format.isPlanar());
+    }
+
+    /**
+     * Zera o estado dos filtros, por exemplo ao trocar de faixa ou após um seek. Deve ser chamado
+     * na thread de áudio ou com ela parada.
+     */
+    public void reset() {
+        nativeReset(requireHandle());
+    }
+
+    /**
+     * Liga o headroom automático: a entrada é atenuada pelo maior reforço da curva configurada,
+     * recalculado a cada {@link #configureBand(int, int, float, float, float)}, evitando saturação
+     * mesmo com ganhos altos. Não há custo extra por amostra. Como os ganhos, pode ser chamado
+     * durante a reprodução.
+     */
+    public void setAutoHeadroom(boolean enabled) {
+        nativeSetAutoHeadroom(requireHandle(), enabled);
+    }
+
+    /**
+     * Ganho fixo (dB) aplicado na entrada, antes das bandas: a normalização de loudness da faixa
+     * ({@link LoudnessMeter#replayGainDb(float, float)}). Soma-se à atenuação do headroom
+     * automático na mesma escala, então não custa nada por amostra; a troca é interpolada ao
+     * longo do próximo buffer e pode ser feita durante a reprodução.
+     */
+    public void setPreGainDb(float gainDb) {
+        nativeSetPreGainDb(requireHandle(), gainDb);
+    }
+
+    /**
+     * Define como os picos acima do fundo de escala são tratados: {@link #CLIP_HARD} satura
+     * e {@link #CLIP_SOFT} comprime suavemente perto do limite, na mesma passada da conversão.
+     */
+    public void setClipMode(int mode) {
+        if (mode != CLIP_HARD && mode != CLIP_SOFT) {
+            throw new IllegalArgumentException("Modo de clipping inválido: " + mode);
+        }
+
+        nativeSetClipMode(requireHandle(), mode);
+    }
+
+    /**
+     * @return atenuação aplicada na entrada pelo headroom automático, em dB
+     */
+    public float getHeadroomDb() {
+        return nativeGetHeadroomDb(requireHandle());
+    }
+
+    /**
+     * Liga um {@link SpectrumAnalyzer} à saída do equalizador (antes da conversão para 16 bits),
+     * ou desliga com null. Ao contrário de {@link #configureBand(int, int, float, float, float)}, não
+     * pode ser chamado em paralelo com {@link #process}: deve rodar na thread de áudio ou com ela
+     * parada. O analisador precisa continuar criado enquanto estiver ligado.
+     */
+    public void setAnalyzer(SpectrumAnalyzer analyzer) {
+        nativeSetAnalyzer(requireHandle(), analyzer != null ? analyzer.getNativeHandle() : 0);
+    }
+
+    public void release() {
+        if (nativeHandle != 0) {
+            nativeRelease(nativeHandle);
+            nativeHandle = 0;
+            format = null;
+        }
+    }
+
+    /**
+     * Nome dos kernels em uso ("neon", "sse2" ou "scalar"), escolhidos no carregamento da biblioteca.
+     */
+    public static native String getKernelName();
+
+    /**
+     * Permite forçar os kernels escalares (false) para comparação de desempenho/resultados.
+     * Afeta todas as instâncias; não deve ser chamado com áudio sendo processado.
+     */
+    public static native void setSimdEnabled(boolean enabled);
+
+    private long requireHandle() {
+        if (nativeHandle == 0) {
+            throw new IllegalStateException("AudioEqualizer não foi criado");
+        }
+
+        return nativeHandle;
+    }
+
+    // Planar: cada canal precisa do mesmo número de amostras, senão os blocos ficam desalinhados
+    private void checkPlanarLength(int samples) {
+        if (format.isPlanar() && samples % format.getChannelCount() != 0) {
+            throw new IllegalArgumentException("No layout planar a quantidade de amostras deve ser múltipla de "
+                    + format.getChannelCount());
+        }
+    }
+
+    private static void checkDirectBuffer(ByteBuffer buffer, int offset, int size) {
+        checkDirectBuffer(buffer, offset, size, 2);
+    }
+
+    private static void checkDirectBuffer(ByteBuffer buffer, int offset, int size, int bytesPerSample) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("O buffer deve ser direto (ByteBuffer.allocateDirect)");
+        }
+
+        if (offset < 0 || size < 0 || offset + size > buffer.capacity()) {
+            throw new IndexOutOfBoundsException("offset/size fora dos limites do buffer");
+        }
+
+        if (offset % bytesPerSample != 0 || size % bytesPerSample != 0) {
+            throw new IllegalArgumentException("offset e size devem ser múltiplos de " + bytesPerSample
+                    + " (tamanho da amostra)");
+        }
+    }
+
+    private static native int nativeApplyEqualizationDirect(ByteBuffer audioData, int offset, int size, int[] gains);
+    private static native long nativeCreate(int sampleRate, int channelCount, int bandCount);
+    private static native boolean nativeConfigureBand(long handle, int band, int type, float frequency, float q, float gainDb);
+    private static native boolean nativeSetBandGains(long handle, float[] gainsDb);
+    private static native float nativeDesignBands(int sampleRate, int[] types, float[] frequencies, float[] qs,
+                                                  float[] gainsDb, float[] coefficients);
+    private static native boolean nativeLoadBands(long handle, int[] types, float[] frequencies, float[] qs,
+                                                  float[] gainsDb, float[] coefficients, float peakDb);
+    private static native int nativeProcess(long handle, short[] audioData, int offset, int length, boolean planar);
+    private static native int nativeProcessFloat(long handle, float[] audioData, int offset, int length, boolean planar);
+    private static native int nativeProcessDirect(long handle, ByteBuffer audioData, int offset, int size,
+                                                  int encoding, boolean planar);
+    private static native void nativeReset(long handle);
+    private static native void nativeSetAutoHeadroom(long handle, boolean enabled);
+    private static native void nativeSetPreGainDb(long handle, float gainDb);
+    private static native void nativeSetClipMode(long handle, int mode);
+    private static native float nativeGetHeadroomDb(long handle);
+    private static native void nativeSetAnalyzer(long handle, long analyzerHandle);
+    private static native void nativeRelease(long handle);
 }
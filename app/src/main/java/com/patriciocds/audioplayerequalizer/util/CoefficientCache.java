@@ -0,0 +1,77 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU das curvas já calculadas ({@link EqualizerCoefficients}), por preset e taxa de
+ * amostragem. Trocar de preset, ou de faixa com outra taxa, vira uma cópia dos coeficientes em vez
+ * de um novo cálculo. Uma entrada só vale para os mesmos ganhos: depois que o preset
+ * {@link EqualizerPreset#CUSTOM} é editado, a entrada antiga é tratada como ausente.
+ *
+ * <p>Pode ser usado de várias threads.
+ */
+public class CoefficientCache {
+
+    /** Quatro presets em até quatro taxas diferentes. */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final LinkedHashMap<String, EqualizerCoefficients> entries;
+
+    private int hitCount;
+    private int missCount;
+
+    public CoefficientCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity deve ser positivo");
+        }
+
+        // accessOrder = true: cada get() move a entrada para o fim, e a mais antiga sai primeiro
+        entries = new LinkedHashMap<String, EqualizerCoefficients>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EqualizerCoefficients> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return a curva do preset para essa taxa, ou null se não estiver em cache ou tiver sido
+     * calculada com outros ganhos
+     */
+    public synchronized EqualizerCoefficients get(String preset, int sampleRate, float[] gainsDb) {
+        EqualizerCoefficients coefficients = entries.get(key(preset, sampleRate));
+
+        if (coefficients == null || !coefficients.hasGains(gainsDb)) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return coefficients;
+    }
+
+    public synchronized void put(String preset, EqualizerCoefficients coefficients) {
+        entries.put(key(preset, coefficients.getSampleRate()), coefficients);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    private static String key(String preset, int sampleRate) {
+        return preset + '@' + sampleRate;
+    }
+}
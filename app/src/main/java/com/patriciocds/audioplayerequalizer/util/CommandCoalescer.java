@@ -0,0 +1,112 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Agrupa rajadas de um comando com valor inteiro (seek, volume) em no máximo uma execução por
+ * intervalo. A primeira chamada de uma rajada executa na hora; as seguintes só atualizam o valor
+ * pendente, e o último valor é executado ao fim do intervalo. Os valores intermediários são
+ * descartados.
+ *
+ * <p>Deve ser usado sempre da mesma thread (a do Looper informado).
+ */
+public class CommandCoalescer {
+
+    /** Aproximadamente um frame a 60 Hz. */
+    public static final long DEFAULT_INTERVAL_MS = 16;
+
+    public interface Command {
+        void execute(int value);
+    }
+
+    private final Handler handler;
+    private final long intervalMs;
+    private final Command command;
+
+    private final Runnable trailingRunnable = this::runPending;
+
+    private boolean hasPending;
+    private int pendingValue;
+    private boolean scheduled;
+    private long lastExecutionUptimeMs = Long.MIN_VALUE / 2;
+
+    private int executedCount;
+    private int droppedCount;
+
+    public CommandCoalescer(Command command) {
+        this(Looper.getMainLooper(), DEFAULT_INTERVAL_MS, command);
+    }
+
+    public CommandCoalescer(Looper looper, long intervalMs, Command command) {
+        this.handler = new Handler(looper);
+        this.intervalMs = intervalMs;
+        this.command = command;
+    }
+
+    public void submit(int value) {
+        long now = SystemClock.uptimeMillis();
+
+        if (!scheduled && now - lastExecutionUptimeMs >= intervalMs) {
+            execute(value, now);
+            return;
+        }
+
+        if (hasPending) {
+            droppedCount++;
+        }
+
+        hasPending = true;
+        pendingValue = value;
+
+        if (!scheduled) {
+            scheduled = true;
+            handler.postAtTime(trailingRunnable, lastExecutionUptimeMs + intervalMs);
+        }
+    }
+
+    /**
+     * Executa já o valor pendente, se houver (ex.: ao soltar o SeekBar).
+     */
+    public void flush() {
+        handler.removeCallbacks(trailingRunnable);
+        runPending();
+    }
+
+    /**
+     * Descarta o valor pendente sem executá-lo.
+     */
+    public void cancel() {
+        handler.removeCallbacks(trailingRunnable);
+        scheduled = false;
+
+        if (hasPending) {
+            hasPending = false;
+            droppedCount++;
+        }
+    }
+
+    public int getExecutedCount() {
+        return executedCount;
+    }
+
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+
+    private void runPending() {
+        scheduled = false;
+
+        if (hasPending) {
+            hasPending = false;
+            execute(pendingValue, SystemClock.uptimeMillis());
+        }
+    }
+
+    private void execute(int value, long now) {
+        lastExecutionUptimeMs = now;
+        executedCount++;
+        command.execute(value);
+    }
+}
@@ -0,0 +1,58 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.util.Arrays;
+
+/**
+ * Curva do equalizador já calculada para uma taxa de amostragem: parâmetros de cada banda,
+ * coeficientes dos biquads ({@link #COEFFICIENTS_PER_BAND} floats por banda) e o maior reforço da
+ * curva, usado pelo headroom automático. Criada por
+ * {@link AudioEqualizer#design(int, int[], float[], float[], float[])} e carregada com
+ * {@link AudioEqualizer#load(EqualizerCoefficients)} sem recalcular nada. Imutável.
+ */
+public final class EqualizerCoefficients {
+
+    /** b0, b1, b2, a1, a2. */
+    public static final int COEFFICIENTS_PER_BAND = 5;
+
+    final int sampleRate;
+    final int[] types;
+    final float[] frequencies;
+    final float[] qs;
+    final float[] gainsDb;
+    final float[] coefficients;
+    final float peakDb;
+
+    EqualizerCoefficients(int sampleRate, int[] types, float[] frequencies, float[] qs, float[] gainsDb,
+                          float[] coefficients, float peakDb) {
+        this.sampleRate = sampleRate;
+        this.types = types;
+        this.frequencies = frequencies;
+        this.qs = qs;
+        this.gainsDb = gainsDb;
+        this.coefficients = coefficients;
+        this.peakDb = peakDb;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBandCount() {
+        return types.length;
+    }
+
+    public float[] getGainsDb() {
+        return gainsDb.clone();
+    }
+
+    /**
+     * @return maior reforço da curva em dB (0 ou negativo quando nenhuma frequência é reforçada)
+     */
+    public float getPeakDb() {
+        return peakDb;
+    }
+
+    boolean hasGains(float[] expected) {
+        return Arrays.equals(gainsDb, expected);
+    }
+}
@@ -0,0 +1,79 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.util.Arrays;
+
+/**
+ * Preset do equalizador: um nome e o ganho (dB) de cada banda, na ordem das bandas do player
+ * (60 Hz, 230 Hz, 910 Hz, 3,6 kHz e 14 kHz). Os presets prontos são {@link #FLAT},
+ * {@link #BASS_BOOST} e {@link #VOCAL}; {@link #CUSTOM} é o definido pelo usuário e fica salvo
+ * em {@link EqualizerPresetStore}.
+ */
+public final class EqualizerPreset {
+
+    public static final String FLAT = "flat";
+    public static final String BASS_BOOST = "bass_boost";
+    public static final String VOCAL = "vocal";
+    public static final String CUSTOM = "custom";
+
+    public static final String[] NAMES = {FLAT, BASS_BOOST, VOCAL, CUSTOM};
+
+    private static final float[] FLAT_GAINS_DB = {0f, 0f, 0f, 0f, 0f};
+    private static final float[] BASS_BOOST_GAINS_DB = {6f, 3.5f, 0f, 0f, 0f};
+    // Médios e presença à frente, graves um pouco recuados
+    private static final float[] VOCAL_GAINS_DB = {-3f, -1f, 2.5f, 3.5f, 1f};
+
+    private final String name;
+    private final float[] gainsDb;
+
+    public EqualizerPreset(String name, float[] gainsDb) {
+        this.name = name;
+        this.gainsDb = gainsDb.clone();
+    }
+
+    /**
+     * @return o preset pronto com esse nome, ou null se não for um deles (incluindo {@link #CUSTOM})
+     */
+    public static EqualizerPreset builtIn(String name) {
+        switch (name) {
+            case FLAT:
+                return new EqualizerPreset(FLAT, FLAT_GAINS_DB);
+            case BASS_BOOST:
+                return new EqualizerPreset(BASS_BOOST, BASS_BOOST_GAINS_DB);
+            case VOCAL:
+                return new EqualizerPreset(VOCAL, VOCAL_GAINS_DB);
+            default:
+                return null;
+        }
+    }
+
+    public static boolean isValidName(String name) {
+        return Arrays.asList(NAMES).contains(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float[] getGainsDb() {
+        return gainsDb.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof EqualizerPreset)) {
+            return false;
+        }
+
+        EqualizerPreset other = (EqualizerPreset) o;
+        return name.equals(other.name) && Arrays.equals(gainsDb, other.gainsDb);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + Arrays.hashCode(gainsDb);
+    }
+}
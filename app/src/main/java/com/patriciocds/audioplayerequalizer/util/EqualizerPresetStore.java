@@ -0,0 +1,113 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Guarda localmente (SharedPreferences) o preset selecionado e os ganhos do preset
+ * {@link EqualizerPreset#CUSTOM}. As gravações são assíncronas ({@code apply()}), então podem ser
+ * feitas a cada movimento de um slider.
+ */
+public class EqualizerPresetStore {
+
+    static final String PREFERENCES_NAME = "equalizer_presets";
+
+    private static final String KEY_SELECTED = "selected";
+    private static final String KEY_CUSTOM_GAINS = "custom_gains";
+
+    private final SharedPreferences preferences;
+
+    public EqualizerPresetStore(Context context) {
+        preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return nome do preset selecionado ({@link EqualizerPreset#FLAT} se nenhum foi escolhido)
+     */
+    public String getSelectedName() {
+        String name = preferences.getString(KEY_SELECTED, EqualizerPreset.FLAT);
+        return EqualizerPreset.isValidName(name) ? name : EqualizerPreset.FLAT;
+    }
+
+    public EqualizerPreset getSelected() {
+        return get(getSelectedName());
+    }
+
+    /**
+     * @return o preset com esse nome; o {@link EqualizerPreset#CUSTOM} vem com os ganhos salvos
+     * (plano enquanto nada foi salvo)
+     */
+    public EqualizerPreset get(String name) {
+        if (EqualizerPreset.CUSTOM.equals(name)) {
+            return new EqualizerPreset(EqualizerPreset.CUSTOM, getCustomGainsDb());
+        }
+
+        EqualizerPreset preset = EqualizerPreset.builtIn(name);
+
+        if (preset == null) {
+            throw new IllegalArgumentException("Preset desconhecido: " + name);
+        }
+
+        return preset;
+    }
+
+    public void select(String name) {
+        if (!EqualizerPreset.isValidName(name)) {
+            throw new IllegalArgumentException("Preset desconhecido: " + name);
+        }
+
+        preferences.edit().putString(KEY_SELECTED, name).apply();
+    }
+
+    /**
+     * Salva os ganhos do preset {@link EqualizerPreset#CUSTOM} e o seleciona.
+     */
+    public void saveCustom(float[] gainsDb) {
+        preferences.edit()
+                .putString(KEY_CUSTOM_GAINS, encode(gainsDb))
+                .putString(KEY_SELECTED, EqualizerPreset.CUSTOM)
+                .apply();
+    }
+
+    private float[] getCustomGainsDb() {
+        String encoded = preferences.getString(KEY_CUSTOM_GAINS, null);
+
+        if (encoded != null) {
+            try {
+                return decode(encoded);
+            } catch (NumberFormatException e) {
+                ExceptionUtils.printStackTrace(e);
+            }
+        }
+
+        return EqualizerPreset.builtIn(EqualizerPreset.FLAT).getGainsDb();
+    }
+
+    private static String encode(float[] gainsDb) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < gainsDb.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(gainsDb[i]);
+        }
+
+        return builder.toString();
+    }
+
+    private static float[] decode(String encoded) {
+        if (encoded.isEmpty()) {
+            return new float[0];
+        }
+
+        String[] parts = encoded.split(",");
+        float[] gainsDb = new float[parts.length];
+
+        for (int i = 0; i < parts.length; i++) {
+            gainsDb[i] = Float.parseFloat(parts[i]);
+        }
+
+        return gainsDb;
+    }
+}
@@ -0,0 +1,165 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Medição nativa de loudness (EBU R128 / ITU-R BS.1770) de uma faixa, em uma única passada
+ * incremental sobre o PCM decodificado: cada {@link #process} só filtra e acumula energia, e
+ * {@link #getIntegratedLoudness()} pode ser lido a qualquer momento. Também guarda o pico de
+ * amostra, usado para limitar o ganho de normalização ({@link #replayGainDb(float, float)}).
+ *
+ * <p>Mede o áudio original, antes do equalizador. Não é thread-safe: deve ser usado por uma thread
+ * de cada vez (no player, a do decoder).
+ */
+public class LoudnessMeter {
+
+    /** Nível de referência da normalização, o mesmo do ReplayGain 2.0. */
+    public static final float TARGET_LUFS = -18f;
+
+    static {
+        System.loadLibrary("audio-equalizer-lib");
+    }
+
+    private long nativeHandle;
+    private PcmFormat format;
+
+    /**
+     * Ganho (dB) que leva a faixa a {@link #TARGET_LUFS}, limitado para o pico não passar do
+     * fundo de escala. 0 para silêncio (loudness infinita negativa) ou valores inválidos.
+     */
+    public static float replayGainDb(float integratedLufs, float samplePeak) {
+        if (Float.isInfinite(integratedLufs) || Float.isNaN(integratedLufs)) {
+            return 0f;
+        }
+
+        float gainDb = TARGET_LUFS - integratedLufs;
+
+        if (samplePeak > 0f) {
+            gainDb = Math.min(gainDb, (float) (-20 * Math.log10(samplePeak)));
+        }
+
+        return gainDb;
+    }
+
+    /**
+     * Cria o medidor para PCM intercalado no formato dado (16 bits ou float).
+     */
+    public void create(PcmFormat format) {
+        if (format.isPlanar()) {
+            throw new IllegalArgumentException("O medidor só recebe PCM intercalado");
+        }
+
+        release();
+        nativeHandle = nativeCreate(format.getSampleRate(), format.getChannelCount());
+        this.format = format;
+    }
+
+    public boolean isCreated() {
+        return nativeHandle != 0;
+    }
+
+    /**
+     * @return formato passado na criação, ou null se o medidor não foi criado
+     */
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Acumula {@code length} amostras PCM 16 bits a partir de {@code offset}. O array não é
+     * alterado.
+     */
+    public void process(short[] audioData, int offset, int length) {
+        long handle = requireHandle();
+
+        if (offset < 0 || length < 0 || offset + length > audioData.length) {
+            throw new ArrayIndexOutOfBoundsException("offset/length fora dos limites do buffer");
+        }
+
+        nativeProcess(handle, audioData, offset, length);
+    }
+
+    /**
+     * Acumula {@code size} bytes de um {@link ByteBuffer} direto, na codificação do formato (a
+     * saída do decoder, por exemplo). {@code offset} e {@code size} em bytes; o buffer não é
+     * alterado.
+     */
+    public void process(ByteBuffer audioData, int offset, int size) {
+        long handle = requireHandle();
+        int bytesPerSample = format.getBytesPerSample();
+
+        if (!audioData.isDirect()) {
+            throw new IllegalArgumentException("O buffer deve ser direto (ByteBuffer.allocateDirect)");
+        }
+
+        if (offset < 0 || size < 0 || offset + size > audioData.capacity()) {
+            throw new IndexOutOfBoundsException("offset/size fora dos limites do buffer");
+        }
+
+        if (offset % bytesPerSample != 0 || size % bytesPerSample != 0) {
+            throw new IllegalArgumentException("offset e size devem ser múltiplos de " + bytesPerSample
+                    + " (tamanho da amostra)");
+        }
+
+        nativeProcessDirect(handle, audioData, offset, size, format.getEncoding());
+    }
+
+    /**
+     * @return loudness integrada em LUFS, ou {@link Float#NEGATIVE_INFINITY} enquanto não houver
+     * áudio acima do gate absoluto (-70 LUFS) em pelo menos 400 ms
+     */
+    public float getIntegratedLoudness() {
+        return nativeGetIntegratedLoudness(requireHandle());
+    }
+
+    /**
+     * @return maior |amostra| até agora, em fundo de escala (1.0 = 0 dBFS)
+     */
+    public float getSamplePeak() {
+        return nativeGetSamplePeak(requireHandle());
+    }
+
+    public long getFrameCount() {
+        return nativeGetFrameCount(requireHandle());
+    }
+
+    /**
+     * {@link #replayGainDb(float, float)} com a medição atual.
+     */
+    public float getReplayGainDb() {
+        return replayGainDb(getIntegratedLoudness(), getSamplePeak());
+    }
+
+    /**
+     * Descarta a medição, para começar outra faixa no mesmo formato.
+     */
+    public void reset() {
+        nativeReset(requireHandle());
+    }
+
+    public void release() {
+        if (nativeHandle != 0) {
+            nativeRelease(nativeHandle);
+            nativeHandle = 0;
+            format = null;
+        }
+    }
+
+    private long requireHandle() {
+        if (nativeHandle == 0) {
+            throw new IllegalStateException("LoudnessMeter não foi criado");
+        }
+
+        return nativeHandle;
+    }
+
+    private static native long nativeCreate(int sampleRate, int channelCount);
+    private static native void nativeProcess(long handle, short[] audioData, int offset, int length);
+    private static native void nativeProcessDirect(long handle, ByteBuffer audioData, int offset, int size,
+                                                   int encoding);
+    private static native float nativeGetIntegratedLoudness(long handle);
+    private static native float nativeGetSamplePeak(long handle);
+    private static native long nativeGetFrameCount(long handle);
+    private static native void nativeReset(long handle);
+    private static native void nativeRelease(long handle);
+}
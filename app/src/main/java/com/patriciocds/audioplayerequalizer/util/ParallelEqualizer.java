@@ -0,0 +1,248 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Equaliza um trecho longo de PCM (uma faixa inteira, no processamento em lote) dividindo-o em
+ * chunks processados em paralelo por um {@link ForkJoinPool}, cada worker com o seu
+ * {@link AudioEqualizer}.
+ *
+ * <p>Os filtros são IIR: o estado no início de um chunk depende de todo o áudio anterior. Em vez
+ * de processar os chunks em sequência, cada um começa com o estado zerado e é "aquecido" com os
+ * últimos {@code warmupMs} ms do áudio original que o antecede, cuja saída é descartada. Como a
+ * resposta ao impulso dos biquads decai exponencialmente (a banda mais grave, 60 Hz, fica abaixo
+ * de 1 LSB em poucas dezenas de ms), o resultado fica a no máximo 1 LSB do processamento
+ * sequencial; o primeiro chunk de uma faixa é idêntico. Entre chamadas de {@link #process}, o fim
+ * do trecho anterior aquece o primeiro chunk, então uma faixa pode ser entregue em blocos.
+ *
+ * <p>{@link #process} deve ser chamado de uma thread por vez.
+ */
+public class ParallelEqualizer implements Closeable {
+
+    public static final int DEFAULT_CHUNK_MS = 1000;
+    public static final int DEFAULT_WARMUP_MS = 100;
+
+    private final PcmFormat format;
+    private final EqualizerCoefficients curve;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final int warmupBytes;
+
+    // Um equalizador por worker, com a curva já carregada; todos liberados no close()
+    private final ThreadLocal<AudioEqualizer> equalizers = new ThreadLocal<>();
+    private final List<AudioEqualizer> created = new ArrayList<>();
+
+    // Fim do áudio original da chamada anterior (aquecimento do primeiro chunk); vazio no início
+    private ByteBuffer history;
+    private ByteBuffer nextHistory;
+    // Cópias do áudio original antes de cada chunk, feitas antes de qualquer chunk ser alterado
+    private ByteBuffer warmups = ByteBuffer.allocateDirect(0);
+
+    // Chamada em andamento, lida pelos workers (o invoke() garante a visibilidade)
+    private ByteBuffer audioData;
+    private int offset;
+    private int size;
+
+    public ParallelEqualizer(PcmFormat format, EqualizerCoefficients curve, int parallelism) {
+        this(format, curve, parallelism, DEFAULT_CHUNK_MS, DEFAULT_WARMUP_MS);
+    }
+
+    /**
+     * @param curve       curva calculada para a taxa de {@code format}, com o headroom automático
+     *                    ligado (como na reprodução)
+     * @param parallelism número de workers (1 processa em sequência, mas ainda em chunks)
+     * @param chunkMs     duração de cada chunk; não deve ser menor que {@code warmupMs}
+     * @param warmupMs    aquecimento de cada chunk; maior = mais perto do sequencial e mais lento
+     */
+    public ParallelEqualizer(PcmFormat format, EqualizerCoefficients curve, int parallelism, int chunkMs,
+                             int warmupMs) {
+        if (format.isPlanar()) {
+            throw new IllegalArgumentException("Só PCM intercalado pode ser dividido em chunks");
+        }
+
+        if (curve.getSampleRate() != format.getSampleRate()) {
+            throw new IllegalArgumentException("A curva deve ter a mesma taxa de amostragem do formato");
+        }
+
+        if (parallelism <= 0 || chunkMs <= 0 || warmupMs < 0) {
+            throw new IllegalArgumentException("parallelism e chunkMs devem ser positivos e warmupMs >= 0");
+        }
+
+        this.format = format;
+        this.curve = curve;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkBytes = Math.max(1, format.getSampleRate() * chunkMs / 1000) * format.getFrameSize();
+        this.warmupBytes = format.getSampleRate() * warmupMs / 1000 * format.getFrameSize();
+
+        history = ByteBuffer.allocateDirect(warmupBytes).order(ByteOrder.nativeOrder());
+        nextHistory = ByteBuffer.allocateDirect(warmupBytes).order(ByteOrder.nativeOrder());
+        history.limit(0);
+    }
+
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Equaliza {@code size} bytes a partir de {@code offset} no próprio {@link ByteBuffer} direto,
+     * na codificação do formato. Bloqueia até todos os chunks terminarem.
+     *
+     * @return quantidade de amostras processadas
+     */
+    public int process(ByteBuffer audioData, int offset, int size) {
+        if (!audioData.isDirect()) {
+            throw new IllegalArgumentException("O buffer deve ser direto (ByteBuffer.allocateDirect)");
+        }
+
+        if (offset < 0 || size < 0 || offset + size > audioData.capacity()) {
+            throw new IndexOutOfBoundsException("offset/size fora dos limites do buffer");
+        }
+
+        if (size % format.getFrameSize() != 0) {
+            throw new IllegalArgumentException("size deve conter frames inteiros");
+        }
+
+        if (size == 0) {
+            return 0;
+        }
+
+        this.audioData = audioData;
+        this.offset = offset;
+        this.size = size;
+
+        int chunkCount = (size + chunkBytes - 1) / chunkBytes;
+        snapshotWarmups(chunkCount);
+        snapshotHistory();
+
+        try {
+            pool.invoke(new ChunkTask(0, chunkCount));
+        } finally {
+            this.audioData = null;
+        }
+
+        ByteBuffer previous = history;
+        history = nextHistory;
+        nextHistory = previous;
+
+        return size / format.getBytesPerSample();
+    }
+
+    /**
+     * Esquece o áudio anterior: o próximo {@link #process} é o início de uma nova faixa.
+     */
+    public void reset() {
+        history.limit(0);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+
+        synchronized (created) {
+            for (AudioEqualizer equalizer : created) {
+                equalizer.release();
+            }
+            created.clear();
+        }
+    }
+
+    // O chunk i (i > 0) é aquecido com o áudio original logo antes dele, que o chunk i - 1 vai
+    // sobrescrever: a cópia precisa ser feita antes de qualquer worker começar
+    private void snapshotWarmups(int chunkCount) {
+        int needed = chunkCount * warmupBytes;
+
+        if (warmups.capacity() < needed) {
+            warmups = ByteBuffer.allocateDirect(needed).order(ByteOrder.nativeOrder());
+        }
+
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            int start = offset + chunk * chunkBytes;
+            int length = Math.min(warmupBytes, chunk * chunkBytes);
+            copy(audioData, start - length, length, warmups, chunk * warmupBytes);
+        }
+    }
+
+    // O fim desta chamada (ainda original) aquece o primeiro chunk da próxima
+    private void snapshotHistory() {
+        int length = Math.min(warmupBytes, size);
+        copy(audioData, offset + size - length, length, nextHistory, 0);
+        nextHistory.limit(length);
+    }
+
+    private static void copy(ByteBuffer source, int sourceOffset, int length, ByteBuffer target, int targetOffset) {
+        ByteBuffer region = source.duplicate();
+        region.limit(sourceOffset + length).position(sourceOffset);
+
+        ByteBuffer destination = target.duplicate();
+        destination.limit(targetOffset + length).position(targetOffset);
+        destination.put(region);
+    }
+
+    private void processChunk(int chunk) {
+        AudioEqualizer equalizer = equalizer();
+        equalizer.reset();
+
+        if (chunk == 0) {
+            if (history.limit() > 0) {
+                equalizer.process(history, 0, history.limit());
+            }
+        } else if (warmupBytes > 0) {
+            int length = Math.min(warmupBytes, chunk * chunkBytes);
+            equalizer.process(warmups, chunk * warmupBytes, length);
+        }
+
+        int start = offset + chunk * chunkBytes;
+        equalizer.process(audioData, start, Math.min(chunkBytes, offset + size - start));
+    }
+
+    private AudioEqualizer equalizer() {
+        AudioEqualizer equalizer = equalizers.get();
+
+        if (equalizer == null) {
+            equalizer = new AudioEqualizer();
+            equalizer.create(format, curve.getBandCount());
+            equalizer.setAutoHeadroom(true);
+            // Antes do primeiro process() a curva entra sem rampa; o reset() de cada chunk mantém a curva
+            equalizer.load(curve);
+
+            equalizers.set(equalizer);
+            synchronized (created) {
+                created.add(equalizer);
+            }
+        }
+
+        return equalizer;
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        ChunkTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                processChunk(from);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, middle), new ChunkTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+/**
+ * Formato do PCM entregue ao {@link AudioEqualizer}: taxa de amostragem, quantidade de canais,
+ * codificação ({@link #ENCODING_PCM_16BIT} ou {@link #ENCODING_PCM_FLOAT}) e disposição dos canais
+ * ({@link #LAYOUT_INTERLEAVED}, como sai do MediaCodec, ou {@link #LAYOUT_PLANAR}, um bloco
+ * contíguo por canal). Com ele o mesmo motor processa qualquer saída do decoder sem conversão no
+ * Java. Imutável.
+ */
+public final class PcmFormat {
+
+    public static final int ENCODING_PCM_16BIT = 0;
+    public static final int ENCODING_PCM_FLOAT = 1;
+
+    /** L R L R ... */
+    public static final int LAYOUT_INTERLEAVED = 0;
+    /** L L ... R R ...: o canal c começa em {@code c * frames}. */
+    public static final int LAYOUT_PLANAR = 1;
+
+    private final int sampleRate;
+    private final int channelCount;
+    private final int encoding;
+    private final int layout;
+
+    public PcmFormat(int sampleRate, int channelCount, int encoding, int layout) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate deve ser positivo");
+        }
+
+        if (channelCount < 1 || channelCount > AudioEqualizer.MAX_CHANNELS) {
+            throw new IllegalArgumentException("channelCount deve estar entre 1 e " + AudioEqualizer.MAX_CHANNELS);
+        }
+
+        if (encoding != ENCODING_PCM_16BIT && encoding != ENCODING_PCM_FLOAT) {
+            throw new IllegalArgumentException("Codificação inválida: " + encoding);
+        }
+
+        if (layout != LAYOUT_INTERLEAVED && layout != LAYOUT_PLANAR) {
+            throw new IllegalArgumentException("Layout inválido: " + layout);
+        }
+
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.encoding = encoding;
+        this.layout = layout;
+    }
+
+    /**
+     * PCM 16 bits intercalado, o formato padrão do MediaCodec.
+     */
+    public static PcmFormat pcm16(int sampleRate, int channelCount) {
+        return new PcmFormat(sampleRate, channelCount, ENCODING_PCM_16BIT, LAYOUT_INTERLEAVED);
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public int getEncoding() {
+        return encoding;
+    }
+
+    public int getLayout() {
+        return layout;
+    }
+
+    public boolean isPlanar() {
+        return layout == LAYOUT_PLANAR;
+    }
+
+    public int getBytesPerSample() {
+        return encoding == ENCODING_PCM_FLOAT ? 4 : 2;
+    }
+
+    /**
+     * @return bytes de um frame (uma amostra de cada canal)
+     */
+    public int getFrameSize() {
+        return getBytesPerSample() * channelCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof PcmFormat)) {
+            return false;
+        }
+
+        PcmFormat other = (PcmFormat) o;
+        return sampleRate == other.sampleRate && channelCount == other.channelCount
+                && encoding == other.encoding && layout == other.layout;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((sampleRate * 31 + channelCount) * 31 + encoding) * 31 + layout;
+    }
+
+    @Override
+    public String toString() {
+        return sampleRate + " Hz, " + channelCount + " canais, "
+                + (encoding == ENCODING_PCM_FLOAT ? "float" : "16 bits") + ", "
+                + (layout == LAYOUT_PLANAR ? "planar" : "intercalado");
+    }
+}
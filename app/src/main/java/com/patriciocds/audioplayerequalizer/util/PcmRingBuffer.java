@@ -0,0 +1,210 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffer circular de PCM para exatamente um produtor (thread do decoder) e um consumidor
+ * (thread de renderização). Nenhuma operação bloqueia nem aloca: quando não há espaço ou dados
+ * suficientes, write/read transferem o que for possível e retornam a quantidade de bytes.
+ *
+ * <p>Os dados ficam em um ByteBuffer direto (fora do heap), acessível pelo código nativo via
+ * {@link #getBuffer()}. Os índices são contadores de bytes monotônicos; a publicação usa
+ * lazySet (store com semântica release), então os bytes copiados antes de avançar o índice
+ * são sempre visíveis para a outra thread.
+ */
+public final class PcmRingBuffer {
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    // Cada lado usa sua própria view para não compartilhar position/limit
+    private final ByteBuffer producerView;
+    private final ByteBuffer consumerView;
+
+    // Escrito só pelo produtor
+    private final AtomicLong writePosition = new AtomicLong();
+    // Escrito só pelo consumidor
+    private final AtomicLong readPosition = new AtomicLong();
+
+    private final AtomicLong underrunCount = new AtomicLong();
+    private volatile int lowWatermark;
+    // Só do consumidor: o ring já estava vazio na leitura anterior de readAvailable (ou ainda não
+    // entregou nada), então uma nova leitura vazia não é outro underrun
+    private boolean drained = true;
+
+    /**
+     * @param minCapacityBytes capacidade mínima; é arredondada para a próxima potência de 2
+     */
+    public PcmRingBuffer(int minCapacityBytes) {
+        if (minCapacityBytes <= 0 || minCapacityBytes > (1 << 30)) {
+            throw new IllegalArgumentException("Capacidade inválida: " + minCapacityBytes);
+        }
+
+        capacity = minCapacityBytes == 1 ? 1 : Integer.highestOneBit(minCapacityBytes - 1) << 1;
+        mask = capacity - 1;
+
+        buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        producerView = buffer.duplicate().order(ByteOrder.nativeOrder());
+        consumerView = buffer.duplicate().order(ByteOrder.nativeOrder());
+        lowWatermark = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Bytes disponíveis para leitura (nível de preenchimento).
+     */
+    public int getFillLevel() {
+        return (int) (writePosition.get() - readPosition.get());
+    }
+
+    public int getFreeSpace() {
+        return capacity - getFillLevel();
+    }
+
+    /**
+     * Underruns desde o último resetStatistics: leituras de {@link #read} com menos dados do que
+     * o pedido e vezes em que {@link #readAvailable} encontrou o ring esvaziado.
+     */
+    public long getUnderrunCount() {
+        return underrunCount.get();
+    }
+
+    /**
+     * Menor nível de preenchimento observado em uma leitura desde o último resetStatistics.
+     * Útil para dimensionar a profundidade do buffer em cada aparelho.
+     */
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public void resetStatistics() {
+        underrunCount.set(0);
+        lowWatermark = capacity;
+    }
+
+    /**
+     * Região de memória compartilhável com o código nativo. Não altere position/limit dela
+     * enquanto produtor e consumidor estiverem ativos.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Produtor: copia até source.remaining() bytes, avançando source.position.
+     *
+     * @return bytes copiados (0 se o buffer estiver cheio)
+     */
+    public int write(ByteBuffer source) {
+        final long write = writePosition.get();
+        final int free = capacity - (int) (write - readPosition.get());
+        final int length = Math.min(free, source.remaining());
+
+        if (length == 0) {
+            return 0;
+        }
+
+        final int start = (int) write & mask;
+        final int first = Math.min(length, capacity - start);
+        final int sourceLimit = source.limit();
+
+        source.limit(source.position() + first);
+        producerView.limit(start + first).position(start);
+        producerView.put(source);
+
+        if (first < length) {
+            source.limit(source.position() + length - first);
+            producerView.limit(length - first).position(0);
+            producerView.put(source);
+        }
+
+        source.limit(sourceLimit);
+        writePosition.lazySet(write + length);
+
+        return length;
+    }
+
+    /**
+     * Consumidor: copia até length bytes para destination (a partir de destination.position,
+     * que é avançada). Conta um underrun quando há menos dados do que o pedido.
+     *
+     * @return bytes copiados
+     */
+    public int read(ByteBuffer destination, int length) {
+        final long read = readPosition.get();
+        final int available = available(read);
+
+        if (available < length) {
+            underrunCount.incrementAndGet();
+        }
+
+        return copy(destination, read, Math.min(Math.min(available, length), destination.remaining()));
+    }
+
+    /**
+     * Consumidor: copia o que houver, até destination.remaining() bytes. Uma leitura parcial não
+     * é underrun; só conta um quando o ring, que já tinha entregue dados, é encontrado vazio. As
+     * leituras vazias seguintes (o consumidor esperando o produtor) não contam de novo, nem as
+     * anteriores ao primeiro dado (início da reprodução ou depois de {@link #clear()}).
+     *
+     * @return bytes copiados
+     */
+    public int readAvailable(ByteBuffer destination) {
+        final long read = readPosition.get();
+        final int available = available(read);
+
+        if (available > 0) {
+            drained = false;
+        } else if (!drained) {
+            drained = true;
+            underrunCount.incrementAndGet();
+        }
+
+        return copy(destination, read, Math.min(available, destination.remaining()));
+    }
+
+    private int available(long read) {
+        final int available = (int) (writePosition.get() - read);
+
+        if (available < lowWatermark) {
+            lowWatermark = available;
+        }
+
+        return available;
+    }
+
+    private int copy(ByteBuffer destination, long read, int count) {
+        if (count == 0) {
+            return 0;
+        }
+
+        final int start = (int) read & mask;
+        final int first = Math.min(count, capacity - start);
+
+        consumerView.limit(start + first).position(start);
+        destination.put(consumerView);
+
+        if (first < count) {
+            consumerView.limit(count - first).position(0);
+            destination.put(consumerView);
+        }
+
+        readPosition.lazySet(read + count);
+
+        return count;
+    }
+
+    /**
+     * Descarta o conteúdo. Só pode ser chamado com produtor e consumidor parados (ex.: seek).
+     */
+    public void clear() {
+        readPosition.set(writePosition.get());
+        drained = true;
+    }
+}
@@ -6,10 +6,13 @@ import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.IBinder;
 import android.os.RemoteException;
+import android.os.SystemClock;
 
 import com.patriciocds.audioplayerequalizer.PlaybackCallback;
 import com.patriciocds.audioplayerequalizer.PlaybackInterface;
 import com.patriciocds.audioplayerequalizer.service.AudioService;
+import com.patriciocds.audioplayerequalizer.service.MusicData;
+import com.patriciocds.audioplayerequalizer.service.PlaybackStateBlock;
 
 public class Playback {
 
@@ -19,6 +22,26 @@ public class Playback {
     private PlaybackInterface mediaPlayer;
     private boolean isBound = false;
 
+    // Cache do volume máximo do stream: não muda enquanto o serviço está conectado
+    private int musicMaxVolume = -1;
+
+    // Arrastar um SeekBar gera dezenas de eventos por segundo; só o último valor de cada
+    // frame chega ao serviço
+    private final CommandCoalescer seekCoalescer = new CommandCoalescer(this::sendSeekTo);
+    private final CommandCoalescer volumeCoalescer = new CommandCoalescer(this::sendVolume);
+
+    // Última posição recebida e o uptime em que o serviço a leu, para extrapolar localmente
+    private volatile int lastPositionMs;
+    private volatile long lastPositionUptimeMs;
+    private volatile boolean playing;
+
+    // Bloco de estado do serviço em memória compartilhada: isPlaying, getDuration, getMusicVolume
+    // e a posição estimada são lidos dele sem IPC. Null até conectar (ou se o serviço não o tem).
+    private PlaybackStateBlock stateBlock;
+    // No mesmo processo o binder devolve a instância do próprio serviço, que não pode ser fechada
+    private boolean ownsStateBlock;
+    private final PlaybackStateBlock.Snapshot state = new PlaybackStateBlock.Snapshot();
+
     private final PlaybackCallback callback = new PlaybackCallback.Stub() {
         @Override
         public void onMusicComplete() {
@@ -26,8 +49,20 @@ public class Playback {
         }
 
         @Override
-        public void onProgress(String musicTitle, String artist, int position) {
-            playbackEvents.onMusicProgress(musicTitle, artist, position);
+        public void onTrackChanged(MusicData musicData, int durationMs) {
+            playbackEvents.onTrackChanged(musicData, durationMs);
+        }
+
+        @Override
+        public void onPosition(int positionMs, long uptimeMs) {
+            lastPositionMs = positionMs;
+            lastPositionUptimeMs = uptimeMs;
+            playbackEvents.onMusicPosition(getEstimatedPosition());
+        }
+
+        @Override
+        public void onPlaybackStateChanged(boolean isPlaying) {
+            playing = isPlaying;
         }
     };
 
@@ -39,6 +74,11 @@ public class Playback {
 
             try {
                 mediaPlayer.registerCallback(callback);
+
+                synchronized (state) {
+                    stateBlock = mediaPlayer.getStateBlock();
+                    ownsStateBlock = !(mediaPlayer instanceof PlaybackInterface.Stub);
+                }
             } catch (RemoteException e) {
                 ExceptionUtils.printStackTrace(e);
             }
@@ -50,6 +90,10 @@ public class Playback {
         public void onServiceDisconnected(ComponentName name) {
             isBound = false;
             mediaPlayer = null;
+            musicMaxVolume = -1;
+            releaseStateBlock();
+            seekCoalescer.cancel();
+            volumeCoalescer.cancel();
         }
     };
 
@@ -76,60 +120,230 @@ public class Playback {
                 ExceptionUtils.printStackTrace(e);
             }
 
+            seekCoalescer.flush();
+            volumeCoalescer.flush();
+
             context.unbindService(serviceConnection);
             isBound = false;
+            musicMaxVolume = -1;
+            releaseStateBlock();
+        }
+    }
+
+    private void releaseStateBlock() {
+        synchronized (state) {
+            if (stateBlock != null && ownsStateBlock) {
+                stateBlock.close();
+            }
+
+            stateBlock = null;
         }
     }
 
-    public void play(String path) {
-        if (isConnected()) {
-            Intent intent = new Intent(context, AudioService.class);
-            intent.setAction(AudioService.ACTION_PLAY);
-            intent.putExtra(AudioService.EXTRA_AUDIO_PATH, path);
+    /**
+     * Lê o bloco de estado para {@link #state}. Deve ser chamado com o lock de state.
+     */
+    private boolean readState() {
+        return isConnected() && stateBlock != null && stateBlock.read(state);
+    }
+
+    public void play(MusicData musicData) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.play(musicData);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
 
-            context.startService(intent);
+    /**
+     * Pede ao serviço que prepare a próxima música antecipadamente, para que a transição
+     * seja imediata ao fim da atual (ou no próximo play com o mesmo path).
+     */
+    public void prepareNext(MusicData musicData) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.prepareNext(musicData);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
         }
     }
 
     public void pause() {
-        if (isConnected()) {
-            Intent intent = new Intent(context, AudioService.class);
-            intent.setAction(AudioService.ACTION_PAUSE);
+        try {
+            if (isConnected()) {
+                mediaPlayer.pause();
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
 
-            context.startService(intent);
+    public void resume() {
+        try {
+            if (isConnected()) {
+                mediaPlayer.resume();
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
         }
     }
 
     public void stop() {
-        if (isConnected()) {
-            Intent intent = new Intent(context, AudioService.class);
-            intent.setAction(AudioService.ACTION_STOP);
-
-            context.startService(intent);
+        try {
+            if (isConnected()) {
+                mediaPlayer.stop();
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
         }
     }
 
+    /**
+     * Seek agrupado por frame: pode ser chamado a cada evento de arraste.
+     */
     public void seekTo(int position) {
-        if (isConnected()) {
-            Intent intent = new Intent(context, AudioService.class);
-            intent.setAction(AudioService.ACTION_SEEK);
-            intent.putExtra(AudioService.EXTRA_SEEK_POSITION, position);
+        seekCoalescer.submit(position);
+    }
+
+    /**
+     * Volume agrupado por frame: pode ser chamado a cada onProgressChanged.
+     */
+    public void setVolume(int volume) {
+        volumeCoalescer.submit(volume);
+    }
+
+    /**
+     * Envia na hora o seek/volume que ainda estiver pendente (ex.: ao soltar o SeekBar).
+     */
+    public void flushPendingCommands() {
+        seekCoalescer.flush();
+        volumeCoalescer.flush();
+    }
 
-            context.startService(intent);
+    private void sendSeekTo(int position) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.seekTo(position);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
         }
     }
 
-    public void setVolume(int volume) {
-        if (isConnected()) {
-            Intent intent = new Intent(context, AudioService.class);
-            intent.setAction(AudioService.ACTION_UPDATE_VOLUME);
-            intent.putExtra(AudioService.EXTRA_VOLUME, volume);
+    private void sendVolume(int volume) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.setVolume(volume);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
 
-            context.startService(intent);
+    /**
+     * @param engine AudioService.ENGINE_MEDIA_PLAYER ou AudioService.ENGINE_AUDIO_TRACK
+     * @param bufferSizeMs tamanho do buffer do AudioTrack (só para ENGINE_AUDIO_TRACK)
+     */
+    public void setEngine(int engine, int bufferSizeMs) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.setEngine(engine, bufferSizeMs);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
+
+    /**
+     * @param name um de {@link EqualizerPreset#NAMES}; fica salvo e vale também para os próximos players
+     */
+    public void setEqualizerPreset(String name) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.setEqualizerPreset(name);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
+
+    /**
+     * Ganhos (dB) do preset {@link EqualizerPreset#CUSTOM}, que passa a ser o selecionado. Pode ser
+     * chamado a cada movimento de um slider.
+     */
+    public void setCustomEqualizer(float[] gainsDb) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.setCustomEqualizer(gainsDb);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
+
+    public String getEqualizerPreset() {
+        try {
+            return isConnected() ? mediaPlayer.getEqualizerPreset() : EqualizerPreset.FLAT;
+        } catch (RemoteException e) {
+            return EqualizerPreset.FLAT;
+        }
+    }
+
+    /**
+     * Pede ao serviço a posição a cada intervalMs (0 para parar, ex.: quando a tela some).
+     */
+    public void setProgressInterval(int intervalMs) {
+        try {
+            if (isConnected()) {
+                mediaPlayer.setProgressInterval(callback, intervalMs);
+            }
+        } catch (RemoteException e) {
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
+
+    /**
+     * Posição atual estimada a partir do bloco de estado (ou do último onPosition), sem chamar
+     * o serviço.
+     */
+    public int getEstimatedPosition() {
+        synchronized (state) {
+            if (readState()) {
+                return state.estimatePosition(SystemClock.uptimeMillis());
+            }
+        }
+
+        if (!playing) {
+            return lastPositionMs;
+        }
+
+        return (int) (lastPositionMs + SystemClock.uptimeMillis() - lastPositionUptimeMs);
+    }
+
+    public boolean isPlaying() {
+        synchronized (state) {
+            if (readState()) {
+                return state.isPlaying();
+            }
+        }
+
+        try {
+            return isConnected() && mediaPlayer.isPlaying();
+        } catch (RemoteException e) {
+            return false;
         }
     }
 
     public int getDuration() {
+        synchronized (state) {
+            if (readState()) {
+                return state.durationMs;
+            }
+        }
+
         try {
             return isConnected() ? mediaPlayer.getDuration() : 0;
         } catch (RemoteException e) {
@@ -137,15 +351,38 @@ public class Playback {
         }
     }
 
+    public MusicData getMusicData() {
+        try {
+            return isConnected() ? mediaPlayer.getMusicData() : null;
+        } catch (RemoteException e) {
+            return null;
+        }
+    }
+
     public int getMusicMaxVolume() {
+        if (musicMaxVolume >= 0) {
+            return musicMaxVolume;
+        }
+
         try {
-            return isConnected() ? mediaPlayer.getMusicMaxVolume() : 0;
+            if (isConnected()) {
+                musicMaxVolume = mediaPlayer.getMusicMaxVolume();
+                return musicMaxVolume;
+            }
         } catch (RemoteException e) {
-            return 0;
+            ExceptionUtils.printStackTrace(e);
         }
+
+        return 0;
     }
 
     public int getMusicVolume() {
+        synchronized (state) {
+            if (readState()) {
+                return state.volume;
+            }
+        }
+
         try {
             return isConnected() ? mediaPlayer.getMusicVolume() : 0;
         } catch (RemoteException e) {
@@ -156,6 +393,7 @@ public class Playback {
     public interface PlaybackEvents {
         void onMusicServiceConnected();
         void onMusicComplete();
-        void onMusicProgress(String musicTitle, String artist, int position);
+        void onTrackChanged(MusicData musicData, int durationMs);
+        void onMusicPosition(int positionMs);
     }
 }
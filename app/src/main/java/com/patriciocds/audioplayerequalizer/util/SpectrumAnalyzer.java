@@ -0,0 +1,140 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Análise nativa do áudio equalizado para o visualizador: nível RMS/pico, RMS/pico por banda
+ * (bandas logarítmicas de 20 Hz até Nyquist) e o espectro de uma FFT com janela de Hann, todos
+ * em dBFS. Recebe as amostras do {@link AudioEqualizer} ao qual está ligado
+ * ({@link AudioEqualizer#setAnalyzer(SpectrumAnalyzer)}) e recalcula {@code updateRateHz}
+ * vezes por segundo, no próprio thread de áudio e sem alocação.
+ *
+ * <p>O resultado é lido com {@link #read(float[])} em um array alocado uma vez com
+ * {@link #getResultSize()} floats: {@link #INDEX_RMS}, {@link #INDEX_PEAK}, depois
+ * {@link #getBandRmsIndex(int)}, {@link #getBandPeakIndex(int)} e {@link #getSpectrumIndex(int)}
+ * (bin k = k * sampleRate / fftSize Hz). A leitura nunca bloqueia o thread de áudio.
+ */
+public class SpectrumAnalyzer {
+
+    public static final int INDEX_RMS = 0;
+    public static final int INDEX_PEAK = 1;
+
+    /** Piso de todos os níveis (silêncio). */
+    public static final float SILENCE_DB = -120f;
+
+    public static final int DEFAULT_FFT_SIZE = 1024;
+    public static final int DEFAULT_BAND_COUNT = 16;
+    public static final float DEFAULT_UPDATE_RATE_HZ = 30f;
+
+    private static final int HEADER_SIZE = 2;
+    private static final int MAX_BANDS = 64;
+
+    static {
+        System.loadLibrary("audio-equalizer-lib");
+    }
+
+    private long nativeHandle;
+    private int bandCount;
+    private int fftSize;
+    private int resultSize;
+
+    /**
+     * @param fftSize tamanho da FFT, arredondado para uma potência de 2 entre 64 e 8192
+     * @param bandCount quantidade de bandas (1 a 64)
+     * @param updateRateHz quantas análises por segundo de áudio
+     */
+    public synchronized void create(int fftSize, int bandCount, float updateRateHz) {
+        if (bandCount < 1 || bandCount > MAX_BANDS) {
+            throw new IllegalArgumentException("bandCount deve estar entre 1 e " + MAX_BANDS);
+        }
+
+        if (updateRateHz <= 0) {
+            throw new IllegalArgumentException("updateRateHz deve ser positivo");
+        }
+
+        release();
+        nativeHandle = nativeCreate(fftSize, bandCount, updateRateHz);
+        this.bandCount = bandCount;
+        this.fftSize = nativeGetFftSize(nativeHandle);
+        this.resultSize = nativeGetResultSize(nativeHandle);
+    }
+
+    public boolean isCreated() {
+        return nativeHandle != 0;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    /** Tamanho do array esperado por {@link #read(float[])}. */
+    public int getResultSize() {
+        return resultSize;
+    }
+
+    public int getBandRmsIndex(int band) {
+        return HEADER_SIZE + band;
+    }
+
+    public int getBandPeakIndex(int band) {
+        return HEADER_SIZE + bandCount + band;
+    }
+
+    public int getSpectrumIndex(int bin) {
+        return HEADER_SIZE + 2 * bandCount + bin;
+    }
+
+    /**
+     * Copia a análise mais recente para {@code out} (até {@code out.length} floats).
+     *
+     * @return número sequencial da análise copiada; igual ao da leitura anterior quando não há
+     * nada novo, 0 enquanto nenhuma análise foi feita
+     */
+    public synchronized long read(float[] out) {
+        return nativeRead(requireHandle(), out);
+    }
+
+    /**
+     * Mesmo que {@link #read(float[])}, em um {@link ByteBuffer} direto (floats na ordem nativa).
+     */
+    public synchronized long read(ByteBuffer out) {
+        if (!out.isDirect()) {
+            throw new IllegalArgumentException("O buffer deve ser direto (ByteBuffer.allocateDirect)");
+        }
+
+        return nativeReadDirect(requireHandle(), out);
+    }
+
+    /**
+     * Libera o analisador. Deve ser desligado de qualquer {@link AudioEqualizer} antes.
+     */
+    public synchronized void release() {
+        if (nativeHandle != 0) {
+            nativeRelease(nativeHandle);
+            nativeHandle = 0;
+        }
+    }
+
+    long getNativeHandle() {
+        return nativeHandle;
+    }
+
+    private long requireHandle() {
+        if (nativeHandle == 0) {
+            throw new IllegalStateException("SpectrumAnalyzer não foi criado");
+        }
+
+        return nativeHandle;
+    }
+
+    private static native long nativeCreate(int fftSize, int bandCount, float updateRateHz);
+    private static native int nativeGetFftSize(long handle);
+    private static native int nativeGetResultSize(long handle);
+    private static native long nativeRead(long handle, float[] out);
+    private static native long nativeReadDirect(long handle, ByteBuffer out);
+    private static native void nativeRelease(long handle);
+}
@@ -0,0 +1,115 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Dados de uma faixa derivados do arquivo (duração, formato, loudness), guardados pelo
+ * {@link TrackInfoCache} para não abrir o arquivo de novo. Imutável: cada atualização cria uma
+ * cópia. Só vale para a mesma impressão digital do arquivo (tamanho e data de modificação).
+ */
+public final class TrackInfo {
+
+    /** Valor de {@link #getDurationMs()} e {@link #getSampleRate()} enquanto não forem conhecidos. */
+    public static final int UNKNOWN = -1;
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final long durationMs;
+    private final int sampleRate;
+    private final int channelCount;
+    private final float loudnessLufs;
+    private final float gainDb;
+
+    TrackInfo(String path, long size, long lastModified, long durationMs, int sampleRate, int channelCount,
+              float loudnessLufs, float gainDb) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.durationMs = durationMs;
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.loudnessLufs = loudnessLufs;
+        this.gainDb = gainDb;
+    }
+
+    /**
+     * Entrada vazia (nada medido ainda) para a impressão digital dada.
+     */
+    static TrackInfo empty(String path, long size, long lastModified) {
+        return new TrackInfo(path, size, lastModified, UNKNOWN, UNKNOWN, UNKNOWN, Float.NaN, Float.NaN);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /** Tamanho do arquivo em bytes (-1 para recursos do app). */
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /** Duração em ms, ou {@link #UNKNOWN}. */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /** Taxa de amostragem na saída do decoder (não a do contêiner), ou {@link #UNKNOWN}. */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /** Canais decodificados, ou {@link #UNKNOWN}. */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public boolean hasDuration() {
+        return durationMs != UNKNOWN;
+    }
+
+    public boolean hasFormat() {
+        return sampleRate != UNKNOWN;
+    }
+
+    /** Loudness integrada em LUFS ({@link Float#NEGATIVE_INFINITY} para silêncio), ou NaN. */
+    public float getLoudnessLufs() {
+        return loudnessLufs;
+    }
+
+    /** Ganho de normalização ({@link LoudnessMeter#replayGainDb(float, float)}), ou NaN. */
+    public float getGainDb() {
+        return gainDb;
+    }
+
+    public boolean hasLoudness() {
+        return !Float.isNaN(gainDb);
+    }
+
+    boolean matches(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+
+    TrackInfo withDuration(long durationMs) {
+        return new TrackInfo(path, size, lastModified, durationMs, sampleRate, channelCount, loudnessLufs, gainDb);
+    }
+
+    TrackInfo withFormat(int sampleRate, int channelCount) {
+        return new TrackInfo(path, size, lastModified, durationMs, sampleRate, channelCount, loudnessLufs, gainDb);
+    }
+
+    TrackInfo withLoudness(float loudnessLufs, float gainDb) {
+        return new TrackInfo(path, size, lastModified, durationMs, sampleRate, channelCount, loudnessLufs, gainDb);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TrackInfo{" + path + ", " + durationMs + " ms, " + sampleRate + " Hz, " + channelCount + " ch, "
+                + loudnessLufs + " LUFS, " + gainDb + " dB}";
+    }
+}
@@ -0,0 +1,381 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache persistente de {@link TrackInfo}: um arquivo binário pequeno por faixa em
+ * {@code filesDir/track_info}, com um LRU em memória na frente (mesma estratégia do
+ * {@link CoefficientCache}). A UI e o serviço leem duração, formato e loudness sem abrir o áudio.
+ *
+ * <p>Cada entrada é identificada pelo caminho e vale só para a mesma impressão digital do
+ * arquivo (tamanho + data de modificação): um arquivo trocado no mesmo caminho é tratado como
+ * ausente e a entrada antiga é apagada. Recursos do app ({@code android.resource://}) não têm
+ * arquivo; a impressão digital deles é a data da última atualização do app.
+ *
+ * <p>Todo acesso ao disco (a impressão digital, a leitura e a gravação das entradas) roda em uma
+ * única thread de fundo, na ordem das chamadas: um {@link #get} feito depois de um put já vê o
+ * valor novo. Quem chama, inclusive a thread principal, só toca no LRU ({@link #peek}).
+ */
+public class TrackInfoCache {
+
+    public interface Callback {
+        /**
+         * Chamado na thread principal.
+         *
+         * @param info os dados da faixa, ou null se nada foi guardado para o arquivo atual nesse
+         *             caminho (ou ele não existe mais)
+         */
+        void onTrackInfo(String path, TrackInfo info);
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    static final String DIRECTORY = "track_info";
+
+    // "TRKI" e versão do layout; um arquivo com outro cabeçalho é ignorado
+    private static final int MAGIC = 0x54524B49;
+    private static final int VERSION = 1;
+
+    private static final String RESOURCE_SCHEME = "android.resource://";
+
+    // A thread de disco termina depois desse tempo sem tarefas
+    private static final long DISK_THREAD_KEEP_ALIVE_S = 10;
+
+    private final File directory;
+    private final long resourceVersion;
+    private final Executor diskExecutor;
+    private final Executor callbackExecutor;
+    // Protegido por this; o resto do estado é só da thread de disco
+    private final LinkedHashMap<String, TrackInfo> entries;
+
+    private int hitCount;
+    private int missCount;
+
+    public TrackInfoCache(Context context) {
+        this(new File(context.getFilesDir(), DIRECTORY), DEFAULT_CAPACITY, packageUpdateTime(context),
+                createDiskExecutor(), new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * @param resourceVersion  impressão digital dos recursos do app (muda a cada atualização)
+     * @param diskExecutor     executa o acesso ao disco; deve rodar uma tarefa por vez, na ordem
+     * @param callbackExecutor entrega o resultado dos {@link #get}
+     */
+    TrackInfoCache(File directory, int capacity, long resourceVersion, Executor diskExecutor,
+                   Executor callbackExecutor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity deve ser positivo");
+        }
+
+        this.directory = directory;
+        this.resourceVersion = resourceVersion;
+        this.diskExecutor = diskExecutor;
+        this.callbackExecutor = callbackExecutor;
+
+        // accessOrder = true: cada get() move a entrada para o fim, e a mais antiga sai primeiro
+        entries = new LinkedHashMap<String, TrackInfo>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TrackInfo> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Só o LRU, sem tocar no disco: pode ser chamado da thread principal. A entrada não é
+     * conferida com o arquivo, então pode estar desatualizada se ele foi trocado depois de ser
+     * lido; {@link #get} confere.
+     *
+     * @return os dados da faixa, ou null se ela não está na memória
+     */
+    public synchronized TrackInfo peek(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Procura a faixa no LRU ou no disco, conferindo a impressão digital do arquivo, e entrega o
+     * resultado ao callback.
+     */
+    public void get(String path, Callback callback) {
+        diskExecutor.execute(() -> {
+            TrackInfo info = load(path);
+            countLookup(info != null);
+            callbackExecutor.execute(() -> callback.onTrackInfo(path, info));
+        });
+    }
+
+    /**
+     * Traz a faixa do disco para o LRU, para um {@link #peek} posterior (ex.: a próxima faixa da
+     * fila).
+     */
+    public void prefetch(String path) {
+        diskExecutor.execute(() -> load(path));
+    }
+
+    /**
+     * Guarda a duração, mantendo o resto. Não grava nada se ela não mudou.
+     */
+    public void putDuration(String path, long durationMs) {
+        diskExecutor.execute(() -> {
+            TrackInfo info = loadOrEmpty(path);
+
+            if (info != null && info.getDurationMs() != durationMs) {
+                store(info.withDuration(durationMs));
+            }
+        });
+    }
+
+    /**
+     * Guarda o formato de saída do decoder, mantendo o resto. Não grava nada se ele não mudou.
+     */
+    public void putFormat(String path, int sampleRate, int channelCount) {
+        diskExecutor.execute(() -> {
+            TrackInfo info = loadOrEmpty(path);
+
+            if (info != null && (info.getSampleRate() != sampleRate || info.getChannelCount() != channelCount)) {
+                store(info.withFormat(sampleRate, channelCount));
+            }
+        });
+    }
+
+    /**
+     * Guarda a loudness medida e o ganho de normalização, mantendo o resto.
+     */
+    public void putLoudness(String path, float loudnessLufs, float gainDb) {
+        if (Float.isNaN(gainDb) || Float.isInfinite(gainDb)) {
+            throw new IllegalArgumentException("Ganho inválido: " + gainDb);
+        }
+
+        diskExecutor.execute(() -> {
+            TrackInfo info = loadOrEmpty(path);
+
+            if (info != null) {
+                store(info.withLoudness(loudnessLufs, gainDb));
+            }
+        });
+    }
+
+    public void remove(String path) {
+        diskExecutor.execute(() -> delete(path));
+    }
+
+    /**
+     * Esvazia o LRU; o disco continua valendo.
+     */
+    public synchronized void clearMemory() {
+        entries.clear();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    private synchronized void countLookup(boolean hit) {
+        if (hit) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+    }
+
+    private synchronized void remember(TrackInfo info) {
+        entries.put(info.getPath(), info);
+    }
+
+    private synchronized void forget(String path) {
+        entries.remove(path);
+    }
+
+    // Thread de disco
+    private TrackInfo loadOrEmpty(String path) {
+        TrackInfo info = load(path);
+
+        if (info != null) {
+            return info;
+        }
+
+        long[] fingerprint = fingerprint(path);
+        return fingerprint != null ? TrackInfo.empty(path, fingerprint[0], fingerprint[1]) : null;
+    }
+
+    // Thread de disco: do LRU ou do disco, só se a impressão digital ainda bate com o arquivo
+    private TrackInfo load(String path) {
+        long[] fingerprint = fingerprint(path);
+
+        if (fingerprint == null) {
+            return null;
+        }
+
+        TrackInfo info = peek(path);
+
+        if (info == null) {
+            info = read(path);
+        }
+
+        if (info == null || !info.matches(fingerprint[0], fingerprint[1])) {
+            if (info != null) {
+                delete(path);
+            }
+            return null;
+        }
+
+        remember(info);
+        return info;
+    }
+
+    // Thread de disco
+    private void delete(String path) {
+        forget(path);
+        fileFor(path).delete();
+    }
+
+    /**
+     * @return {tamanho, data de modificação}, ou null se o arquivo não existe
+     */
+    private long[] fingerprint(String path) {
+        if (path.contains(RESOURCE_SCHEME)) {
+            return new long[]{-1, resourceVersion};
+        }
+
+        File file = new File(path);
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        return new long[]{file.length(), file.lastModified()};
+    }
+
+    private void store(TrackInfo info) {
+        remember(info);
+
+        try {
+            write(info);
+        } catch (IOException e) {
+            // Continua no LRU; na próxima sessão a faixa só é medida de novo
+            ExceptionUtils.printStackTrace(e);
+        }
+    }
+
+    private TrackInfo read(String path) {
+        File file = fileFor(path);
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                return null;
+            }
+
+            String storedPath = in.readUTF();
+
+            if (!storedPath.equals(path)) {
+                // Colisão do nome do arquivo: a entrada é de outra faixa
+                return null;
+            }
+
+            return new TrackInfo(storedPath, in.readLong(), in.readLong(), in.readLong(), in.readInt(),
+                    in.readInt(), in.readFloat(), in.readFloat());
+        } catch (IOException e) {
+            ExceptionUtils.printStackTrace(e);
+            return null;
+        }
+    }
+
+    // Grava em um temporário e renomeia: uma gravação interrompida nunca deixa a entrada pela metade
+    private void write(TrackInfo info) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Não foi possível criar " + directory);
+        }
+
+        File file = fileFor(info.getPath());
+        File temporary = new File(directory, file.getName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(info.getPath());
+            out.writeLong(info.getSize());
+            out.writeLong(info.getLastModified());
+            out.writeLong(info.getDurationMs());
+            out.writeInt(info.getSampleRate());
+            out.writeInt(info.getChannelCount());
+            out.writeFloat(info.getLoudnessLufs());
+            out.writeFloat(info.getGainDb());
+        }
+
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("Não foi possível gravar " + file);
+        }
+    }
+
+    private File fileFor(String path) {
+        return new File(directory, sha1(path) + ".bin");
+    }
+
+    private static String sha1(String path) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(path.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 faz parte de todas as JVMs/versões do Android
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Executor createDiskExecutor() {
+        // Uma thread só (as tarefas rodam na ordem), criada sob demanda e encerrada quando ociosa
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, DISK_THREAD_KEEP_ALIVE_S, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "TrackInfoCache");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static long packageUpdateTime(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            ExceptionUtils.printStackTrace(e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Grava PCM intercalado em um arquivo WAV, em PCM 16 bits ou float 32 (WAVE_FORMAT_IEEE_FLOAT,
+ * com o chunk "fact"). As amostras são escritas como chegam, sem conversão: devem estar em
+ * little-endian, a ordem nativa de todos os ABIs suportados. Os tamanhos do cabeçalho só são
+ * preenchidos no {@link #close()}.
+ */
+public class WavWriter implements Closeable {
+
+    static final int FORMAT_PCM = 1;
+    static final int FORMAT_IEEE_FLOAT = 3;
+
+    // RIFF + fmt (16 bytes) + data; o float tem cbSize no fmt e o chunk fact
+    static final int PCM_HEADER_SIZE = 44;
+    static final int FLOAT_HEADER_SIZE = 58;
+
+    private static final long MAX_DATA_SIZE = 0xFFFFFFFFL - FLOAT_HEADER_SIZE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final PcmFormat format;
+    private final int headerSize;
+
+    private long dataSize;
+
+    public WavWriter(File output, PcmFormat format) throws IOException {
+        if (format.isPlanar()) {
+            throw new IllegalArgumentException("WAV só guarda PCM intercalado");
+        }
+
+        this.format = format;
+        this.headerSize = isFloat() ? FLOAT_HEADER_SIZE : PCM_HEADER_SIZE;
+
+        file = new RandomAccessFile(output, "rw");
+        file.setLength(0);
+        channel = file.getChannel();
+
+        // Reserva o cabeçalho com os tamanhos zerados; close() reescreve com os valores finais
+        writeHeader();
+    }
+
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Escreve os bytes restantes de {@code samples} (da posição ao limite), que deve conter frames
+     * inteiros. A posição do buffer avança até o limite.
+     */
+    public void write(ByteBuffer samples) throws IOException {
+        int size = samples.remaining();
+
+        if (size % format.getFrameSize() != 0) {
+            throw new IllegalArgumentException("O buffer deve conter frames inteiros");
+        }
+
+        if (dataSize + size > MAX_DATA_SIZE) {
+            throw new IOException("WAV acima de 4 GiB");
+        }
+
+        while (samples.hasRemaining()) {
+            channel.write(samples);
+        }
+
+        dataSize += size;
+    }
+
+    public long getFrameCount() {
+        return dataSize / format.getFrameSize();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeHeader();
+        } finally {
+            file.close();
+        }
+    }
+
+    private boolean isFloat() {
+        return format.getEncoding() == PcmFormat.ENCODING_PCM_FLOAT;
+    }
+
+    private void writeHeader() throws IOException {
+        int bytesPerSample = format.getBytesPerSample();
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        header.put(new byte[]{'R', 'I', 'F', 'F'});
+        header.putInt((int) (headerSize - 8 + dataSize));
+        header.put(new byte[]{'W', 'A', 'V', 'E'});
+
+        header.put(new byte[]{'f', 'm', 't', ' '});
+        header.putInt(isFloat() ? 18 : 16);
+        header.putShort((short) (isFloat() ? FORMAT_IEEE_FLOAT : FORMAT_PCM));
+        header.putShort((short) format.getChannelCount());
+        header.putInt(format.getSampleRate());
+        header.putInt(format.getSampleRate() * format.getFrameSize());
+        header.putShort((short) format.getFrameSize());
+        header.putShort((short) (bytesPerSample * 8));
+
+        if (isFloat()) {
+            header.putShort((short) 0);
+            header.put(new byte[]{'f', 'a', 'c', 't'});
+            header.putInt(4);
+            header.putInt((int) getFrameCount());
+        }
+
+        header.put(new byte[]{'d', 'a', 't', 'a'});
+        header.putInt((int) dataSize);
+
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+
+        if (channel.position() < headerSize) {
+            channel.position(headerSize);
+        }
+    }
+}
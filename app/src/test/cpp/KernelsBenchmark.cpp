@@ -0,0 +1,187 @@
+// Benchmark de host dos kernels do equalizador: mede ns/amostra do EqualizerEngine
+// com os kernels escalares e vetorizados para alguns tamanhos de buffer, números de bandas e
+// formatos de PCM (int16/float32, intercalado/planar).
+//
+//   equalizer-kernels-benchmark                 tabela no terminal
+//   equalizer-kernels-benchmark --json out.json também grava os resultados em JSON
+
+#include <chrono>
+#include <cmath>
+#include <cstdio>
+#include <cstring>
+#include <vector>
+
+#include "EqualizerEngine.h"
+#include "Kernels.h"
+
+using namespace equalizer;
+
+namespace {
+
+const int kSampleRate = 48000;
+const int kChannels = 2;
+const int kTotalSamples = kSampleRate * 20;
+
+struct Format {
+    const char *name;
+    bool isFloat;
+    bool planar;
+};
+
+const Format kFormats[] = {
+        {"int16", false, false},
+        {"int16-planar", false, true},
+        {"float", true, false},
+        {"float-planar", true, true},
+};
+
+struct Result {
+    const char *kernels;
+    const char *format;
+    int bufferSize;
+    int bandCount;
+    double nsPerSample;
+};
+
+void configure(EqualizerEngine &engine, int bandCount) {
+    for (int band = 0; band < bandCount; band++) {
+        const float frequency = 60.0f * std::pow(2.0f, band * 1.0f);
+        engine.configureBand(band, BAND_PEAKING, std::min(frequency, 20000.0f), 1.0f, band % 2 == 0 ? 3.0f : -3.0f);
+    }
+}
+
+// Um passo de processamento no formato pedido; bufferSize é o total de amostras (todos os canais)
+template <typename Sample>
+void processOnce(EqualizerEngine &engine, std::vector<Sample> &buffer, bool planar) {
+    const int bufferSize = static_cast<int>(buffer.size());
+
+    if (!planar) {
+        engine.process(buffer.data(), bufferSize);
+        return;
+    }
+
+    const int frames = bufferSize / kChannels;
+    Sample *channels[kChannels];
+
+    for (int c = 0; c < kChannels; c++) {
+        channels[c] = buffer.data() + c * frames;
+    }
+
+    engine.processPlanar(channels, frames);
+}
+
+template <typename Sample>
+double measure(int bufferSize, int bandCount, bool planar, double scale) {
+    EqualizerEngine engine(kSampleRate, kChannels, bandCount);
+    configure(engine, bandCount);
+
+    std::vector<Sample> buffer(bufferSize);
+    for (int i = 0; i < bufferSize; i++) {
+        buffer[i] = static_cast<Sample>(std::sin(i * 0.05) * scale);
+    }
+
+    const int iterations = kTotalSamples / bufferSize;
+
+    // Aquecimento
+    for (int i = 0; i < iterations / 10; i++) {
+        processOnce(engine, buffer, planar);
+    }
+
+    const auto start = std::chrono::steady_clock::now();
+    for (int i = 0; i < iterations; i++) {
+        processOnce(engine, buffer, planar);
+    }
+    const auto end = std::chrono::steady_clock::now();
+
+    const double nanos = std::chrono::duration<double, std::nano>(end - start).count();
+    return nanos / (static_cast<double>(iterations) * bufferSize);
+}
+
+double measure(const Format &format, int bufferSize, int bandCount) {
+    if (format.isFloat) {
+        return measure<float>(bufferSize, bandCount, format.planar, 0.3);
+    }
+
+    return measure<int16_t>(bufferSize, bandCount, format.planar, 10000.0);
+}
+
+// Mesmo formato que o JMH grava (uma entrada por medição), para os dois lados serem comparados
+// pelas mesmas ferramentas
+bool writeJson(const char *path, const std::vector<Result> &results) {
+    FILE *file = std::fopen(path, "w");
+
+    if (file == nullptr) {
+        return false;
+    }
+
+    std::fprintf(file, "[\n");
+
+    for (size_t i = 0; i < results.size(); i++) {
+        const Result &result = results[i];
+        std::fprintf(file,
+                     "    {\n"
+                     "        \"benchmark\" : \"native.EqualizerEngine.process\",\n"
+                     "        \"params\" : {\n"
+                     "            \"kernels\" : \"%s\",\n"
+                     "            \"format\" : \"%s\",\n"
+                     "            \"bufferSize\" : \"%d\",\n"
+                     "            \"bandCount\" : \"%d\"\n"
+                     "        },\n"
+                     "        \"primaryMetric\" : {\n"
+                     "            \"score\" : %.4f,\n"
+                     "            \"scoreUnit\" : \"ns/sample\"\n"
+                     "        }\n"
+                     "    }%s\n",
+                     result.kernels, result.format, result.bufferSize, result.bandCount, result.nsPerSample,
+                     i + 1 < results.size() ? "," : "");
+    }
+
+    std::fprintf(file, "]\n");
+    return std::fclose(file) == 0;
+}
+
+}
+
+int main(int argc, char **argv) {
+    const char *jsonPath = nullptr;
+
+    for (int i = 1; i < argc; i++) {
+        if (std::strcmp(argv[i], "--json") == 0 && i + 1 < argc) {
+            jsonPath = argv[++i];
+        } else {
+            std::fprintf(stderr, "uso: %s [--json arquivo]\n", argv[0]);
+            return 2;
+        }
+    }
+
+    const int bufferSizes[] = {192, 480, 1024, 4096};
+    const int bandCounts[] = {3, 5, 10};
+
+    std::vector<Result> results;
+
+    std::printf("%-8s %-13s %8s %6s %12s\n", "kernels", "formato", "buffer", "bandas", "ns/amostra");
+
+    for (int simd = 0; simd < 2; simd++) {
+        selectKernels(simd == 1);
+
+        for (const Format &format : kFormats) {
+            for (int bufferSize : bufferSizes) {
+                for (int bandCount : bandCounts) {
+                    const Result result = {activeKernels().name, format.name, bufferSize, bandCount,
+                                           measure(format, bufferSize, bandCount)};
+                    results.push_back(result);
+
+                    std::printf("%-8s %-13s %8d %6d %12.3f\n", result.kernels, result.format, bufferSize,
+                                bandCount, result.nsPerSample);
+                }
+            }
+        }
+    }
+
+    if (jsonPath != nullptr && !writeJson(jsonPath, results)) {
+        std::fprintf(stderr, "Não foi possível gravar %s\n", jsonPath);
+        return 1;
+    }
+
+    return 0;
+}
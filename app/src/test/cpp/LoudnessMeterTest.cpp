@@ -0,0 +1,145 @@
+// Testes de host do medidor de loudness (EBU R128): nível de referência, gates, pesos dos
+// canais e pico.
+
+#include <cmath>
+#include <cstdio>
+#include <cstdlib>
+#include <vector>
+
+#include "LoudnessMeter.h"
+
+using namespace equalizer;
+
+namespace {
+
+int failures = 0;
+
+#define EXPECT_TRUE(condition)                                                   \
+    do {                                                                         \
+        if (!(condition)) {                                                      \
+            std::fprintf(stderr, "%s:%d: falhou: %s\n", __FILE__, __LINE__, #condition); \
+            failures++;                                                          \
+        }                                                                        \
+    } while (0)
+
+// Seno de 997 Hz com o pico em levelDb dBFS, igual em todos os canais
+std::vector<float> sine(int sampleRate, int seconds, int channels, float levelDb) {
+    const int frames = sampleRate * seconds;
+    const double amplitude = std::pow(10.0, levelDb / 20.0);
+    std::vector<float> samples(static_cast<size_t>(frames * channels));
+
+    for (int frame = 0; frame < frames; frame++) {
+        const float value = static_cast<float>(amplitude * std::sin(2.0 * M_PI * 997.0 * frame / sampleRate));
+        for (int channel = 0; channel < channels; channel++) {
+            samples[frame * channels + channel] = value;
+        }
+    }
+
+    return samples;
+}
+
+float measure(int sampleRate, int channels, const std::vector<float> &samples) {
+    LoudnessMeter meter(sampleRate, channels);
+    meter.push(samples.data(), static_cast<int>(samples.size()));
+    return meter.getIntegratedLoudness();
+}
+
+void testReferenceSineMeasuresMinus23() {
+    // EBU Tech 3341, caso 1: seno de 1 kHz a -23 dBFS nos dois canais = -23 LUFS
+    EXPECT_TRUE(std::fabs(measure(48000, 2, sine(48000, 20, 2, -23.0f)) + 23.0f) < 0.1f);
+    EXPECT_TRUE(std::fabs(measure(44100, 2, sine(44100, 20, 2, -23.0f)) + 23.0f) < 0.1f);
+}
+
+void testMonoCountsAsDualMono() {
+    const float stereo = measure(48000, 2, sine(48000, 5, 2, -20.0f));
+    const float mono = measure(48000, 1, sine(48000, 5, 1, -20.0f));
+
+    EXPECT_TRUE(std::fabs(stereo - mono) < 0.01f);
+}
+
+void testSilenceIsGatedOut() {
+    std::vector<float> tone = sine(48000, 10, 2, -20.0f);
+    std::vector<float> withSilence = tone;
+    withSilence.resize(tone.size() * 2, 0.0f);
+
+    // Só os 3 blocos que cruzam a transição (parcialmente cheios) ainda contam: ~0,07 LU
+    EXPECT_TRUE(std::fabs(measure(48000, 2, tone) - measure(48000, 2, withSilence)) < 0.1f);
+}
+
+void testQuietPassageIsBelowRelativeGate() {
+    std::vector<float> loud = sine(48000, 10, 2, -20.0f);
+    std::vector<float> quiet = sine(48000, 10, 2, -50.0f);
+    std::vector<float> both = loud;
+    both.insert(both.end(), quiet.begin(), quiet.end());
+
+    // -50 dBFS passa pelo gate absoluto, mas está 30 LU abaixo: não puxa a média para baixo (só
+    // os blocos da transição, como no teste do silêncio)
+    EXPECT_TRUE(std::fabs(measure(48000, 2, loud) - measure(48000, 2, both)) < 0.1f);
+}
+
+void testIncrementalPushesMatchOneShot() {
+    std::vector<float> samples = sine(48000, 5, 2, -15.0f);
+    LoudnessMeter meter(48000, 2);
+
+    // Pedaços que não caem nas fronteiras de 100 ms nem de frame
+    for (size_t offset = 0; offset < samples.size(); offset += 1001) {
+        const int count = static_cast<int>(std::min<size_t>(1001, samples.size() - offset));
+        meter.push(samples.data() + offset, count);
+    }
+
+    EXPECT_TRUE(std::fabs(meter.getIntegratedLoudness() - measure(48000, 2, samples)) < 0.05f);
+}
+
+void testInt16MatchesFloatAndTracksPeak() {
+    std::vector<float> samples = sine(48000, 3, 2, -6.0f);
+    std::vector<int16_t> pcm16(samples.size());
+
+    for (size_t i = 0; i < samples.size(); i++) {
+        pcm16[i] = static_cast<int16_t>(std::lround(samples[i] * 32767.0f));
+    }
+
+    LoudnessMeter meter(48000, 2);
+    meter.push(pcm16.data(), static_cast<int>(pcm16.size()));
+
+    EXPECT_TRUE(std::fabs(meter.getIntegratedLoudness() - measure(48000, 2, samples)) < 0.01f);
+    EXPECT_TRUE(std::fabs(meter.getSamplePeak() - 0.501f) < 0.002f);
+    EXPECT_TRUE(meter.getFrameCount() == 48000 * 3);
+}
+
+void testSilenceAndResetReportNothing() {
+    LoudnessMeter meter(48000, 2);
+    EXPECT_TRUE(std::isinf(meter.getIntegratedLoudness()));
+
+    std::vector<float> silence(48000 * 2, 0.0f);
+    meter.push(silence.data(), static_cast<int>(silence.size()));
+    EXPECT_TRUE(std::isinf(meter.getIntegratedLoudness()));
+
+    std::vector<float> tone = sine(48000, 1, 2, -20.0f);
+    meter.push(tone.data(), static_cast<int>(tone.size()));
+    EXPECT_TRUE(!std::isinf(meter.getIntegratedLoudness()));
+
+    meter.reset();
+    EXPECT_TRUE(std::isinf(meter.getIntegratedLoudness()));
+    EXPECT_TRUE(meter.getSamplePeak() == 0.0f);
+    EXPECT_TRUE(meter.getFrameCount() == 0);
+}
+
+}
+
+int main() {
+    testReferenceSineMeasuresMinus23();
+    testMonoCountsAsDualMono();
+    testSilenceIsGatedOut();
+    testQuietPassageIsBelowRelativeGate();
+    testIncrementalPushesMatchOneShot();
+    testInt16MatchesFloatAndTracksPeak();
+    testSilenceAndResetReportNothing();
+
+    if (failures > 0) {
+        std::fprintf(stderr, "%d verificação(ões) falharam\n", failures);
+        return EXIT_FAILURE;
+    }
+
+    std::printf("Todos os testes do medidor de loudness passaram\n");
+    return EXIT_SUCCESS;
+}
@@ -0,0 +1,165 @@
+// Testes de host do analisador de espectro: posição e nível dos picos, bandas, decimação e
+// integração com o motor do equalizador.
+
+#include <cmath>
+#include <cstdio>
+#include <cstdlib>
+#include <vector>
+
+#include "EqualizerEngine.h"
+#include "SpectrumAnalyzer.h"
+
+using namespace equalizer;
+
+namespace {
+
+int failures = 0;
+
+#define EXPECT_TRUE(condition)                                                   \
+    do {                                                                         \
+        if (!(condition)) {                                                      \
+            std::fprintf(stderr, "%s:%d: falhou: %s\n", __FILE__, __LINE__, #condition); \
+            failures++;                                                          \
+        }                                                                        \
+    } while (0)
+
+const int kSampleRate = 48000;
+
+std::vector<float> sine(int frames, int channels, float frequency, float amplitude) {
+    std::vector<float> samples(static_cast<size_t>(frames * channels));
+
+    for (int frame = 0; frame < frames; frame++) {
+        const float value = amplitude * static_cast<float>(std::sin(2.0 * M_PI * frequency * frame / kSampleRate));
+        for (int channel = 0; channel < channels; channel++) {
+            samples[frame * channels + channel] = value;
+        }
+    }
+
+    return samples;
+}
+
+void testSineLandsOnItsBinWithItsAmplitude() {
+    SpectrumAnalyzer analyzer(1024, 16, 50.0f);
+    const int size = analyzer.getResultSize();
+    std::vector<float> result(static_cast<size_t>(size));
+
+    // Frequência exatamente no bin 64 (64 * 48000 / 1024 = 3000 Hz)
+    std::vector<float> samples = sine(4800, 1, 3000.0f, 0.5f);
+    analyzer.push(samples.data(), 4800, 1, kSampleRate);
+
+    EXPECT_TRUE(analyzer.read(result.data(), size) > 0);
+
+    const float *spectrum = result.data() + SpectrumAnalyzer::kHeaderSize + 2 * 16;
+    int loudest = 0;
+    for (int k = 1; k < 512; k++) {
+        if (spectrum[k] > spectrum[loudest]) {
+            loudest = k;
+        }
+    }
+
+    EXPECT_TRUE(loudest == 64);
+    // Amplitude 0.5 = -6.02 dBFS
+    EXPECT_TRUE(std::fabs(spectrum[64] - (-6.02f)) < 0.1f);
+    // Longe do pico a janela de Hann derruba o vazamento para bem abaixo do sinal
+    EXPECT_TRUE(spectrum[200] < -80.0f);
+
+    // RMS de uma senoide de amplitude 0.5 = 0.3536 = -9.03 dBFS
+    EXPECT_TRUE(std::fabs(result[SpectrumAnalyzer::kIndexRms] - (-9.03f)) < 0.1f);
+    EXPECT_TRUE(std::fabs(result[SpectrumAnalyzer::kIndexPeak] - (-6.02f)) < 0.1f);
+}
+
+void testBandLevelsFollowTheSignal() {
+    const int bands = 10;
+    SpectrumAnalyzer analyzer(2048, bands, 20.0f);
+    const int size = analyzer.getResultSize();
+    std::vector<float> result(static_cast<size_t>(size));
+
+    std::vector<float> samples = sine(4800, 2, 1000.0f, 0.5f);
+    analyzer.push(samples.data(), 4800, 2, kSampleRate);
+    analyzer.read(result.data(), size);
+
+    int loudestBand = 0;
+    for (int band = 1; band < bands; band++) {
+        if (result[SpectrumAnalyzer::kHeaderSize + band] > result[SpectrumAnalyzer::kHeaderSize + loudestBand]) {
+            loudestBand = band;
+        }
+    }
+
+    // 20 Hz..20 kHz em 10 bandas: 1 kHz cai na sexta (≈ 1002..2000 Hz) ou na quinta
+    EXPECT_TRUE(loudestBand == 4 || loudestBand == 5);
+    // Todo o sinal em uma banda: o RMS da banda se aproxima do RMS total (margem da janela)
+    EXPECT_TRUE(std::fabs(result[SpectrumAnalyzer::kHeaderSize + loudestBand] - (-9.03f)) < 1.5f);
+    EXPECT_TRUE(result[SpectrumAnalyzer::kHeaderSize + bands - 1] < -60.0f);
+}
+
+void testAnalysisIsDecimated() {
+    SpectrumAnalyzer analyzer(512, 8, 10.0f);
+    std::vector<float> result(static_cast<size_t>(analyzer.getResultSize()));
+    std::vector<float> samples = sine(kSampleRate, 1, 440.0f, 0.25f);
+
+    EXPECT_TRUE(analyzer.read(result.data(), analyzer.getResultSize()) == 0);
+
+    // 1 s de áudio em blocos de 256 frames a 10 Hz: exatamente 10 análises
+    for (int offset = 0; offset + 256 <= kSampleRate; offset += 256) {
+        analyzer.push(samples.data() + offset, 256, 1, kSampleRate);
+    }
+    analyzer.push(samples.data() + (kSampleRate / 256) * 256, kSampleRate % 256, 1, kSampleRate);
+
+    EXPECT_TRUE(analyzer.read(result.data(), analyzer.getResultSize()) == 10);
+}
+
+void testSilenceReportsFloor() {
+    SpectrumAnalyzer analyzer(256, 4, 100.0f);
+    std::vector<float> result(static_cast<size_t>(analyzer.getResultSize()));
+    std::vector<float> silence(960, 0.0f);
+
+    analyzer.push(silence.data(), 960, 1, kSampleRate);
+    analyzer.read(result.data(), analyzer.getResultSize());
+
+    for (float value : result) {
+        EXPECT_TRUE(value == SpectrumAnalyzer::kSilenceDb);
+    }
+}
+
+void testEngineFeedsAttachedAnalyzer() {
+    EqualizerEngine engine(kSampleRate, 2, 1);
+    SpectrumAnalyzer analyzer(1024, 8, 25.0f);
+    std::vector<float> result(static_cast<size_t>(analyzer.getResultSize()));
+
+    engine.setAnalyzer(&analyzer);
+
+    std::vector<int16_t> samples(4800 * 2);
+    for (int frame = 0; frame < 4800; frame++) {
+        const int16_t value = static_cast<int16_t>(16384 * std::sin(2.0 * M_PI * 3000.0 * frame / kSampleRate));
+        samples[frame * 2] = value;
+        samples[frame * 2 + 1] = value;
+    }
+
+    engine.process(samples.data(), static_cast<int>(samples.size()));
+
+    EXPECT_TRUE(analyzer.read(result.data(), analyzer.getResultSize()) > 0);
+    EXPECT_TRUE(std::fabs(result[SpectrumAnalyzer::kIndexPeak] - (-6.02f)) < 0.1f);
+
+    engine.setAnalyzer(nullptr);
+    const uint64_t before = analyzer.read(result.data(), analyzer.getResultSize());
+    engine.process(samples.data(), static_cast<int>(samples.size()));
+    EXPECT_TRUE(analyzer.read(result.data(), analyzer.getResultSize()) == before);
+}
+
+}
+
+int main() {
+    testSineLandsOnItsBinWithItsAmplitude();
+    testBandLevelsFollowTheSignal();
+    testAnalysisIsDecimated();
+    testSilenceReportsFloor();
+    testEngineFeedsAttachedAnalyzer();
+
+    if (failures > 0) {
+        std::fprintf(stderr, "%d verificação(ões) falharam\n", failures);
+        return EXIT_FAILURE;
+    }
+
+    std::printf("Todos os testes do analisador passaram\n");
+    return EXIT_SUCCESS;
+}
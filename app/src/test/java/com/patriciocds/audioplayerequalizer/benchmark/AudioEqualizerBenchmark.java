@@ -0,0 +1,106 @@
+package com.patriciocds.audioplayerequalizer.benchmark;
+
+import com.patriciocds.audioplayerequalizer.util.AudioEqualizer;
+import com.patriciocds.audioplayerequalizer.util.PcmFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do {@link AudioEqualizer} visto do Java, incluindo a travessia JNI: cada invocação
+ * processa {@link #SAMPLES_PER_INVOCATION} amostras estéreo em buffers de {@code bufferSize}, então
+ * o resultado sai direto em ns/amostra. Precisa da biblioteca nativa de host no
+ * {@code java.library.path}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(AudioEqualizerBenchmark.SAMPLES_PER_INVOCATION)
+public class AudioEqualizerBenchmark {
+
+    static final int SAMPLES_PER_INVOCATION = 8192;
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHANNELS = 2;
+
+    @Param({"256", "1024", "4096"})
+    public int bufferSize;
+
+    @Param({"3", "5", "10"})
+    public int bandCount;
+
+    @Param({"pcm16", "pcm16-planar", "float", "float-planar", "pcm16-direct", "float-direct"})
+    public String format;
+
+    private final AudioEqualizer equalizer = new AudioEqualizer();
+
+    private boolean floatSamples;
+    private boolean direct;
+    private short[] pcm16;
+    private float[] pcmFloat;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        floatSamples = format.startsWith("float");
+        direct = format.endsWith("-direct");
+        int layout = format.endsWith("-planar") ? PcmFormat.LAYOUT_PLANAR : PcmFormat.LAYOUT_INTERLEAVED;
+        int encoding = floatSamples ? PcmFormat.ENCODING_PCM_FLOAT : PcmFormat.ENCODING_PCM_16BIT;
+
+        equalizer.create(new PcmFormat(SAMPLE_RATE, CHANNELS, encoding, layout), bandCount);
+        for (int band = 0; band < bandCount; band++) {
+            float frequency = Math.min(60f * (1 << band), 20000f);
+            equalizer.configureBand(band, AudioEqualizer.BAND_PEAKING, frequency, 1f, band % 2 == 0 ? 3f : -3f);
+        }
+
+        pcm16 = new short[SAMPLES_PER_INVOCATION];
+        pcmFloat = new float[SAMPLES_PER_INVOCATION];
+        buffer = ByteBuffer.allocateDirect(SAMPLES_PER_INVOCATION * 4).order(ByteOrder.nativeOrder());
+
+        for (int i = 0; i < SAMPLES_PER_INVOCATION; i++) {
+            pcm16[i] = (short) (Math.sin(i * 0.05) * 10000);
+            pcmFloat[i] = pcm16[i] / 32768f;
+
+            if (floatSamples) {
+                buffer.putFloat(i * 4, pcmFloat[i]);
+            } else {
+                buffer.putShort(i * 2, pcm16[i]);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        equalizer.release();
+    }
+
+    @Benchmark
+    public int process() {
+        int processed = 0;
+
+        for (int offset = 0; offset < SAMPLES_PER_INVOCATION; offset += bufferSize) {
+            if (direct) {
+                int bytesPerSample = floatSamples ? 4 : 2;
+                processed += equalizer.process(buffer, offset * bytesPerSample, bufferSize * bytesPerSample);
+            } else if (floatSamples) {
+                processed += equalizer.process(pcmFloat, offset, bufferSize);
+            } else {
+                processed += equalizer.process(pcm16, offset, bufferSize);
+            }
+        }
+
+        return processed;
+    }
+}
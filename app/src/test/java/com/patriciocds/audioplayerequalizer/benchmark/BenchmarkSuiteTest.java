@@ -0,0 +1,65 @@
+package com.patriciocds.audioplayerequalizer.benchmark;
+
+import static org.junit.Assert.assertFalse;
+
+import com.patriciocds.audioplayerequalizer.util.HostNativeLibrary;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * Roda os benchmarks JMH deste pacote e grava os resultados em JSON. Desligado nos testes
+ * normais; para rodar:
+ *
+ * <pre>
+ * ./gradlew :app:testDebugUnitTest --tests '*BenchmarkSuiteTest' -Pbenchmark
+ * ./gradlew :app:testDebugUnitTest --tests '*BenchmarkSuiteTest' -Pbenchmark=PlaybackUtils
+ * </pre>
+ *
+ * O valor de {@code -Pbenchmark} é uma regex do JMH sobre os nomes dos benchmarks. O JSON sai em
+ * {@code app/build/reports/benchmarks/jmh.json}. Os benchmarks do {@code AudioEqualizer} e do
+ * {@code ParallelEqualizer} só entram quando a biblioteca nativa de host pode ser carregada ({@link HostNativeLibrary}).
+ */
+public class BenchmarkSuiteTest {
+
+    @Test
+    public void benchmarks_devemGravarOsResultadosEmJson() throws RunnerException {
+        String include = System.getProperty("benchmark.include");
+        Assume.assumeTrue("Benchmarks desligados (use -Pbenchmark)", include != null);
+
+        File output = new File(System.getProperty("benchmark.output", "build/reports/benchmarks/jmh.json"));
+        output.getParentFile().mkdirs();
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include.isEmpty() ? getClass().getPackage().getName() : include)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                // O fork herda o caminho da biblioteca nativa de host
+                .jvmArgsAppend("-Djava.library.path=" + System.getProperty("java.library.path"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.getAbsolutePath());
+
+        if (!HostNativeLibrary.isAvailable()) {
+            System.out.println("Biblioteca nativa de host não encontrada: benchmarks do equalizador ignorados");
+            options.exclude(AudioEqualizerBenchmark.class.getSimpleName());
+            options.exclude(ParallelEqualizerBenchmark.class.getSimpleName());
+        }
+
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        assertFalse(results.isEmpty());
+    }
+}
@@ -0,0 +1,36 @@
+package com.patriciocds.audioplayerequalizer.benchmark;
+
+import com.patriciocds.audioplayerequalizer.service.MusicData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do JSON de compatibilidade do {@link MusicData} (o caminho Parcelable só pode ser medido
+ * no aparelho, em MusicDataBenchmarkTest).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MusicDataBenchmark {
+
+    private final MusicData musicData = new MusicData("If You Waited", "Ketsa",
+            "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_if_you_waited");
+    private final String json = musicData.toString();
+
+    @Benchmark
+    public MusicData make() {
+        return MusicData.make(json);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return musicData.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.patriciocds.audioplayerequalizer.benchmark;
+
+import com.patriciocds.audioplayerequalizer.util.AudioEqualizer;
+import com.patriciocds.audioplayerequalizer.util.EqualizerCoefficients;
+import com.patriciocds.audioplayerequalizer.util.ParallelEqualizer;
+import com.patriciocds.audioplayerequalizer.util.PcmFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escala do {@link ParallelEqualizer} com o número de workers: cada invocação equaliza
+ * {@link #TRACK_SECONDS} s de áudio estéreo float a 48 kHz, em ms por faixa. Com
+ * {@code parallelism} = 1 é o custo sequencial mais o aquecimento dos chunks; acima do número de
+ * núcleos da máquina o tempo deve parar de cair. Cada invocação também restaura o áudio original
+ * (uma cópia de memória, igual para todos os níveis).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelEqualizerBenchmark {
+
+    static final int TRACK_SECONDS = 60;
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHANNELS = 2;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ParallelEqualizer equalizer;
+    private ByteBuffer original;
+    private ByteBuffer track;
+
+    @Setup
+    public void setUp() {
+        PcmFormat format = new PcmFormat(SAMPLE_RATE, CHANNELS, PcmFormat.ENCODING_PCM_FLOAT,
+                PcmFormat.LAYOUT_INTERLEAVED);
+        EqualizerCoefficients curve = AudioEqualizer.design(SAMPLE_RATE,
+                new int[]{AudioEqualizer.BAND_LOW_SHELF, AudioEqualizer.BAND_PEAKING, AudioEqualizer.BAND_PEAKING,
+                        AudioEqualizer.BAND_PEAKING, AudioEqualizer.BAND_HIGH_SHELF},
+                new float[]{60f, 230f, 910f, 3600f, 14000f},
+                new float[]{0.707f, 1f, 1f, 1f, 0.707f},
+                new float[]{4f, -2f, 3f, -1.5f, 2f});
+
+        equalizer = new ParallelEqualizer(format, curve, parallelism);
+
+        int samples = SAMPLE_RATE * CHANNELS * TRACK_SECONDS;
+        original = ByteBuffer.allocateDirect(samples * 4).order(ByteOrder.nativeOrder());
+        track = ByteBuffer.allocateDirect(samples * 4).order(ByteOrder.nativeOrder());
+
+        for (int i = 0; i < samples; i++) {
+            original.putFloat(i * 4, (float) (Math.sin(i * 0.05) * 0.3));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        equalizer.close();
+    }
+
+    @Benchmark
+    public int process() {
+        original.clear();
+        track.clear();
+        track.put(original);
+
+        equalizer.reset();
+        return equalizer.process(track, 0, track.capacity());
+    }
+}
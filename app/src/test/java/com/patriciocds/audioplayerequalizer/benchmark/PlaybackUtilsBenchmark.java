@@ -0,0 +1,31 @@
+package com.patriciocds.audioplayerequalizer.benchmark;
+
+import com.patriciocds.audioplayerequalizer.util.PlaybackUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de {@link PlaybackUtils#formatMusicTime(long)}, chamado a cada atualização do progresso.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlaybackUtilsBenchmark {
+
+    // 3:25 e 1:02:03 (os dois formatos de saída)
+    @Param({"205000", "3723000"})
+    public long millis;
+
+    @Benchmark
+    public String formatMusicTime() {
+        return PlaybackUtils.formatMusicTime(millis);
+    }
+}
@@ -3,9 +3,12 @@ package com.patriciocds.audioplayerequalizer.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.robolectric.Shadows.shadowOf;
@@ -23,13 +26,17 @@ import android.view.View;
 import android.widget.FrameLayout;
 import android.widget.TextView;
 
+import com.patriciocds.audioplayerequalizer.PlaybackCallback;
 import com.patriciocds.audioplayerequalizer.PlaybackInterface;
 import com.patriciocds.audioplayerequalizer.R;
 import com.patriciocds.audioplayerequalizer.ui.MainActivity;
+import com.patriciocds.audioplayerequalizer.util.EqualizerPreset;
+import com.patriciocds.audioplayerequalizer.util.EqualizerPresetStore;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.android.controller.ServiceController;
@@ -128,10 +135,147 @@ public class AudioServiceTest {
                 eq(service.getApplicationContext()),
                 eq(Uri.parse(musicData.getPath()))
         );
-        verify(mockPlayer).prepare();
+        verify(mockPlayer).prepareAsync();
+        verify(mockPlayer, never()).prepare();
+
+        // 5. Só inicia quando o MediaPlayer avisa que terminou de preparar
+        verify(mockPlayer, never()).start();
+
+        ArgumentCaptor<MediaPlayer.OnPreparedListener> listener =
+                ArgumentCaptor.forClass(MediaPlayer.OnPreparedListener.class);
+        verify(mockPlayer).setOnPreparedListener(listener.capture());
+        listener.getValue().onPrepared(mockPlayer);
+
         verify(mockPlayer).start();
     }
 
+    @Test
+    public void play_viaIntentComParcelable_deveConfigurarMediaPlayerSemJson() throws Exception {
+        MusicData musicData = new MusicData("Mist", "Ketsa",
+                "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_mist");
+
+        Intent intent = new Intent();
+        intent.setAction(AudioService.ACTION_PLAY);
+        intent.putExtra(AudioService.EXTRA_MUSIC_DATA, musicData);
+
+        service.onStartCommand(intent, 0, 0);
+
+        verify(mockPlayer).setDataSource(
+                eq(service.getApplicationContext()),
+                eq(Uri.parse(musicData.getPath()))
+        );
+        verify(mockPlayer).prepareAsync();
+        assertEquals("Mist", binder.getMusicData().getTitle());
+    }
+
+    @Test
+    public void onPrepared_deveEnviarOnTrackChangedUmaVezComADuracao() throws Exception {
+        final MusicData[] received = new MusicData[1];
+        final int[] calls = new int[2];
+
+        binder.registerCallback(new PlaybackCallback.Stub() {
+            @Override
+            public void onMusicComplete() { /* sem uso */ }
+
+            @Override
+            public void onTrackChanged(MusicData musicData, int durationMs) {
+                received[0] = musicData;
+                calls[0]++;
+                calls[1] = durationMs;
+            }
+
+            @Override
+            public void onPosition(int positionMs, long uptimeMs) { /* sem uso */ }
+
+            @Override
+            public void onPlaybackStateChanged(boolean playing) { /* sem uso */ }
+        });
+
+        when(mockPlayer.getDuration()).thenReturn(180000);
+        binder.play(new MusicData("Mist", "Ketsa",
+                "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_mist"));
+
+        ArgumentCaptor<MediaPlayer.OnPreparedListener> listener =
+                ArgumentCaptor.forClass(MediaPlayer.OnPreparedListener.class);
+        verify(mockPlayer).setOnPreparedListener(listener.capture());
+        listener.getValue().onPrepared(mockPlayer);
+
+        assertEquals(1, calls[0]);
+        assertEquals(180000, calls[1]);
+        assertEquals("Mist", received[0].getTitle());
+    }
+
+    @Test
+    public void onPrepared_devePublicarOEstadoNoBlocoCompartilhado() throws Exception {
+        when(mockPlayer.getDuration()).thenReturn(180000);
+        when(mockAudioManager.getStreamVolume(AudioManager.STREAM_MUSIC)).thenReturn(6);
+        when(mockAudioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC)).thenReturn(15);
+
+        binder.play(new MusicData("Mist", "Ketsa",
+                "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_mist"));
+
+        ArgumentCaptor<MediaPlayer.OnPreparedListener> listener =
+                ArgumentCaptor.forClass(MediaPlayer.OnPreparedListener.class);
+        verify(mockPlayer).setOnPreparedListener(listener.capture());
+
+        when(mockPlayer.isPlaying()).thenReturn(true);
+        when(mockPlayer.getCurrentPosition()).thenReturn(250);
+        listener.getValue().onPrepared(mockPlayer);
+
+        PlaybackStateBlock block = binder.getStateBlock();
+        PlaybackStateBlock.Snapshot snapshot = new PlaybackStateBlock.Snapshot();
+
+        assertNotNull(block);
+        assertTrue(block.read(snapshot));
+        assertEquals(PlaybackStateBlock.STATE_PLAYING, snapshot.state);
+        assertEquals(250, snapshot.positionMs);
+        assertEquals(180000, snapshot.durationMs);
+        assertEquals(6, snapshot.volume);
+        assertEquals(15, snapshot.maxVolume);
+        assertEquals(1, snapshot.trackId);
+    }
+
+    @Test
+    public void setEqualizerPreset_deveSalvarOPresetSelecionado() throws Exception {
+        binder.setEqualizerPreset(EqualizerPreset.VOCAL);
+
+        assertEquals(EqualizerPreset.VOCAL, binder.getEqualizerPreset());
+        assertEquals(EqualizerPreset.VOCAL, new EqualizerPresetStore(service).getSelectedName());
+    }
+
+    @Test
+    public void onPlaybackCompletion_comProximaPreparada_deveTrocarDePlayerSemNotificarFim() {
+        // 1. Toca a música atual e conclui o prepareAsync
+        MusicData current = new MusicData("If you waited", "Ketsa",
+                "android.resource://com.patriciocds.audioplayerequalizer/123");
+
+        Intent intent = new Intent();
+        intent.setAction(AudioService.ACTION_PLAY);
+        intent.putExtra(AudioService.EXTRA_AUDIO_PATH, current.toString());
+        service.onStartCommand(intent, 0, 0);
+
+        ArgumentCaptor<MediaPlayer.OnPreparedListener> listener =
+                ArgumentCaptor.forClass(MediaPlayer.OnPreparedListener.class);
+        verify(mockPlayer).setOnPreparedListener(listener.capture());
+        listener.getValue().onPrepared(mockPlayer);
+
+        // 2. Simula a próxima música preparada no segundo player
+        MediaPlayer mockNextPlayer = mock(MediaPlayer.class);
+        service.nextMediaPlayer = mockNextPlayer;
+        service.nextMusicData = new MusicData("Mist", "Ketsa",
+                "android.resource://com.patriciocds.audioplayerequalizer/456");
+        service.onNextPlayerPrepared(mockNextPlayer);
+
+        verify(mockPlayer).setNextMediaPlayer(mockNextPlayer);
+
+        // 3. Ao terminar a atual, o próximo player assume e o antigo é liberado
+        service.onPlaybackCompletion(mockPlayer);
+
+        assertSame(mockNextPlayer, service.mediaPlayer);
+        assertNull(service.nextMediaPlayer);
+        verify(mockPlayer).release();
+    }
+
     @Test
     public void onStartCommand_withActionPause_whenPlaying_invokesPauseOnMediaPlayer() {
         // 1. Simula que o MediaPlayer está tocando
@@ -218,6 +362,44 @@ public class AudioServiceTest {
         );
     }
 
+    @Test
+    public void pausePorBinder_quandoTocando_deveChamarPauseSemIntent() throws Exception {
+        when(mockPlayer.isPlaying()).thenReturn(true);
+
+        binder.pause();
+
+        verify(mockPlayer).pause();
+    }
+
+    @Test
+    public void resumePorBinder_quandoPausado_deveChamarStart() throws Exception {
+        when(mockPlayer.isPlaying()).thenReturn(false);
+
+        binder.resume();
+
+        verify(mockPlayer).start();
+    }
+
+    @Test
+    public void seekToESetVolumePorBinder_devemChegarAoPlayerEAoAudioManager() throws Exception {
+        binder.seekTo(4200);
+        binder.setVolume(7);
+
+        verify(mockPlayer).seekTo(4200);
+        verify(mockAudioManager).setStreamVolume(AudioManager.STREAM_MUSIC, 7, AudioManager.FLAG_SHOW_UI);
+    }
+
+    @Test
+    public void playPorBinder_deveIniciarOServicoEPrepararAMusica() throws Exception {
+        MusicData musicData = new MusicData("Mist", "Ketsa",
+                "android.resource://com.patriciocds.audioplayerequalizer/raw/ketsa_mist");
+
+        binder.play(musicData);
+
+        assertNotNull(shadowOf(service).getNextStartedService());
+        verify(mockPlayer).prepareAsync();
+    }
+
     @Test
     public void createNotificationChannel_registersChannelWithCorrectProperties() {
         // Recupera o NotificationManager do Service
@@ -0,0 +1,100 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PlaybackStateBlockTest {
+
+    private ByteBuffer memory;
+    private PlaybackStateBlock block;
+    private final PlaybackStateBlock.Snapshot snapshot = new PlaybackStateBlock.Snapshot();
+
+    @Before
+    public void setUp() {
+        memory = ByteBuffer.allocateDirect(PlaybackStateBlock.SIZE);
+        block = new PlaybackStateBlock(null, memory);
+    }
+
+    @Test
+    public void read_deveDevolverOUltimoEstadoEscrito() {
+        block.write(PlaybackStateBlock.STATE_PAUSED, 1500, 10_000L, 180_000, 7, 15, 3);
+
+        assertTrue(block.read(snapshot));
+        assertEquals(PlaybackStateBlock.STATE_PAUSED, snapshot.state);
+        assertEquals(1500, snapshot.positionMs);
+        assertEquals(10_000L, snapshot.positionUptimeMs);
+        assertEquals(180_000, snapshot.durationMs);
+        assertEquals(7, snapshot.volume);
+        assertEquals(15, snapshot.maxVolume);
+        assertEquals(3, snapshot.trackId);
+    }
+
+    @Test
+    public void estimatePosition_deveAvancarSoDuranteAReproducaoELimitarNaDuracao() {
+        block.write(PlaybackStateBlock.STATE_PLAYING, 1000, 5000L, 3000, 0, 15, 1);
+        block.read(snapshot);
+
+        assertEquals(1250, snapshot.estimatePosition(5250L));
+        assertEquals(3000, snapshot.estimatePosition(60_000L));
+
+        block.write(PlaybackStateBlock.STATE_PAUSED, 1000, 5000L, 3000, 0, 15, 1);
+        block.read(snapshot);
+
+        assertEquals(1000, snapshot.estimatePosition(5250L));
+    }
+
+    @Test
+    public void read_comEscritaEmAndamento_deveDesistirSemAlterarOSnapshot() {
+        block.write(PlaybackStateBlock.STATE_PLAYING, 42, 0L, 100, 1, 15, 1);
+        block.read(snapshot);
+
+        // Sequência ímpar: o escritor "parou" no meio de uma publicação
+        memory.putInt(0, memory.getInt(0) + 1);
+
+        assertFalse(block.read(snapshot));
+        assertEquals(42, snapshot.positionMs);
+    }
+
+    @Test
+    public void read_concorrenteComEscritor_nuncaDeveMisturarDuasPublicacoes() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        // Todos os campos de uma publicação derivam do mesmo i
+        Thread writer = new Thread(() -> {
+            for (int i = 1; running.get(); i++) {
+                block.write(i & 3, i, i * 2L, i * 3, i * 4, i * 5, i * 6);
+            }
+        });
+        writer.start();
+
+        int consistentReads = 0;
+        try {
+            for (int n = 0; n < 100_000; n++) {
+                if (!block.read(snapshot)) {
+                    continue;
+                }
+
+                int i = snapshot.positionMs;
+                assertEquals(i & 3, snapshot.state);
+                assertEquals(i * 2L, snapshot.positionUptimeMs);
+                assertEquals(i * 3, snapshot.durationMs);
+                assertEquals(i * 4, snapshot.volume);
+                assertEquals(i * 5, snapshot.maxVolume);
+                assertEquals(i * 6, snapshot.trackId);
+                consistentReads++;
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        assertTrue(consistentReads > 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class PlaylistTest {
+
+    private static final String PACKAGE = "com.patriciocds.audioplayerequalizer";
+
+    private static final String DATASET = "["
+            + "{\"title\": \"Mist\", \"artist\": \"Ketsa\", \"path\": \"ketsa_mist\"},"
+            + "{\"title\": \"If You Waited\", \"artist\": \"Ketsa\", \"path\": \"ketsa_if_you_waited\", \"year\": 2020},"
+            + "{\"title\": \"Sem path\", \"artist\": \"Ninguém\"},"
+            + "{\"title\": \"Arquivo\", \"artist\": null, \"path\": \"/sdcard/Music/arquivo.mp3\"}"
+            + "]";
+
+    private Playlist playlist;
+
+    @Before
+    public void setUp() throws IOException {
+        playlist = new Playlist(PACKAGE);
+        playlist.load(new StringReader(DATASET));
+    }
+
+    @Test
+    public void load_deveIgnorarCamposDesconhecidosEFaixasSemPath() {
+        assertEquals(3, playlist.size());
+        assertEquals("If You Waited", playlist.get(1).getTitle());
+        assertNull(playlist.get(2).getArtist());
+    }
+
+    @Test
+    public void get_deveMontarUriDosRecursosRawEManterCaminhosAbsolutos() {
+        assertEquals("android.resource://" + PACKAGE + "/raw/ketsa_mist", playlist.get(0).getPath());
+        assertEquals("/sdcard/Music/arquivo.mp3", playlist.get(2).getPath());
+    }
+
+    @Test
+    public void nextEPrevious_devemDarAVoltaNaFila() {
+        assertEquals("Mist", playlist.current().getTitle());
+        assertEquals("If You Waited", playlist.peekNext().getTitle());
+        assertEquals("If You Waited", playlist.next().getTitle());
+        assertEquals("Arquivo", playlist.next().getTitle());
+        assertEquals("Mist", playlist.next().getTitle());
+        assertEquals("Arquivo", playlist.previous().getTitle());
+    }
+
+    @Test
+    public void setShuffle_deveManterAFaixaAtualEVisitarTodasUmaVez() {
+        playlist.next();
+        playlist.setShuffle(true, new Random(42));
+
+        assertTrue(playlist.isShuffle());
+        assertEquals("If You Waited", playlist.current().getTitle());
+
+        Set<String> visited = new HashSet<>();
+        for (int i = 0; i < playlist.size(); i++) {
+            visited.add(playlist.next().getTitle());
+        }
+
+        assertEquals(playlist.size(), visited.size());
+    }
+
+    @Test
+    public void setShuffle_desligado_deveVoltarParaOrdemOriginalNaFaixaAtual() {
+        playlist.setShuffle(true, new Random(7));
+        String current = playlist.current().getTitle();
+
+        playlist.setShuffle(false);
+
+        assertEquals(current, playlist.current().getTitle());
+    }
+
+    @Test
+    public void playlistVazia_deveRetornarNull() throws IOException {
+        Playlist empty = new Playlist(PACKAGE);
+        empty.load(new StringReader("[]"));
+
+        assertTrue(empty.isEmpty());
+        assertNull(empty.current());
+        assertNull(empty.next());
+        assertNull(empty.peekNext());
+    }
+}
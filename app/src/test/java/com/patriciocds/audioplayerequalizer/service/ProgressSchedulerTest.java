@@ -0,0 +1,127 @@
+package com.patriciocds.audioplayerequalizer.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.patriciocds.audioplayerequalizer.PlaybackCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class ProgressSchedulerTest {
+
+    private boolean playing;
+    private int position;
+    private ProgressScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new ProgressScheduler(new ProgressScheduler.PositionSource() {
+            @Override
+            public boolean isPlaying() {
+                return playing;
+            }
+
+            @Override
+            public int getCurrentPosition() {
+                return position;
+            }
+        });
+    }
+
+    @Test
+    public void subscribe_deveEnviarNaHoraENoIntervaloPedido() {
+        playing = true;
+        RecordingCallback fast = new RecordingCallback();
+        RecordingCallback slow = new RecordingCallback();
+
+        scheduler.subscribe(fast, 100);
+        scheduler.subscribe(slow, 1000);
+
+        assertEquals(1, fast.positions.size());
+        assertEquals(1, slow.positions.size());
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1000));
+
+        assertEquals(11, fast.positions.size());
+        assertEquals(2, slow.positions.size());
+    }
+
+    @Test
+    public void pausado_naoDeveAgendarTicks() {
+        playing = true;
+        RecordingCallback callback = new RecordingCallback();
+        scheduler.subscribe(callback, 100);
+
+        playing = false;
+        position = 1234;
+        scheduler.onPlaybackStateChanged();
+
+        int sent = callback.positions.size();
+        assertEquals(1234, (int) callback.positions.get(sent - 1));
+        assertFalse(callback.lastPlaying);
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(5));
+        assertEquals(sent, callback.positions.size());
+    }
+
+    @Test
+    public void semAssinantes_naoDeveConsultarAPosicao() {
+        playing = true;
+        RecordingCallback callback = new RecordingCallback();
+        scheduler.subscribe(callback, 100);
+
+        scheduler.subscribe(callback, 0);
+        int sent = callback.positions.size();
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+        assertEquals(sent, callback.positions.size());
+    }
+
+    @Test
+    public void onPosition_deveLevarOUptimeDaLeitura() {
+        playing = true;
+        RecordingCallback callback = new RecordingCallback();
+
+        scheduler.subscribe(callback, 500);
+
+        assertTrue(callback.lastPlaying);
+        assertEquals(android.os.SystemClock.uptimeMillis(), callback.lastUptimeMs);
+    }
+
+    private static class RecordingCallback extends PlaybackCallback.Stub {
+        final List<Integer> positions = new ArrayList<>();
+        long lastUptimeMs;
+        boolean lastPlaying;
+
+        @Override
+        public void onMusicComplete() { /* sem uso */ }
+
+        @Override
+        public void onTrackChanged(MusicData musicData, int durationMs) { /* sem uso */ }
+
+        @Override
+        public void onPosition(int positionMs, long uptimeMs) {
+            positions.add(positionMs);
+            lastUptimeMs = uptimeMs;
+        }
+
+        @Override
+        public void onPlaybackStateChanged(boolean playing) {
+            lastPlaying = playing;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Mesmo {@link AudioEqualizer} dos testes instrumentados, rodando na JVM com a build de host da
+ * biblioteca nativa (kernels SSE2 ou escalares no lugar dos NEON).
+ */
+public class AudioEqualizerTest {
+
+    private AudioEqualizer equalizer;
+
+    @BeforeClass
+    public static void loadLibrary() {
+        Assume.assumeTrue("Biblioteca nativa de host não compilada", HostNativeLibrary.isAvailable());
+    }
+
+    @Before
+    public void setUp() {
+        equalizer = new AudioEqualizer();
+    }
+
+    @After
+    public void tearDown() {
+        equalizer.release();
+        AudioEqualizer.setSimdEnabled(true);
+    }
+
+    @Test
+    public void getKernelName_noHost_deveSerSse2OuEscalar() {
+        String name = AudioEqualizer.getKernelName();
+
+        assertTrue(name, name.equals("sse2") || name.equals("scalar"));
+    }
+
+    @Test
+    public void process_lowShelf6dB_dobraONivelDC() {
+        equalizer.create(48000, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 200f, 0.707f, 6.0206f);
+
+        short[] audio = new short[4800];
+        Arrays.fill(audio, (short) 1000);
+
+        equalizer.process(audio, 0, audio.length);
+
+        assertTrue(Math.abs(audio[audio.length - 1] - 2000) <= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void load_curvaDeOutraTaxa_deveLancarExcecao() {
+        equalizer.create(48000, 1);
+
+        equalizer.load(AudioEqualizer.design(44100, new int[]{AudioEqualizer.BAND_PEAKING}, new float[]{1000f},
+                new float[]{1f}, new float[]{6f}));
+    }
+
+    @Test
+    public void process_simdEEscalar_devemDarOMesmoResultado() {
+        short[] simd = sine(4096, 12000);
+        short[] scalar = simd.clone();
+
+        AudioEqualizer.setSimdEnabled(true);
+        configureStereo();
+        equalizer.process(simd, 0, simd.length);
+
+        AudioEqualizer.setSimdEnabled(false);
+        configureStereo();
+        equalizer.process(scalar, 0, scalar.length);
+
+        // A ordem das somas muda entre os kernels; mesma margem dos testes nativos (5e-4 ≈ 16 LSB)
+        for (int i = 0; i < simd.length; i++) {
+            assertTrue("amostra " + i, Math.abs(simd[i] - scalar[i]) <= 16);
+        }
+    }
+
+    @Test
+    public void process_byteBufferFloat_deveIgualarOArrayFloat() {
+        float[] expected = new float[2048];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (float) (Math.sin(i * 0.03) * 0.4);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < expected.length; i++) {
+            buffer.putFloat(i * 4, expected[i]);
+        }
+
+        PcmFormat format = new PcmFormat(44100, 2, PcmFormat.ENCODING_PCM_FLOAT, PcmFormat.LAYOUT_INTERLEAVED);
+        equalizer.create(format, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 1000f, 1f, 6f);
+        equalizer.process(expected, 0, expected.length);
+
+        equalizer.reset();
+        assertEquals(expected.length, equalizer.process(buffer, 0, expected.length * 4));
+
+        float[] actual = new float[expected.length];
+        buffer.asFloatBuffer().get(actual);
+        assertArrayEquals(expected, actual, 0f);
+    }
+
+    @Test
+    public void process_throughput_deveFicarMuitoAcimaDoTempoReal() {
+        // 10 s de áudio estéreo a 48 kHz em buffers de 1024 amostras, 5 bandas
+        int bufferSize = 1024;
+        int buffers = 48000 * 2 * 10 / bufferSize;
+        short[] audio = sine(bufferSize, 10000);
+
+        configureStereo();
+
+        // Aquecimento (JIT do laço Java e caches)
+        for (int i = 0; i < buffers / 10; i++) {
+            equalizer.process(audio, 0, bufferSize);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < buffers; i++) {
+            equalizer.process(audio, 0, bufferSize);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Folga grande para máquinas lentas/compartilhadas: regressões reais são de ordens de grandeza
+        assertTrue("x tempo real: " + 10 / seconds, 10 / seconds > 20);
+    }
+
+    private void configureStereo() {
+        equalizer.create(48000, 2, 5);
+        equalizer.configureBand(0, AudioEqualizer.BAND_LOW_SHELF, 60f, 0.707f, 4f);
+        equalizer.configureBand(1, AudioEqualizer.BAND_PEAKING, 230f, 1f, -2f);
+        equalizer.configureBand(2, AudioEqualizer.BAND_PEAKING, 910f, 1f, 3f);
+        equalizer.configureBand(3, AudioEqualizer.BAND_PEAKING, 3600f, 1f, -1.5f);
+        equalizer.configureBand(4, AudioEqualizer.BAND_HIGH_SHELF, 14000f, 0.707f, 2f);
+    }
+
+    private static short[] sine(int length, double amplitude) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) (Math.sin(i * 0.05) * amplitude);
+        }
+        return samples;
+    }
+}
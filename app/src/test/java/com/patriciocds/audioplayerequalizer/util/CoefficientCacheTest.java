@@ -0,0 +1,61 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CoefficientCacheTest {
+
+    private static EqualizerCoefficients curve(int sampleRate, float... gainsDb) {
+        int bands = gainsDb.length;
+        return new EqualizerCoefficients(sampleRate, new int[bands], new float[bands], new float[bands],
+                gainsDb.clone(), new float[bands * EqualizerCoefficients.COEFFICIENTS_PER_BAND], 0f);
+    }
+
+    @Test
+    public void get_mesmoPresetETaxa_deveRetornarACurvaGuardada() {
+        CoefficientCache cache = new CoefficientCache(4);
+        EqualizerCoefficients bass = curve(48000, 6f, 3f);
+        cache.put(EqualizerPreset.BASS_BOOST, bass);
+
+        assertSame(bass, cache.get(EqualizerPreset.BASS_BOOST, 48000, new float[]{6f, 3f}));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void get_outraTaxa_deveSerAusente() {
+        CoefficientCache cache = new CoefficientCache(4);
+        cache.put(EqualizerPreset.BASS_BOOST, curve(48000, 6f, 3f));
+
+        assertNull(cache.get(EqualizerPreset.BASS_BOOST, 44100, new float[]{6f, 3f}));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void get_customEditado_deveSerAusente() {
+        CoefficientCache cache = new CoefficientCache(4);
+        cache.put(EqualizerPreset.CUSTOM, curve(48000, 1f, 2f));
+
+        // O usuário mexeu nos sliders depois que a curva foi calculada
+        assertNull(cache.get(EqualizerPreset.CUSTOM, 48000, new float[]{1f, 5f}));
+    }
+
+    @Test
+    public void put_acimaDaCapacidade_deveDescartarAMenosUsadaRecentemente() {
+        CoefficientCache cache = new CoefficientCache(2);
+        EqualizerCoefficients flat = curve(48000, 0f);
+        EqualizerCoefficients vocal = curve(48000, 2f);
+        cache.put(EqualizerPreset.FLAT, flat);
+        cache.put(EqualizerPreset.VOCAL, vocal);
+
+        // Usar o flat faz do vocal o mais antigo
+        cache.get(EqualizerPreset.FLAT, 48000, new float[]{0f});
+        cache.put(EqualizerPreset.BASS_BOOST, curve(48000, 6f));
+
+        assertEquals(2, cache.size());
+        assertSame(flat, cache.get(EqualizerPreset.FLAT, 48000, new float[]{0f}));
+        assertNull(cache.get(EqualizerPreset.VOCAL, 48000, new float[]{2f}));
+    }
+}
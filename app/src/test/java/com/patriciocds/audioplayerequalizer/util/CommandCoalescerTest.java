@@ -0,0 +1,90 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class CommandCoalescerTest {
+
+    private final List<Integer> executed = new ArrayList<>();
+    private CommandCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        coalescer = new CommandCoalescer(Looper.getMainLooper(), 16, executed::add);
+    }
+
+    @Test
+    public void submit_primeiraChamada_deveExecutarNaHora() {
+        coalescer.submit(10);
+
+        assertEquals(1, executed.size());
+        assertEquals(10, (int) executed.get(0));
+    }
+
+    @Test
+    public void submit_rajadaNoMesmoIntervalo_deveExecutarSoOUltimoValorNoFim() {
+        for (int value = 1; value <= 50; value++) {
+            coalescer.submit(value);
+        }
+
+        assertEquals(1, executed.size());
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(16));
+
+        assertEquals(2, executed.size());
+        assertEquals(50, (int) executed.get(1));
+        assertEquals(48, coalescer.getDroppedCount());
+    }
+
+    @Test
+    public void flush_deveExecutarOPendenteSemEsperarOIntervalo() {
+        coalescer.submit(1);
+        coalescer.submit(2);
+
+        coalescer.flush();
+
+        assertEquals(2, executed.size());
+        assertEquals(2, (int) executed.get(1));
+
+        // Nada fica agendado depois do flush
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(50));
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    public void cancel_deveDescartarOPendente() {
+        coalescer.submit(1);
+        coalescer.submit(2);
+
+        coalescer.cancel();
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(50));
+
+        assertEquals(1, executed.size());
+        assertEquals(1, coalescer.getDroppedCount());
+    }
+
+    @Test
+    public void submit_aposOIntervalo_deveVoltarAExecutarNaHora() {
+        coalescer.submit(1);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(20));
+
+        coalescer.submit(2);
+
+        assertEquals(2, executed.size());
+        assertEquals(2, coalescer.getExecutedCount());
+    }
+}
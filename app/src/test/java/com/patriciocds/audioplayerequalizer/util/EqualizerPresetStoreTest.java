@@ -0,0 +1,61 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class EqualizerPresetStoreTest {
+
+    private Context context;
+    private EqualizerPresetStore store;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        store = new EqualizerPresetStore(context);
+    }
+
+    @Test
+    public void getSelected_semNadaSalvo_deveSerFlat() {
+        EqualizerPreset preset = store.getSelected();
+
+        assertEquals(EqualizerPreset.FLAT, preset.getName());
+        assertArrayEquals(new float[]{0f, 0f, 0f, 0f, 0f}, preset.getGainsDb(), 0f);
+    }
+
+    @Test
+    public void select_deveSobreviverAUmNovoStore() {
+        store.select(EqualizerPreset.BASS_BOOST);
+
+        EqualizerPresetStore reopened = new EqualizerPresetStore(context);
+
+        assertEquals(EqualizerPreset.BASS_BOOST, reopened.getSelectedName());
+        assertEquals(EqualizerPreset.builtIn(EqualizerPreset.BASS_BOOST), reopened.getSelected());
+    }
+
+    @Test
+    public void saveCustom_deveGuardarOsGanhosESelecionarCustom() {
+        float[] gains = {1.5f, -2f, 0f, 3.25f, -6f};
+
+        store.saveCustom(gains);
+
+        EqualizerPreset custom = new EqualizerPresetStore(context).getSelected();
+        assertEquals(EqualizerPreset.CUSTOM, custom.getName());
+        assertArrayEquals(gains, custom.getGainsDb(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void select_nomeDesconhecido_deveLancarExcecao() {
+        store.select("rock");
+    }
+}
@@ -0,0 +1,25 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+/**
+ * Acesso à build de host da biblioteca nativa (libaudio-equalizer-lib em app/build/native-host,
+ * compilada pela tarefa buildHostNative) nos testes JVM.
+ */
+public final class HostNativeLibrary {
+
+    private static final String NAME = "audio-equalizer-lib";
+
+    private HostNativeLibrary() { }
+
+    /**
+     * @return true se a biblioteca pôde ser carregada (ausente com -PskipHostNative ou sem cmake no
+     * PATH nem -PhostCmake, quando a tarefa buildHostNative não roda)
+     */
+    public static boolean isAvailable() {
+        try {
+            System.loadLibrary(NAME);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+}
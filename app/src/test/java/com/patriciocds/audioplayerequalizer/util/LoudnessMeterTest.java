@@ -0,0 +1,114 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class LoudnessMeterTest {
+
+    private LoudnessMeter meter;
+
+    @BeforeClass
+    public static void loadLibrary() {
+        Assume.assumeTrue("Biblioteca nativa de host não compilada", HostNativeLibrary.isAvailable());
+    }
+
+    @Before
+    public void setUp() {
+        meter = new LoudnessMeter();
+    }
+
+    @After
+    public void tearDown() {
+        meter.release();
+    }
+
+    @Test
+    public void getIntegratedLoudness_senoDeReferencia_deveMedirMenos23Lufs() {
+        meter.create(PcmFormat.pcm16(48000, 2));
+
+        short[] audio = sine(48000, 10, -23f);
+        meter.process(audio, 0, audio.length);
+
+        assertEquals(-23f, meter.getIntegratedLoudness(), 0.1f);
+        assertEquals(48000 * 10, meter.getFrameCount());
+        // -18 LUFS: +5 dB, bem abaixo do limite do pico (-23 dBFS)
+        assertEquals(5f, meter.getReplayGainDb(), 0.1f);
+    }
+
+    @Test
+    public void process_byteBufferFloat_deveMedirComoO16Bits() {
+        short[] audio = sine(44100, 3, -12f);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(audio.length * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < audio.length; i++) {
+            buffer.putFloat(i * 4, audio[i] / 32768f);
+        }
+
+        meter.create(PcmFormat.pcm16(44100, 2));
+        meter.process(audio, 0, audio.length);
+        float expected = meter.getIntegratedLoudness();
+
+        meter.create(new PcmFormat(44100, 2, PcmFormat.ENCODING_PCM_FLOAT, PcmFormat.LAYOUT_INTERLEAVED));
+        meter.process(buffer, 0, buffer.capacity());
+
+        assertEquals(expected, meter.getIntegratedLoudness(), 0.01f);
+        assertEquals(0.251f, meter.getSamplePeak(), 0.001f);
+    }
+
+    @Test
+    public void getIntegratedLoudness_silencio_deveSerInfinitoESemGanho() {
+        meter.create(PcmFormat.pcm16(48000, 2));
+
+        short[] silence = new short[48000 * 2];
+        meter.process(silence, 0, silence.length);
+
+        assertEquals(Float.NEGATIVE_INFINITY, meter.getIntegratedLoudness(), 0f);
+        assertEquals(0f, meter.getReplayGainDb(), 0f);
+    }
+
+    @Test
+    public void replayGainDb_deveSerLimitadoPeloPico() {
+        // -30 LUFS pediria +12 dB, mas o pico em -6 dBFS só permite +6
+        assertEquals(6.02f, LoudnessMeter.replayGainDb(-30f, 0.5f), 0.01f);
+        assertEquals(-4f, LoudnessMeter.replayGainDb(-14f, 1f), 0.001f);
+        assertEquals(0f, LoudnessMeter.replayGainDb(Float.NaN, 0.5f), 0f);
+    }
+
+    @Test
+    public void setPreGainDb_deveEscalarAEntradaDoEqualizador() {
+        AudioEqualizer equalizer = new AudioEqualizer();
+        equalizer.create(48000, 1);
+        equalizer.configureBand(0, AudioEqualizer.BAND_PEAKING, 1000f, 1f, 0f);
+        equalizer.setPreGainDb(-6.0206f);
+
+        short[] audio = new short[4800];
+        Arrays.fill(audio, (short) 1000);
+        equalizer.process(audio, 0, audio.length);
+        equalizer.release();
+
+        assertTrue(Math.abs(audio[audio.length - 1] - 500) <= 1);
+    }
+
+    // Seno de 997 Hz com o pico em levelDb dBFS, igual nos dois canais
+    private static short[] sine(int sampleRate, int seconds, float levelDb) {
+        double amplitude = Math.pow(10, levelDb / 20) * 32767;
+        short[] samples = new short[sampleRate * seconds * 2];
+
+        for (int frame = 0; frame < sampleRate * seconds; frame++) {
+            short value = (short) Math.round(amplitude * Math.sin(2 * Math.PI * 997 * frame / sampleRate));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+
+        return samples;
+    }
+}
@@ -0,0 +1,126 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+public class ParallelEqualizerTest {
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final PcmFormat FORMAT = PcmFormat.pcm16(SAMPLE_RATE, 2);
+
+    private ParallelEqualizer parallel;
+
+    @BeforeClass
+    public static void loadLibrary() {
+        Assume.assumeTrue("Biblioteca nativa de host não compilada", HostNativeLibrary.isAvailable());
+    }
+
+    @After
+    public void tearDown() {
+        if (parallel != null) {
+            parallel.close();
+        }
+    }
+
+    @Test
+    public void process_emChunks_deveFicarA1LsbDoSequencial() {
+        ByteBuffer expected = noise(10);
+        ByteBuffer actual = copy(expected);
+
+        processSequential(expected);
+
+        parallel = new ParallelEqualizer(FORMAT, curve(), 4);
+        assertEquals(expected.capacity() / 2, parallel.process(actual, 0, actual.capacity()));
+
+        assertWithin(expected, actual, 1);
+        // O primeiro chunk começa do estado zerado, como o sequencial
+        for (int i = 0; i < SAMPLE_RATE * 2; i++) {
+            assertEquals("amostra " + i, expected.getShort(i * 2), actual.getShort(i * 2));
+        }
+    }
+
+    @Test
+    public void process_emVariasChamadas_deveContinuarDoTrechoAnterior() {
+        ByteBuffer expected = noise(5);
+        ByteBuffer actual = copy(expected);
+
+        processSequential(expected);
+
+        // Blocos que não caem nas fronteiras dos chunks
+        parallel = new ParallelEqualizer(FORMAT, curve(), 2, 700, ParallelEqualizer.DEFAULT_WARMUP_MS);
+        int block = 48000 * 4 + 4 * 1234;
+        for (int offset = 0; offset < actual.capacity(); offset += block) {
+            parallel.process(actual, offset, Math.min(block, actual.capacity() - offset));
+        }
+
+        assertWithin(expected, actual, 1);
+    }
+
+    @Test
+    public void reset_deveRecomecarComoUmaFaixaNova() {
+        ByteBuffer first = noise(2);
+        ByteBuffer second = copy(first);
+
+        parallel = new ParallelEqualizer(FORMAT, curve(), 2);
+        parallel.process(first, 0, first.capacity());
+        parallel.reset();
+        parallel.process(second, 0, second.capacity());
+
+        assertWithin(first, second, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_formatoPlanar_deveLancarExcecao() {
+        new ParallelEqualizer(new PcmFormat(SAMPLE_RATE, 2, PcmFormat.ENCODING_PCM_16BIT, PcmFormat.LAYOUT_PLANAR),
+                curve(), 2);
+    }
+
+    private static EqualizerCoefficients curve() {
+        return AudioEqualizer.design(SAMPLE_RATE,
+                new int[]{AudioEqualizer.BAND_LOW_SHELF, AudioEqualizer.BAND_PEAKING, AudioEqualizer.BAND_PEAKING,
+                        AudioEqualizer.BAND_PEAKING, AudioEqualizer.BAND_HIGH_SHELF},
+                new float[]{60f, 230f, 910f, 3600f, 14000f},
+                new float[]{0.707f, 1f, 1f, 1f, 0.707f},
+                new float[]{6f, -2f, 3f, -1.5f, 2f});
+    }
+
+    private static void processSequential(ByteBuffer audio) {
+        AudioEqualizer equalizer = new AudioEqualizer();
+        equalizer.create(FORMAT, 5);
+        equalizer.setAutoHeadroom(true);
+        equalizer.load(curve());
+        equalizer.process(audio, 0, audio.capacity());
+        equalizer.release();
+    }
+
+    private static ByteBuffer noise(int seconds) {
+        Random random = new Random(42);
+        ByteBuffer audio = ByteBuffer.allocateDirect(SAMPLE_RATE * 2 * seconds * 2).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < audio.capacity() / 2; i++) {
+            audio.putShort(i * 2, (short) (random.nextGaussian() * 5000));
+        }
+        return audio;
+    }
+
+    private static ByteBuffer copy(ByteBuffer audio) {
+        ByteBuffer copy = ByteBuffer.allocateDirect(audio.capacity()).order(ByteOrder.nativeOrder());
+        copy.put(audio.duplicate());
+        return copy;
+    }
+
+    private static void assertWithin(ByteBuffer expected, ByteBuffer actual, int lsb) {
+        for (int i = 0; i < expected.capacity() / 2; i++) {
+            int difference = Math.abs(expected.getShort(i * 2) - actual.getShort(i * 2));
+            assertTrue("amostra " + i + ": " + difference, difference <= lsb);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class PcmFormatTest {
+
+    @Test
+    public void getFrameSize_deveConsiderarCodificacaoECanais() {
+        assertEquals(4, PcmFormat.pcm16(48000, 2).getFrameSize());
+        assertEquals(24, new PcmFormat(48000, 6, PcmFormat.ENCODING_PCM_FLOAT, PcmFormat.LAYOUT_PLANAR)
+                .getFrameSize());
+    }
+
+    @Test
+    public void equals_mesmoFormato_deveSerIgual() {
+        PcmFormat format = new PcmFormat(44100, 2, PcmFormat.ENCODING_PCM_16BIT, PcmFormat.LAYOUT_INTERLEAVED);
+
+        assertEquals(PcmFormat.pcm16(44100, 2), format);
+        assertEquals(PcmFormat.pcm16(44100, 2).hashCode(), format.hashCode());
+        assertNotEquals(new PcmFormat(44100, 2, PcmFormat.ENCODING_PCM_16BIT, PcmFormat.LAYOUT_PLANAR), format);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void construtor_canaisAcimaDoMaximo_deveLancarExcecao() {
+        PcmFormat.pcm16(48000, AudioEqualizer.MAX_CHANNELS + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void construtor_codificacaoDesconhecida_deveLancarExcecao() {
+        new PcmFormat(48000, 2, 7, PcmFormat.LAYOUT_INTERLEAVED);
+    }
+}
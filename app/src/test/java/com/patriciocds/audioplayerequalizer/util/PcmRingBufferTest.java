@@ -0,0 +1,200 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PcmRingBufferTest {
+
+    @Test
+    public void capacidade_deveSerArredondadaParaPotenciaDeDois() {
+        assertEquals(1024, new PcmRingBuffer(1000).capacity());
+        assertEquals(1024, new PcmRingBuffer(1024).capacity());
+        assertEquals(2048, new PcmRingBuffer(1025).capacity());
+    }
+
+    @Test
+    public void write_quandoCheio_deveEscreverApenasOEspacoLivre() {
+        PcmRingBuffer ring = new PcmRingBuffer(16);
+        ByteBuffer source = sequence(0, 24);
+
+        assertEquals(16, ring.write(source));
+        assertEquals(8, source.remaining());
+        assertEquals(0, ring.write(source));
+        assertEquals(16, ring.getFillLevel());
+        assertEquals(0, ring.getFreeSpace());
+    }
+
+    @Test
+    public void read_aposDarAVolta_devePreservarAOrdemDosBytes() {
+        PcmRingBuffer ring = new PcmRingBuffer(16);
+        ByteBuffer destination = ByteBuffer.allocateDirect(16);
+
+        ring.write(sequence(0, 12));
+        assertEquals(12, ring.read(destination, 12));
+
+        // Estes 10 bytes cruzam o fim do buffer
+        ring.write(sequence(12, 10));
+        destination.clear();
+        assertEquals(10, ring.read(destination, 10));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals((byte) (12 + i), destination.get(i));
+        }
+
+        assertEquals(0, ring.getFillLevel());
+    }
+
+    @Test
+    public void read_comMenosDadosQueOPedido_deveContarUnderrun() {
+        PcmRingBuffer ring = new PcmRingBuffer(64);
+        ByteBuffer destination = ByteBuffer.allocateDirect(64);
+
+        ring.write(sequence(0, 8));
+
+        assertEquals(8, ring.read(destination, 32));
+        assertEquals(1, ring.getUnderrunCount());
+        assertEquals(8, ring.getLowWatermark());
+
+        ring.resetStatistics();
+        assertEquals(0, ring.getUnderrunCount());
+        assertEquals(64, ring.getLowWatermark());
+    }
+
+    @Test
+    public void readAvailable_leituraParcial_naoDeveContarUnderrun() {
+        PcmRingBuffer ring = new PcmRingBuffer(64);
+        ByteBuffer destination = ByteBuffer.allocateDirect(32);
+
+        ring.write(sequence(0, 8));
+
+        assertEquals(8, ring.readAvailable(destination));
+        assertEquals(0, ring.getUnderrunCount());
+        assertEquals(8, ring.getLowWatermark());
+    }
+
+    @Test
+    public void readAvailable_ringVazio_deveContarUmUnderrunPorEsvaziamento() {
+        PcmRingBuffer ring = new PcmRingBuffer(64);
+        ByteBuffer destination = ByteBuffer.allocateDirect(32);
+
+        // Antes do primeiro dado (início da reprodução) não é underrun
+        assertEquals(0, ring.readAvailable(destination));
+        assertEquals(0, ring.getUnderrunCount());
+
+        ring.write(sequence(0, 8));
+        ring.readAvailable(destination);
+
+        // Esperando o produtor: várias leituras vazias, um underrun só
+        for (int i = 0; i < 100; i++) {
+            destination.clear();
+            assertEquals(0, ring.readAvailable(destination));
+        }
+        assertEquals(1, ring.getUnderrunCount());
+
+        ring.write(sequence(8, 8));
+        destination.clear();
+        ring.readAvailable(destination);
+        ring.readAvailable(destination);
+
+        assertEquals(2, ring.getUnderrunCount());
+
+        // Depois de um clear() (seek) o ring recomeça como no início
+        ring.write(sequence(16, 8));
+        ring.clear();
+        destination.clear();
+        ring.readAvailable(destination);
+
+        assertEquals(2, ring.getUnderrunCount());
+    }
+
+    @Test
+    public void clear_deveDescartarOConteudo() {
+        PcmRingBuffer ring = new PcmRingBuffer(32);
+        ring.write(sequence(0, 20));
+
+        ring.clear();
+
+        assertEquals(0, ring.getFillLevel());
+        assertEquals(32, ring.getFreeSpace());
+    }
+
+    @Test
+    public void produtorEConsumidor_emThreadsDiferentes_naoDevemPerderNemReordenarBytes() throws Exception {
+        final PcmRingBuffer ring = new PcmRingBuffer(256);
+        final int total = 1 << 20;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(100);
+            int written = 0;
+
+            while (written < total) {
+                chunk.clear();
+                for (int i = 0; i < chunk.capacity() && written + i < total; i++) {
+                    chunk.put((byte) (written + i));
+                }
+                chunk.flip();
+
+                while (chunk.hasRemaining()) {
+                    if (ring.write(chunk) == 0) {
+                        Thread.yield();
+                    }
+                }
+
+                written += chunk.limit();
+            }
+        });
+
+        Thread consumer = new Thread(() -> {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(77);
+            int read = 0;
+
+            while (read < total && failure.get() == null) {
+                chunk.clear();
+                int count = ring.read(chunk, chunk.capacity());
+
+                if (count == 0) {
+                    Thread.yield();
+                }
+
+                for (int i = 0; i < count; i++) {
+                    if (chunk.get(i) != (byte) (read + i)) {
+                        failure.set(new AssertionError("Byte incorreto na posição " + (read + i)));
+                        break;
+                    }
+                }
+
+                read += count;
+            }
+        });
+
+        producer.start();
+        consumer.start();
+        producer.join(10_000);
+        consumer.join(10_000);
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        assertFalse(producer.isAlive());
+        assertFalse(consumer.isAlive());
+        assertEquals(0, ring.getFillLevel());
+    }
+
+    private static ByteBuffer sequence(int first, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) (first + i));
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,207 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TrackInfoCacheTest {
+
+    private static final String RESOURCE = "android.resource://com.patriciocds.audioplayerequalizer/raw/track";
+
+    private File directory;
+    private File track;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("track-info").toFile();
+        track = new File(directory, "track.mp3");
+        writeTrack(100);
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void get_semNadaGuardado_deveSerNull() {
+        TrackInfoCache cache = newCache(1L);
+
+        assertNull(get(cache, track.getPath()));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void put_deveJuntarFormatoELoudnessESobreviverAUmNovoCache() {
+        TrackInfoCache cache = newCache(1L);
+        cache.putDuration(track.getPath(), 215000);
+        cache.putFormat(track.getPath(), 44100, 2);
+        cache.putLoudness(track.getPath(), -12.5f, -5.5f);
+
+        TrackInfo info = get(newCache(1L), track.getPath());
+
+        assertNotNull(info);
+        assertEquals(215000, info.getDurationMs());
+        assertEquals(44100, info.getSampleRate());
+        assertEquals(2, info.getChannelCount());
+        assertEquals(-12.5f, info.getLoudnessLufs(), 0f);
+        assertEquals(-5.5f, info.getGainDb(), 0f);
+        assertEquals(100, info.getSize());
+    }
+
+    @Test
+    public void putFormat_formatoIgual_naoDeveRegravar() {
+        TrackInfoCache cache = newCache(1L);
+        cache.putFormat(track.getPath(), 44100, 2);
+
+        File entry = new File(directory, TrackInfoCache.DIRECTORY).listFiles()[0];
+        entry.delete();
+        cache.putFormat(track.getPath(), 44100, 2);
+
+        assertFalse(entry.exists());
+
+        cache.putFormat(track.getPath(), 22050, 2);
+
+        assertTrue(entry.exists());
+    }
+
+    @Test
+    public void get_segundaLeitura_deveVirDoLru() {
+        TrackInfoCache cache = newCache(1L);
+        cache.putLoudness(track.getPath(), -20f, 2f);
+        cache.clearMemory();
+
+        assertNotNull(get(cache, track.getPath()));
+        // Apaga o disco: a próxima leitura só pode vir da memória
+        delete(new File(directory, TrackInfoCache.DIRECTORY));
+
+        assertNotNull(get(cache, track.getPath()));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void get_arquivoAlterado_deveInvalidarAEntrada() throws IOException {
+        TrackInfoCache cache = newCache(1L);
+        cache.putLoudness(track.getPath(), -20f, 2f);
+
+        writeTrack(200);
+
+        assertNull(get(cache, track.getPath()));
+        assertNull(get(newCache(1L), track.getPath()));
+    }
+
+    @Test
+    public void get_recursoDoApp_deveValerAteAAtualizacao() {
+        newCache(1L).putFormat(RESOURCE, 48000, 2);
+
+        TrackInfo info = get(newCache(1L), RESOURCE);
+        assertNotNull(info);
+        assertFalse(info.hasLoudness());
+        assertTrue(info.hasFormat());
+        assertFalse(info.hasDuration());
+
+        assertNull(get(newCache(2L), RESOURCE));
+    }
+
+    @Test
+    public void putFormat_arquivoInexistente_naoDeveGuardarNada() {
+        TrackInfoCache cache = newCache(1L);
+        String missing = new File(directory, "missing.mp3").getPath();
+
+        cache.putFormat(missing, 48000, 2);
+
+        assertNull(get(cache, missing));
+    }
+
+    @Test
+    public void lru_deveDescartarAEntradaMaisAntigaDaMemoria() {
+        TrackInfoCache cache = newCache(1, 1L);
+        cache.putLoudness(RESOURCE, -20f, 2f);
+        cache.putLoudness(track.getPath(), -10f, -8f);
+
+        // Saiu da memória, mas continua no disco
+        assertEquals(2f, get(cache, RESOURCE).getGainDb(), 0f);
+    }
+
+    @Test
+    public void put_deveDeixarODiscoParaOExecutorDeDisco() {
+        List<Runnable> pending = new ArrayList<>();
+        TrackInfoCache cache = new TrackInfoCache(new File(directory, TrackInfoCache.DIRECTORY),
+                TrackInfoCache.DEFAULT_CAPACITY, 1L, pending::add, Runnable::run);
+
+        cache.putLoudness(track.getPath(), -20f, 2f);
+
+        assertFalse(new File(directory, TrackInfoCache.DIRECTORY).exists());
+        assertNull(cache.peek(track.getPath()));
+
+        pending.remove(0).run();
+
+        assertEquals(2f, cache.peek(track.getPath()).getGainDb(), 0f);
+        assertNotNull(get(newCache(1L), track.getPath()));
+    }
+
+    @Test
+    public void peek_deveVerSoAMemoriaAtePrefetch() {
+        newCache(1L).putLoudness(track.getPath(), -20f, 2f);
+        TrackInfoCache cache = newCache(1L);
+
+        assertNull(cache.peek(track.getPath()));
+
+        cache.prefetch(track.getPath());
+
+        assertEquals(2f, cache.peek(track.getPath()).getGainDb(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putLoudness_ganhoInvalido_deveLancarExcecao() {
+        newCache(1L).putLoudness(track.getPath(), -20f, Float.NaN);
+    }
+
+    private TrackInfoCache newCache(long resourceVersion) {
+        return newCache(TrackInfoCache.DEFAULT_CAPACITY, resourceVersion);
+    }
+
+    // Executores diretos: cada chamada termina (e o get() entrega o resultado) antes de retornar
+    private TrackInfoCache newCache(int capacity, long resourceVersion) {
+        return new TrackInfoCache(new File(directory, TrackInfoCache.DIRECTORY), capacity, resourceVersion,
+                Runnable::run, Runnable::run);
+    }
+
+    private static TrackInfo get(TrackInfoCache cache, String path) {
+        TrackInfo[] result = new TrackInfo[1];
+        cache.get(path, (p, info) -> result[0] = info);
+        return result[0];
+    }
+
+    // Tamanho diferente muda a impressão digital mesmo se a data de modificação não mudar
+    private void writeTrack(int size) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(track)) {
+            out.write(new byte[size]);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+}
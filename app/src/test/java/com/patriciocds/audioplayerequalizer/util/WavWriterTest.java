@@ -0,0 +1,104 @@
+package com.patriciocds.audioplayerequalizer.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+public class WavWriterTest {
+
+    private File output;
+
+    @Before
+    public void setUp() throws IOException {
+        output = File.createTempFile("wav-writer", ".wav");
+    }
+
+    @After
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Test
+    public void close_pcm16_deveGravarCabecalhoEAmostras() throws IOException {
+        try (WavWriter writer = new WavWriter(output, PcmFormat.pcm16(44100, 2))) {
+            writer.write(shorts(1, -1, 1000, -1000));
+            writer.write(shorts(32767, -32768));
+            assertEquals(3, writer.getFrameCount());
+        }
+
+        ByteBuffer wav = read();
+
+        assertEquals(WavWriter.PCM_HEADER_SIZE + 12, wav.capacity());
+        assertEquals("RIFF", tag(wav, 0));
+        assertEquals(wav.capacity() - 8, wav.getInt(4));
+        assertEquals("WAVE", tag(wav, 8));
+        assertEquals(WavWriter.FORMAT_PCM, wav.getShort(20));
+        assertEquals(2, wav.getShort(22));
+        assertEquals(44100, wav.getInt(24));
+        assertEquals(44100 * 4, wav.getInt(28));
+        assertEquals(4, wav.getShort(32));
+        assertEquals(16, wav.getShort(34));
+        assertEquals("data", tag(wav, 36));
+        assertEquals(12, wav.getInt(40));
+        assertEquals(1000, wav.getShort(48));
+        assertEquals(-32768, wav.getShort(54));
+    }
+
+    @Test
+    public void close_float_deveUsarIeeeFloatComChunkFact() throws IOException {
+        PcmFormat format = new PcmFormat(48000, 1, PcmFormat.ENCODING_PCM_FLOAT, PcmFormat.LAYOUT_INTERLEAVED);
+
+        try (WavWriter writer = new WavWriter(output, format)) {
+            ByteBuffer samples = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            samples.putFloat(0.5f).putFloat(-0.25f).flip();
+            writer.write(samples);
+        }
+
+        ByteBuffer wav = read();
+
+        assertEquals(WavWriter.FLOAT_HEADER_SIZE + 8, wav.capacity());
+        assertEquals(WavWriter.FORMAT_IEEE_FLOAT, wav.getShort(20));
+        assertEquals(32, wav.getShort(34));
+        assertEquals("fact", tag(wav, 38));
+        assertEquals(2, wav.getInt(46));
+        assertEquals("data", tag(wav, 50));
+        assertEquals(8, wav.getInt(54));
+        assertEquals(-0.25f, wav.getFloat(62), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_frameIncompleto_deveLancarExcecao() throws IOException {
+        try (WavWriter writer = new WavWriter(output, PcmFormat.pcm16(44100, 2))) {
+            writer.write(shorts(1));
+        }
+    }
+
+    private ByteBuffer read() throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(output.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String tag(ByteBuffer wav, int offset) {
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            bytes[i] = wav.get(offset + i);
+        }
+        return new String(bytes);
+    }
+
+    private static ByteBuffer shorts(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int value : values) {
+            buffer.putShort((short) value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}